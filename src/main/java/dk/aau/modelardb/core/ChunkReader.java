@@ -0,0 +1,321 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.timeseries.BatchTimeSeries;
+import dk.aau.modelardb.core.timeseries.TimeSeries;
+import dk.aau.modelardb.core.utility.RingBuffer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//Reads the time series of a group on another thread into a bounded ring buffer of chunks per time series, which are
+// consumed through the buffered time series that replace the time series of the group. It is used both by the parse
+// stage of the ingestion pipeline and by the prefetcher, and all of the time series in a group are read by the same
+// thread as the columns of a wide CSV file share one reader that is not thread-safe
+class ChunkReader implements Runnable {
+
+    //The states of the reader so a reader that is stopped before it is started never waits for its executor
+    private static final int CREATED = 0;
+    private static final int RUNNING = 1;
+    private static final int STOPPED = 2;
+
+    /**
+     * Instance Variables
+     **/
+    private final TimeSeries[] timeSeries;
+    private final BufferedTimeSeries[] bufferedTimeSeries;
+    private final int chunkSize;
+    private final Counters counters;
+    private final String name;
+    private final AtomicInteger state = new AtomicInteger(CREATED);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+
+    /**
+     * Constructors
+     **/
+    ChunkReader(TimeSeries[] timeSeries, int chunkSize, int chunks, Counters counters, String name) {
+        this.timeSeries = timeSeries.clone();
+        this.bufferedTimeSeries = new BufferedTimeSeries[timeSeries.length];
+        for (int i = 0; i < timeSeries.length; i++) {
+            this.bufferedTimeSeries[i] = new BufferedTimeSeries(timeSeries[i], chunks);
+        }
+        this.chunkSize = chunkSize;
+        this.counters = counters;
+        this.name = name;
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public void run() {
+        if ( ! this.state.compareAndSet(CREATED, RUNNING)) {
+            return;
+        }
+
+        try {
+            for (TimeSeries ts : this.timeSeries) {
+                ts.open();
+            }
+
+            //The time series are read round-robin and a time series with a full ring buffer is skipped, so the
+            // reader does not block on a time series that is not consumed, e.g., as the other time series are in a gap
+            Chunk[] pending = new Chunk[this.timeSeries.length];
+            int remaining = this.timeSeries.length;
+            int attempt = 0;
+            while (remaining > 0 && !this.stopped) {
+                long read = 0;
+                for (int i = 0; i < this.timeSeries.length; i++) {
+                    RingBuffer<Chunk> buffer = this.bufferedTimeSeries[i].buffer;
+                    if (buffer.isClosed()) {
+                        continue;
+                    }
+                    while (true) {
+                        if (pending[i] == null) {
+                            pending[i] = readChunk(this.timeSeries[i]);
+                            if (pending[i] == null) {
+                                buffer.close();
+                                remaining--;
+                                break;
+                            }
+                        }
+                        if (!buffer.offer(pending[i])) {
+                            break;
+                        }
+                        read += pending[i].size;
+                        pending[i] = null;
+                    }
+                }
+                this.counters.read.add(read);
+                if (read == 0 && remaining > 0) {
+                    this.counters.readStalls.add(attempt == 0 ? 1 : 0);
+                    RingBuffer.idle(attempt++);
+                } else {
+                    attempt = 0;
+                }
+            }
+        } catch (Throwable throwable) {
+            this.failure = throwable;
+        } finally {
+            closeBuffersAndTimeSeries();
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * Package-Private Methods
+     **/
+    void replace(TimeSeries[] timeSeries) {
+        //The time series are replaced in the array by time series that receive their data points from the reader
+        System.arraycopy(this.bufferedTimeSeries, 0, timeSeries, 0, timeSeries.length);
+    }
+
+    void start(Executor executor) {
+        executor.execute(this);
+    }
+
+    /**
+     * Private Methods
+     **/
+    private Chunk readChunk(TimeSeries ts) {
+        //Time series read from columnar formats copy their data points directly into the chunk
+        Chunk chunk = new Chunk(this.chunkSize);
+        if (ts instanceof BatchTimeSeries) {
+            chunk.size = ts.hasNext() ? ((BatchTimeSeries) ts).nextBatch(chunk.timestamps, chunk.values) : 0;
+        } else {
+            while (chunk.size < this.chunkSize && ts.hasNext()) {
+                DataPoint dataPoint = ts.next();
+                chunk.timestamps[chunk.size] = dataPoint.timestamp;
+                chunk.values[chunk.size] = dataPoint.value;
+                chunk.size++;
+            }
+        }
+        return chunk.size == 0 ? null : chunk;
+    }
+
+    private void closeBuffersAndTimeSeries() {
+        for (BufferedTimeSeries bts : this.bufferedTimeSeries) {
+            bts.buffer.close();
+        }
+        for (TimeSeries ts : this.timeSeries) {
+            ts.close();
+        }
+    }
+
+    private void stop() {
+        //A reader that has not started is stopped without running, so closing a group never waits for a reader queued
+        // behind the readers of other groups, otherwise the reader is stopped and its time series are closed by it
+        this.stopped = true;
+        if (this.state.compareAndSet(CREATED, STOPPED)) {
+            closeBuffersAndTimeSeries();
+            this.done.countDown();
+            return;
+        }
+
+        try {
+            this.done.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable failure = this.failure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new RuntimeException("CORE: unable to read " + this.name, failure);
+        }
+    }
+
+    /**
+     * Inner Classes
+     **/
+    static class Counters {
+
+        /**
+         * Instance Variables
+         **/
+        //The counters are updated in batches by the readers and can be read while data points are ingested
+        final LongAdder read = new LongAdder();
+        final LongAdder readStalls = new LongAdder();
+        final LongAdder consumed = new LongAdder();
+        final LongAdder consumeStalls = new LongAdder();
+    }
+
+    private class BufferedTimeSeries extends TimeSeries implements BatchTimeSeries {
+
+        /**
+         * Instance Variables
+         **/
+        private final RingBuffer<Chunk> buffer;
+        private Chunk chunk;
+        private int index;
+        private long consumed;
+
+        /**
+         * Constructors
+         **/
+        private BufferedTimeSeries(TimeSeries timeSeries, int chunks) {
+            super(timeSeries.source, timeSeries.tid, timeSeries.samplingInterval);
+            this.scalingFactor = timeSeries.scalingFactor;
+            resumeAfter(timeSeries.getResumeTimestamp());
+            this.buffer = new RingBuffer<>(chunks);
+        }
+
+        /**
+         * Public Methods
+         **/
+        @Override
+        public void open() {
+            //The time series is opened by the reader
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.chunk == null || this.index == this.chunk.size) {
+                this.chunk = take();
+                this.index = 0;
+            }
+            return this.chunk != null;
+        }
+
+        @Override
+        public DataPoint next() {
+            hasNext();
+            DataPoint dataPoint = new DataPoint(this.tid, this.chunk.timestamps[this.index], this.chunk.values[this.index]);
+            this.index++;
+            addConsumed(1);
+            return dataPoint;
+        }
+
+        @Override
+        public int nextBatch(long[] timestamps, float[] values) {
+            if ( ! hasNext()) {
+                return 0;
+            }
+            int count = Math.min(timestamps.length, this.chunk.size - this.index);
+            System.arraycopy(this.chunk.timestamps, this.index, timestamps, 0, count);
+            System.arraycopy(this.chunk.values, this.index, values, 0, count);
+            this.index += count;
+            addConsumed(count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            counters.consumed.add(this.consumed);
+            this.consumed = 0;
+            stop();
+        }
+
+        @Override
+        public String toString() {
+            return "Buffered " + this.source;
+        }
+
+        /**
+         * Private Methods
+         **/
+        private void addConsumed(int count) {
+            //The counter is updated in batches so the shared counter is not updated for each data point
+            this.consumed += count;
+            if (this.consumed >= chunkSize) {
+                counters.consumed.add(this.consumed);
+                this.consumed = 0;
+            }
+        }
+
+        private Chunk take() {
+            int attempt = 0;
+            while (true) {
+                Chunk chunk = this.buffer.poll();
+                if (chunk != null) {
+                    return chunk;
+                }
+                //The buffer is checked again after it is closed as chunks might have been added before it was closed
+                if (this.buffer.isClosed()) {
+                    throwIfFailed();
+                    return this.buffer.poll();
+                }
+                counters.consumeStalls.add(attempt == 0 ? 1 : 0);
+                RingBuffer.idle(attempt++);
+            }
+        }
+    }
+
+    private static class Chunk {
+
+        /**
+         * Instance Variables
+         **/
+        private final long[] timestamps;
+        private final float[] values;
+        private int size;
+
+        /**
+         * Constructors
+         **/
+        private Chunk(int chunkSize) {
+            this.timestamps = new long[chunkSize];
+            this.values = new float[chunkSize];
+        }
+    }
+}
@@ -14,7 +14,9 @@
  */
 package dk.aau.modelardb.core;
 
+import dk.aau.modelardb.core.timeseries.TimeSeries;
 import dk.aau.modelardb.core.utility.Pair;
+import dk.aau.modelardb.core.utility.Static;
 import dk.aau.modelardb.core.utility.ValueFunction;
 
 import java.util.ArrayList;
@@ -133,6 +135,21 @@ public class Configuration {
         return getInteger("modelardb.batch_size");
     }
 
+    public int getBatchInterval() {
+        return getInteger("modelardb.batch_interval", 0);
+    }
+
+    public String getWriteAheadLogDirectory() {
+        if (!this.values.containsKey("modelardb.wal")) {
+            return null;
+        }
+        return getString("modelardb.wal");
+    }
+
+    public int getWriteAheadLogInterval() {
+        return getInteger("modelardb.wal_interval", 100);
+    }
+
     public HashMap<Integer, Pair<String, ValueFunction>[]> getDerivedTimeSeries() {
         return (HashMap<Integer, Pair<String, ValueFunction>[]>) this.values.get("modelardb.sources.derived")[0];
     }
@@ -149,6 +166,22 @@ public class Configuration {
         return getFloat("modelardb.error_bound", 0);
     }
 
+    public float getAbsoluteErrorBound() {
+        return getFloat("modelardb.absolute_error_bound", 0);
+    }
+
+    public float getAbsoluteErrorBound(TimeSeries[] group) {
+        //The model types are fitted to all time series in a group, so the lowest absolute error bound is used
+        HashMap<String, Float> absoluteErrorBounds = this.values.containsKey("modelardb.absolute_error_bounds") ?
+                (HashMap<String, Float>) getObject("modelardb.absolute_error_bounds") : new HashMap<>();
+        float absoluteErrorBound = Float.MAX_VALUE;
+        for (TimeSeries ts : group) {
+            absoluteErrorBound = Math.min(absoluteErrorBound,
+                    absoluteErrorBounds.getOrDefault(ts.source, getAbsoluteErrorBound()));
+        }
+        return group.length == 0 ? getAbsoluteErrorBound() : absoluteErrorBound;
+    }
+
     public ExecutorService getExecutorService() {
         return (ExecutorService) getObject("modelardb.executor_service");
     }
@@ -165,10 +198,44 @@ public class Configuration {
         return getArray("modelardb.model_types");
     }
 
+    public ModelTypePortfolio[] getModelTypePortfolios() {
+        return (ModelTypePortfolio[]) this.values.get("modelardb.portfolios");
+    }
+
+    public String[] getAllModelTypeNames() {
+        return ModelTypePortfolio.getAllModelTypeNames(getModelTypePortfolios(), getModelTypeNames());
+    }
+
     public int getMaximumLatency() {
         return getInteger("modelardb.maximum_latency", 0);
     }
 
+    public int getParallelModelTypesThreshold() {
+        return getInteger("modelardb.parallel_model_types_threshold", 0);
+    }
+
+    public int getPipelineCapacity() {
+        return getInteger("modelardb.pipeline_capacity", 0);
+    }
+
+    public int getPrefetchDepth() {
+        return getInteger("modelardb.prefetch_depth", 0);
+    }
+
+    public String getUnboundedIngestion() {
+        if (!this.values.containsKey("modelardb.unbounded_ingestion")) {
+            return "selector";
+        }
+        return getString("modelardb.unbounded_ingestion");
+    }
+
+    public SelectionPolicy getSelectionPolicy() {
+        if (!this.values.containsKey("modelardb.selection_policy")) {
+            return new SelectionPolicies.CompressionRatio();
+        }
+        return SelectionPolicies.parse(getString("modelardb.selection_policy"));
+    }
+
     public int getSamplingInterval() {
         return getInteger("modelardb.sampling_interval");
     }
@@ -221,11 +288,32 @@ public class Configuration {
                     throw new IllegalArgumentException("CORE: modelardb.batch_size must be a positive number");
                 }
                 break;
+            case "modelardb.batch_interval":
+                if (!(value instanceof Integer) || (int) value < 0) {
+                    throw new IllegalArgumentException("CORE: modelardb.batch_interval must be zero or a positive number of milliseconds");
+                }
+                break;
+            case "modelardb.wal_interval":
+                if (!(value instanceof Integer) || (int) value < 0) {
+                    throw new IllegalArgumentException("CORE: modelardb.wal_interval must be zero or a positive number of milliseconds");
+                }
+                break;
             case "modelardb.error_bound":
                 if (!(value instanceof Float) && !(value instanceof Integer)) {
                     throw new IllegalArgumentException("CORE: modelardb.error_bound must be an integer or a float");
                 }
                 break;
+            case "modelardb.absolute_error_bound":
+                if (!(value instanceof Float || value instanceof Integer) || ((Number) value).floatValue() < 0.0F) {
+                    throw new IllegalArgumentException("CORE: modelardb.absolute_error_bound must be zero or a positive integer or float");
+                }
+                break;
+            case "modelardb.selection_policy":
+                if (!(value instanceof String)) {
+                    throw new IllegalArgumentException("CORE: modelardb.selection_policy must be compression_ratio, weighted, or a class name");
+                }
+                SelectionPolicies.parse((String) value);
+                break;
             case "modelardb.maximum_latency":
                 if (!(value instanceof Integer) || (int) value < 0) {
                     throw new IllegalArgumentException("CORE: modelardb.maximum_latency must be zero or more data point groups");
@@ -236,6 +324,34 @@ public class Configuration {
                     throw new IllegalArgumentException("CORE: modelardb.length_bound must be a positive number of data point groups");
                 }
                 break;
+            case "modelardb.parallel_model_types_threshold":
+                if (!(value instanceof Integer) || (int) value < 0) {
+                    throw new IllegalArgumentException("CORE: modelardb.parallel_model_types_threshold must be zero or a positive number of time series");
+                }
+                break;
+            case "modelardb.pipeline_capacity":
+                if (!(value instanceof Integer) || (int) value < 0) {
+                    throw new IllegalArgumentException("CORE: modelardb.pipeline_capacity must be zero or a positive number of data points and segments");
+                }
+                break;
+            case "modelardb.prefetch_depth":
+                if (!(value instanceof Integer) || (int) value < 0) {
+                    throw new IllegalArgumentException("CORE: modelardb.prefetch_depth must be zero or a positive number of groups");
+                }
+                break;
+            case "modelardb.csv.mapped_window":
+                if (!(value instanceof Integer) || (int) value < 0 || (int) value > 1024) {
+                    throw new IllegalArgumentException("CORE: modelardb.csv.mapped_window must be zero or a positive number of MiB up to 1024");
+                }
+                break;
+            case "modelardb.unbounded_ingestion":
+                if (!"selector".equals(value) && !"virtual_threads".equals(value)) {
+                    throw new IllegalArgumentException("CORE: modelardb.unbounded_ingestion must be selector or virtual_threads");
+                }
+                if ("virtual_threads".equals(value) && !Static.supportsVirtualThreads()) {
+                    throw new IllegalArgumentException("CORE: modelardb.unbounded_ingestion virtual_threads requires JDK 21 or newer");
+                }
+                break;
             case "modelardb.sampling_interval":
                 if (!(value instanceof Integer) || (int) value < 0) {
                     throw new IllegalArgumentException("CORE: modelardb.sampling_interval must be zero or a positive number of seconds");
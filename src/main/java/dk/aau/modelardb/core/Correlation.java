@@ -96,6 +96,12 @@ public class Correlation {
                 this.scalingFactorForMember.isEmpty() && this.scalingFactorForSource.isEmpty();
     }
 
+    public boolean hasOnlySourcesOrMembers() {
+        return this.distance == -1.0F && (!this.correlatedSources.isEmpty() || !this.correlatedMembers.isEmpty()) &&
+                this.correlatedDimensions.isEmpty() &&
+                this.scalingFactorForMember.isEmpty() && this.scalingFactorForSource.isEmpty();
+    }
+
     public HashSet<String> getCorrelatedSources() {
         return this.correlatedSources;
     }
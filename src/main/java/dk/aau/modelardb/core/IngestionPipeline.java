@@ -0,0 +1,198 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.timeseries.TimeSeries;
+import dk.aau.modelardb.core.utility.RingBuffer;
+import dk.aau.modelardb.core.utility.SegmentFunction;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//The pipeline splits ingestion of a working set into three stages that are connected by bounded ring buffers: a parse
+// stage per bounded group that reads the data points from its sources, the align and fit stage in the thread executing
+// WorkingSet.process, and an emit stage that passes the segments to the SegmentFunctions, so a slow SegmentFunction,
+// e.g., one writing a batch to storage, only stalls parsing and fitting when the ring buffers between them are full.
+// The parse stage is a ChunkReader on a thread per group, and a group read by the prefetcher is not parsed again
+public class IngestionPipeline {
+
+    //The data points are passed from the parse stage to the align and fit stage in chunks of at most this many
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Instance Variables
+     **/
+    private final int capacity;
+    private final int chunkSize;
+    private final int chunks;
+    private final long startTime;
+    private final RingBuffer<EmittedSegment> segments;
+    private final Thread emitThread;
+    private volatile Throwable emitFailure;
+
+    //The counters are updated in batches by the stages and can be read while data points are ingested
+    private final ChunkReader.Counters counters = new ChunkReader.Counters();
+    private final LongAdder emittedSegments = new LongAdder();
+    private final LongAdder emitStalls = new LongAdder();
+
+    /**
+     * Constructors
+     **/
+    IngestionPipeline(int capacity) {
+        this.capacity = capacity;
+        this.chunkSize = Math.min(capacity, CHUNK_SIZE);
+        this.chunks = (capacity + this.chunkSize - 1) / this.chunkSize;
+        this.startTime = System.nanoTime();
+        this.segments = new RingBuffer<>(capacity);
+        this.emitThread = new Thread(this::emit, "modelardb-emit");
+        this.emitThread.setDaemon(true);
+        this.emitThread.start();
+    }
+
+    /**
+     * Public Methods
+     **/
+    public long getParsedDataPoints() {
+        return this.counters.read.sum();
+    }
+
+    public long getFittedDataPoints() {
+        return this.counters.consumed.sum();
+    }
+
+    public long getEmittedSegments() {
+        return this.emittedSegments.sum();
+    }
+
+    public String toString() {
+        double seconds = Math.max(System.nanoTime() - this.startTime, 1L) / 1e9;
+        long parsed = this.counters.read.sum();
+        long fitted = this.counters.consumed.sum();
+        return String.format("Ingestion Pipeline [Parse: %d data points (%.0f/s, %d stalls) | " +
+                        "Fit: %d data points (%.0f/s, %d stalls) | Emit: %d segments (%.0f/s, %d stalls)]",
+                parsed, parsed / seconds, this.counters.readStalls.sum(),
+                fitted, fitted / seconds, this.counters.consumeStalls.sum(),
+                this.emittedSegments.sum(), this.emittedSegments.sum() / seconds, this.emitStalls.sum());
+    }
+
+    /**
+     * Package-Private Methods
+     **/
+    void parse(int gid, TimeSeries[] timeSeries) {
+        ChunkReader parseStage = new ChunkReader(timeSeries, this.chunkSize, this.chunks, this.counters, "the parse stage");
+        parseStage.replace(timeSeries);
+        parseStage.start(runnable -> {
+            Thread thread = new Thread(runnable, "modelardb-parse-" + gid);
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    SegmentFunction emitTo(SegmentFunction segmentFunction) {
+        return (gid, startTime, endTime, mtid, model, gaps) -> {
+            //The segments are passed through one ring buffer so temporary and finalized segments stay in order
+            throwIfEmitFailed();
+            EmittedSegment segment = new EmittedSegment(segmentFunction, gid, startTime, endTime, mtid, model, gaps);
+            int attempt = 0;
+            while (!this.segments.offer(segment)) {
+                throwIfEmitFailed();
+                RingBuffer.idle(attempt++);
+            }
+            this.counters.consumeStalls.add(attempt > 0 ? 1 : 0);
+        };
+    }
+
+    void close() {
+        //All of the segments are emitted before the pipeline is closed
+        this.segments.close();
+        try {
+            this.emitThread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("CORE: interrupted while emitting the remaining segments", ie);
+        }
+        throwIfEmitFailed();
+    }
+
+    /**
+     * Private Methods
+     **/
+    private void emit() {
+        int attempt = 0;
+        try {
+            while (true) {
+                EmittedSegment segment = this.segments.poll();
+                if (segment != null) {
+                    segment.emit();
+                    this.emittedSegments.increment();
+                    attempt = 0;
+                } else if (this.segments.isClosed() && this.segments.isEmpty()) {
+                    return;
+                } else {
+                    this.emitStalls.add(attempt == 0 ? 1 : 0);
+                    RingBuffer.idle(attempt++);
+                }
+            }
+        } catch (Throwable throwable) {
+            this.emitFailure = throwable;
+        }
+    }
+
+    private void throwIfEmitFailed() {
+        Throwable failure = this.emitFailure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new RuntimeException("CORE: the emit stage failed", failure);
+        }
+    }
+
+    /**
+     * Inner Classes
+     **/
+    private static class EmittedSegment {
+
+        /**
+         * Instance Variables
+         **/
+        private final SegmentFunction segmentFunction;
+        private final int gid;
+        private final long startTime;
+        private final long endTime;
+        private final int mtid;
+        private final byte[] model;
+        private final byte[] gaps;
+
+        /**
+         * Constructors
+         **/
+        private EmittedSegment(SegmentFunction segmentFunction, int gid, long startTime, long endTime, int mtid,
+                               byte[] model, byte[] gaps) {
+            this.segmentFunction = segmentFunction;
+            this.gid = gid;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.mtid = mtid;
+            this.model = model;
+            this.gaps = gaps;
+        }
+
+        /**
+         * Private Methods
+         **/
+        private void emit() {
+            this.segmentFunction.emit(this.gid, this.startTime, this.endTime, this.mtid, this.model, this.gaps);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.timeseries.TimeSeries;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+public class ModelTypePortfolio {
+
+    /**
+     * Instance Variables
+     **/
+    private final Correlation selector;
+    private final String[] modelTypeNames;
+
+    /**
+     * Constructors
+     **/
+    public ModelTypePortfolio(Correlation selector, String[] modelTypeNames) {
+        //The selector is a correlation clause so groups can be selected by sources and members like when grouping
+        if (!selector.hasOnlySourcesOrMembers()) {
+            throw new IllegalArgumentException("CORE: a portfolio can only select time series by sources and members");
+        }
+        if (modelTypeNames.length == 0) {
+            throw new IllegalArgumentException("CORE: a portfolio must contain at least one model type");
+        }
+        this.selector = selector;
+        this.modelTypeNames = modelTypeNames;
+    }
+
+    /**
+     * Public Methods
+     **/
+    public static String[] select(ModelTypePortfolio[] portfolios, String[] modelTypeNames, TimeSeries[] group,
+                                  Dimensions dimensions) {
+        //The first portfolio that all of the time series in the group match is used, otherwise the default is used
+        for (ModelTypePortfolio portfolio : portfolios) {
+            if (portfolio.selector.test(group, new TimeSeries[0], dimensions)) {
+                return portfolio.modelTypeNames;
+            }
+        }
+        return modelTypeNames;
+    }
+
+    public static String[] getAllModelTypeNames(ModelTypePortfolio[] portfolios, String[] modelTypeNames) {
+        LinkedHashSet<String> allModelTypeNames = new LinkedHashSet<>(Arrays.asList(modelTypeNames));
+        for (ModelTypePortfolio portfolio : portfolios) {
+            allModelTypeNames.addAll(Arrays.asList(portfolio.modelTypeNames));
+        }
+        return allModelTypeNames.toArray(new String[0]);
+    }
+
+    public String[] getModelTypeNames() {
+        return this.modelTypeNames;
+    }
+}
@@ -39,6 +39,7 @@ public class Partitioner {
         String timeZone = configuration.getString("modelardb.time_zone");
         int valueColumnIndex = configuration.getInteger("modelardb.value_column");
         String locale = configuration.getString("modelardb.csv.locale");
+        int mappedWindowSize = configuration.getInteger("modelardb.csv.mapped_window", 0) * 1024 * 1024;
 
         // TODO: FIX ME
         //HACK: Sampling interval is one argument as all time series used for evaluation used the same sampling interval
@@ -50,11 +51,21 @@ public class Partitioner {
                 (HashMap<String, Pair<String, ValueFunction>[]>) configuration.remove(derivedKey)[0];
         HashMap<Integer, Pair<String, ValueFunction>[]> derivedTimeSeries = new HashMap<>();
 
+        //The columns of wide files are read by one reader per file which is shared by the time series for the columns
+        HashMap<String, Pair<String, Integer>> wideSources = configuration.contains("modelardb.sources.wide") ?
+                (HashMap<String, Pair<String, Integer>>) configuration.get("modelardb.sources.wide")[0] : new HashMap<>();
+        HashMap<String, WideCSVReader> wideReaders = new HashMap<>();
+
         //Initializes all time series, both bounded (files) and unbounded (sockets)
         for (String source : sources) {
             cms += 1;
             TimeSeries ts;
-            if (source.contains(":")) {
+            if (wideSources.containsKey(source)) {
+                Pair<String, Integer> column = wideSources.get(source);
+                WideCSVReader reader = wideReaders.computeIfAbsent(column._1, path -> new WideCSVReader(path,
+                        separator, header, timestampColumnIndex, dateFormat, timeZone, locale, mappedWindowSize));
+                ts = new TimeSeriesCSVColumn(source, cms, samplingInterval, reader, column._2);
+            } else if (source.contains(":")) {
                 ts = new AsyncTimeSeriesSocket(source, cms, samplingInterval, separator,
                         timestampColumnIndex, dateFormat, timeZone, valueColumnIndex, locale);
             } else if (source.endsWith(".orc")) {
@@ -63,7 +74,7 @@ public class Partitioner {
                 ts = new TimeSeriesParquet(source, cms, samplingInterval, timestampColumnIndex, valueColumnIndex);
             } else {
                 ts = new TimeSeriesCSV(source, cms, samplingInterval, separator, header,
-                        timestampColumnIndex, dateFormat, timeZone, valueColumnIndex, locale);
+                        timestampColumnIndex, dateFormat, timeZone, valueColumnIndex, locale, mappedWindowSize);
             }
             tss.add(ts);
 
@@ -104,8 +115,11 @@ public class Partitioner {
         Iterator<Integer> gids = IntStream.range(currentMaximumGid + 1, Integer.MAX_VALUE).iterator();
         TimeSeriesGroup[] groups;
         if (correlations.length == 0) {
-            groups = Arrays.stream(timeSeries).map(ts -> new TimeSeriesGroup(gids.next(), new TimeSeries[]{ts}))
-                    .toArray(TimeSeriesGroup[]::new);
+            TimeSeries[][] tss = Arrays.stream(timeSeries).map(ts -> new TimeSeries[]{ts}).toArray(TimeSeries[][]::new);
+            groups = Arrays.stream(Partitioner.groupTimeSeriesByWideSource(tss)).map(ts -> {
+                Arrays.sort(ts, Comparator.comparingInt(ts2 -> ts2.tid));
+                return new TimeSeriesGroup(gids.next(), ts);
+            }).toArray(TimeSeriesGroup[]::new);
         } else {
             //If groups are specified as disjoint sets of time series, they can be created directly
             TimeSeries[][] tss;
@@ -115,6 +129,7 @@ public class Partitioner {
                 Dimensions dimensions = configuration.getDimensions();
                 tss = Partitioner.groupTimeSeriesByCorrelation(timeSeries, dimensions, correlations);
             }
+            tss = Partitioner.groupTimeSeriesByWideSource(tss);
 
             //The time series in a group must be sorted by tid, otherwise, optimizations in SegmentGenerator fail
             groups = Arrays.stream(tss).map(ts -> {
@@ -129,11 +144,25 @@ public class Partitioner {
     public static WorkingSet[] partitionTimeSeries(Configuration configuration, TimeSeriesGroup[] timeSeriesGroups,
                                                    Map<String, Integer> mtidCache, int partitions) {
         TimeSeriesGroup[][] pts = Partitioner.partitionTimeSeriesByRate(timeSeriesGroups, partitions);
-        int[] mtids = Arrays.stream(configuration.getModelTypeNames()).mapToInt(mtidCache::get).toArray();
-        WorkingSet[] workingSets = Arrays.stream(pts).map(tss -> new WorkingSet(tss, configuration.getFloat(
-                        "modelardb.dynamic_split_fraction"), configuration.getModelTypeNames(), mtids,
-                        configuration.getErrorBound(), configuration.getLengthBound(), configuration.getMaximumLatency()))
-                .toArray(WorkingSet[]::new);
+        ModelTypePortfolio[] portfolios = configuration.getModelTypePortfolios();
+        Dimensions dimensions = configuration.getDimensions();
+        WorkingSet[] workingSets = Arrays.stream(pts).map(tss -> {
+            String[][] modelTypeNames = Arrays.stream(tss).map(tsg -> ModelTypePortfolio.select(portfolios,
+                    configuration.getModelTypeNames(), tsg.getTimeSeries(), dimensions)).toArray(String[][]::new);
+            int[][] mtids = Arrays.stream(modelTypeNames).map(mtn -> Arrays.stream(mtn).mapToInt(mtidCache::get)
+                    .toArray()).toArray(int[][]::new);
+            float[] absoluteErrorBounds = new float[tss.length];
+            for (int i = 0; i < tss.length; i++) {
+                absoluteErrorBounds[i] = configuration.getAbsoluteErrorBound(tss[i].getTimeSeries());
+            }
+            return new WorkingSet(tss, configuration.getFloat("modelardb.dynamic_split_fraction"), modelTypeNames,
+                    mtids, configuration.getErrorBound(), absoluteErrorBounds, configuration.getSelectionPolicy(),
+                    configuration.getLengthBound(),
+                    configuration.getMaximumLatency(), configuration.getParallelModelTypesThreshold(),
+                    configuration.getPipelineCapacity(), configuration.getPrefetchDepth(),
+                    configuration.getUnboundedIngestion().equals("virtual_threads"));
+        }).toArray(WorkingSet[]::new);
+        WorkingSet.shareBoundedTimeSeriesGroups(workingSets);
         Static.info(String.format("CORE: created %d working set(s)", workingSets.length));
         return workingSets;
     }
@@ -220,6 +249,42 @@ public class Partitioner {
                 .map(al -> al.toArray(new TimeSeries[0])).toArray(TimeSeries[][]::new);
     }
 
+    private static TimeSeries[][] groupTimeSeriesByWideSource(TimeSeries[][] tss) {
+        //The columns of a wide file are read by a shared reader that is not thread-safe, so the groups containing
+        // columns from the same file are merged so the file is only read by the thread ingesting the merged group
+        int[] roots = IntStream.range(0, tss.length).toArray();
+        HashMap<WideCSVReader, Integer> readerToGroup = new HashMap<>();
+        for (int i = 0; i < tss.length; i++) {
+            for (TimeSeries ts : tss[i]) {
+                if (ts instanceof TimeSeriesCSVColumn) {
+                    Integer j = readerToGroup.putIfAbsent(((TimeSeriesCSVColumn) ts).reader, i);
+                    if (j != null) {
+                        int rootI = findRoot(roots, i);
+                        int rootJ = findRoot(roots, j);
+                        roots[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+                    }
+                }
+            }
+        }
+        if (readerToGroup.isEmpty()) {
+            return tss;
+        }
+
+        //The merged groups are ordered by their first group so the groups are created in the same order each time
+        LinkedHashMap<Integer, ArrayList<TimeSeries>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < tss.length; i++) {
+            groups.computeIfAbsent(findRoot(roots, i), root -> new ArrayList<>()).addAll(Arrays.asList(tss[i]));
+        }
+        return groups.values().stream().map(al -> al.toArray(new TimeSeries[0])).toArray(TimeSeries[][]::new);
+    }
+
+    private static int findRoot(int[] roots, int i) {
+        while (roots[i] != i) {
+            i = roots[i];
+        }
+        return i;
+    }
+
     //Partitioning Methods
     private static TimeSeriesGroup[][] partitionTimeSeriesByRate(TimeSeriesGroup[] timeSeriesGroups, int partitions) {
         if (timeSeriesGroups.length == 0 && partitions == 0) {
@@ -0,0 +1,95 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.timeseries.TimeSeries;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//The prefetcher opens and reads the sources of the next bounded groups of a working set on a pool of I/O threads, so
+// opening, decompressing, and parsing the files of the next groups overlap with fitting models to the current group.
+// Each group is read by a ChunkReader, so a group that is read ahead is not also parsed by the ingestion pipeline
+public class Prefetcher {
+
+    //The number of data points per chunk and the number of chunks buffered for each time series
+    private static final int CHUNK_SIZE = 1024;
+    private static final int CHUNKS = 8;
+
+    /**
+     * Instance Variables
+     **/
+    private final int depth;
+    private final long startTime;
+    private final ExecutorService executor;
+    private final LongAdder prefetchedGroups = new LongAdder();
+    private final ChunkReader.Counters counters = new ChunkReader.Counters();
+
+    /**
+     * Constructors
+     **/
+    Prefetcher(int depth) {
+        this.depth = depth;
+        this.startTime = System.nanoTime();
+
+        //The group being ingested is read by a thread in addition to the groups read ahead of it
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(depth + 1, runnable -> {
+            Thread thread = new Thread(runnable, "modelardb-prefetch-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Public Methods
+     **/
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public long getPrefetchedDataPoints() {
+        return this.counters.read.sum();
+    }
+
+    public long getIngestStalls() {
+        return this.counters.consumeStalls.sum();
+    }
+
+    public String toString() {
+        double seconds = Math.max(System.nanoTime() - this.startTime, 1L) / 1e9;
+        long read = this.counters.read.sum();
+        return String.format("Prefetcher [Depth: %d | Groups: %d | Read: %d data points (%.0f/s, %d stalls) | " +
+                        "Ingest: %d stalls]", this.depth, this.prefetchedGroups.sum(), read, read / seconds,
+                this.counters.readStalls.sum(), this.counters.consumeStalls.sum());
+    }
+
+    /**
+     * Package-Private Methods
+     **/
+    void read(TimeSeries[] timeSeries) {
+        ChunkReader reader = new ChunkReader(timeSeries, CHUNK_SIZE, CHUNKS, this.counters, "the prefetched sources");
+        reader.replace(timeSeries);
+        reader.start(this.executor);
+        this.prefetchedGroups.increment();
+    }
+
+    void close() {
+        //The readers that are still running complete when their groups are ingested by other working sets or closed
+        this.executor.shutdown();
+    }
+}
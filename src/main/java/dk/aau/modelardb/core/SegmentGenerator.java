@@ -15,13 +15,17 @@
 package dk.aau.modelardb.core;
 
 import dk.aau.modelardb.core.models.ModelType;
+import dk.aau.modelardb.core.models.ModelTypeFactory;
+import dk.aau.modelardb.core.models.ModelTypeProvider;
 import dk.aau.modelardb.core.timeseries.TimeSeries;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
 import dk.aau.modelardb.core.utility.Logger;
-import dk.aau.modelardb.core.utility.ReverseBufferIterator;
 import dk.aau.modelardb.core.utility.SegmentFunction;
 import dk.aau.modelardb.core.utility.Static;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -34,9 +38,13 @@ public class SegmentGenerator {
     //Variables from the constructor
     private final int gid;
     private final int maximumLatency;
+    private final int parallelModelTypesThreshold;
+    private final ForkJoinPool modelTypePool;
     private final int samplingInterval;
     private final ModelType[] modelTypes;
     private final ModelType fallbackModelType;
+    private final SelectionPolicy selectionPolicy;
+    private final ModelTypeProvider[] modelTypeProviders;
     private final Supplier<ModelType[]> modelTypeInitializer;
     private final SegmentFunction finalizedSegmentStream;
     private final SegmentFunction temporarySegmentStream;
@@ -47,7 +55,8 @@ public class SegmentGenerator {
     private TimeSeriesGroup timeSeriesGroup;
     //State variables for buffering data points
     private Set<Integer> gaps;
-    private ArrayList<DataPoint[]> buffer;
+    private float[] values;
+    private DataPointBuffer buffer;
     private long[] previousTimeStamps;
     private float dynamicSplitFraction;
     private long emittedFinalizedSegments;
@@ -56,7 +65,9 @@ public class SegmentGenerator {
     private Set<SegmentGenerator> splitsToJoinIfCorrelated;
     private ArrayList<SegmentGenerator> splitSegmentGenerators;
     //State variables for fitting the current model
+    private final boolean parallelModelTypes;
     private int modelTypeIndex;
+    private int modelTypesCaughtUp;
     private int dataPointsYetEmitted;
     private ModelType currentModelType;
     private ModelType lastEmittedModelType;
@@ -64,15 +75,22 @@ public class SegmentGenerator {
      * Constructors
      **/
     SegmentGenerator(TimeSeriesGroup timeSeriesGroup, Supplier<ModelType[]> modelTypeInitializer,
-                     ModelType fallbackModelType, List<Integer> tids, int maximumLatency, float dynamicSplitFraction,
-                     SegmentFunction temporarySegmentStream, SegmentFunction finalizedSegmentStream) {
+                     ModelType fallbackModelType, SelectionPolicy selectionPolicy, List<Integer> tids,
+                     int maximumLatency, float dynamicSplitFraction, int parallelModelTypesThreshold,
+                     ForkJoinPool modelTypePool, SegmentFunction temporarySegmentStream,
+                     SegmentFunction finalizedSegmentStream) {
 
         //Variables from the constructor
         this.gid = timeSeriesGroup.gid;
         this.timeSeriesGroup = timeSeriesGroup;
         this.modelTypes = modelTypeInitializer.get();
         this.fallbackModelType = fallbackModelType;
+        this.selectionPolicy = selectionPolicy;
+        this.modelTypeProviders = Arrays.stream(this.modelTypes).map(modelType ->
+                ModelTypeFactory.getProvider(modelType.getClass().getName())).toArray(ModelTypeProvider[]::new);
         this.maximumLatency = maximumLatency;
+        this.parallelModelTypesThreshold = parallelModelTypesThreshold;
+        this.modelTypePool = modelTypePool;
         this.tids = tids;
         this.samplingInterval = timeSeriesGroup.samplingInterval;
 
@@ -89,15 +107,17 @@ public class SegmentGenerator {
         this.splitsToJoinIfCorrelated = new HashSet<>();
 
         //State variables for buffering data points
+        int[] groupTids = Arrays.stream(timeSeriesGroup.getTimeSeries()).mapToInt(ts -> ts.tid).toArray();
         this.gaps = new HashSet<>();
-        this.buffer = new ArrayList<>();
+        this.values = new float[timeSeriesGroup.size()];
+        this.buffer = new DataPointBuffer(groupTids, fallbackModelType.lengthBound);
         this.previousTimeStamps = new long[timeSeriesGroup.size()];
 
-        //State variables for fitting the current model
-        this.modelTypeIndex = 0;
+        //State variables for fitting the current model, the model types are fitted in parallel for wide groups
+        this.parallelModelTypes = parallelModelTypesThreshold > 0 && modelTypePool != null &&
+                this.modelTypes.length > 1 && timeSeriesGroup.size() >= parallelModelTypesThreshold;
         this.dataPointsYetEmitted = 0;
-        this.currentModelType = this.modelTypes[0];
-        this.currentModelType.initialize(this.buffer);
+        resetModelTypeIndex();
 
         //DEBUG: logger instance for counting segments used for this generator
         this.logger = new Logger(this.timeSeriesGroup.size());
@@ -111,7 +131,8 @@ public class SegmentGenerator {
         while (this.timeSeriesGroup.hasNext()) {
             //Ingests data points until a split occurs or no more data points are available
             while (this.splitSegmentGenerators.isEmpty() && this.timeSeriesGroup.hasNext()) {
-                consumeDataPoints(this.timeSeriesGroup.next(), this.timeSeriesGroup.getActiveTimeSeries());
+                this.timeSeriesGroup.next();
+                consumeDataPoints();
                 consumedDataPoints = true;
             }
 
@@ -124,7 +145,8 @@ public class SegmentGenerator {
                     SegmentGenerator sg = this.splitSegmentGenerators.get(i);
                     if (sg.timeSeriesGroup.hasNext()) {
                         splitSegmentGeneratorHasNext = true;
-                        sg.consumeDataPoints(sg.timeSeriesGroup.next(), sg.timeSeriesGroup.getActiveTimeSeries());
+                        sg.timeSeriesGroup.next();
+                        sg.consumeDataPoints();
                         consumedDataPoints = true;
                     }
                 }
@@ -149,47 +171,51 @@ public class SegmentGenerator {
     }
 
     //** Private Methods **/
-    private void consumeDataPoints(DataPoint[] curDataPointsAndGaps, int activeTimeSeries) {
+    private void consumeDataPoints() {
         //DEBUG: adds either a key our five seconds delay to continue
-        //this.logger.pauseAndPrint(curDataPointsAndGaps);
-        //this.logger.sleepAndPrint(curDataPointsAndGaps, 5000);
+        //this.logger.pauseAndPrint(this.timeSeriesGroup);
+        //this.logger.sleepAndPrint(this.timeSeriesGroup, 5000);
 
         //If no time series provided any values for this time stamp all computations can be skipped
-        if (activeTimeSeries == 0) {
+        TimeSeriesGroup tsg = this.timeSeriesGroup;
+        if (tsg.getActiveTimeSeries() == 0) {
             return;
         }
 
         //If any of the time series are missing values, a gap is stored for that time series
-        int nextDataPoint = 0;
-        DataPoint[] currentDataPoints = new DataPoint[activeTimeSeries];
-        for (int i = 0; i < curDataPointsAndGaps.length; i++) {
-            DataPoint cdpg = curDataPointsAndGaps[i];
-            if (Float.isNaN(cdpg.value)) {
-                //A NaN value indicates the start of a gap, so we flush and store its tid in gaps
-                if (!this.gaps.contains(cdpg.tid)) {
+        TimeSeries[] timeSeries = tsg.getTimeSeries();
+        long timestamp = tsg.getTimestamp();
+        for (int i = 0; i < timeSeries.length; i++) {
+            float value = tsg.getValue(i);
+            if (tsg.isGap(i) || Float.isNaN(value)) {
+                //A missing or NaN value indicates the start of a gap, so we flush and store its tid in gaps
+                if (!this.buffer.isGap(i)) {
                     flushBuffer();
-                    this.gaps.add(cdpg.tid);
+                    this.gaps.add(timeSeries[i].tid);
+                    this.buffer.setGap(i, true);
                 }
             } else {
                 //A floating-point value indicates the end of a gap if more then the sampling interval have passed
                 long pts = this.previousTimeStamps[i];
-                if ((cdpg.timestamp - pts) > this.samplingInterval) {
+                if ((timestamp - pts) > this.samplingInterval) {
                     //A gap have ended so we flush the buffer and remove the tid from gaps
                     flushBuffer();
-                    this.gaps.remove(cdpg.tid);
+                    this.gaps.remove(timeSeries[i].tid);
+                    this.buffer.setGap(i, false);
                 }
-                currentDataPoints[nextDataPoint] = cdpg;
-                this.previousTimeStamps[i] = cdpg.timestamp;
-                nextDataPoint++;
+                this.values[i] = value;
+                this.previousTimeStamps[i] = timestamp;
             }
         }
-        //A new data point has been ingested but not yet emitted
-        this.buffer.add(currentDataPoints);
+        //A new data point has been ingested but not yet emitted, the buffer copies the values so they can be reused
+        this.buffer.append(timestamp, this.values);
         this.dataPointsYetEmitted++;
 
         //The current model type is given the data points and it verifies that the model can represent them and all prior,
         // it is assumed that append will fail if it failed in the past, so append(t,V) must fail if append(t-1,V) failed
-        if (!this.currentModelType.append(currentDataPoints)) {
+        boolean currentModelTypeFailed = this.parallelModelTypes ? !appendToCurrentModelType(this.buffer.size() - 1) :
+                !this.currentModelType.append(this.buffer, this.buffer.size() - 1);
+        if (currentModelTypeFailed) {
             this.modelTypeIndex += 1;
             if (this.modelTypeIndex == this.modelTypes.length) {
                 //If none of the model types can represent all of the buffered data points, the model type that provides
@@ -197,8 +223,13 @@ public class SegmentGenerator {
                 emitFinalSegment();
                 resetModelTypeIndex();
             } else {
+                //The remaining model types are given the buffered data points they are missing in parallel
                 this.currentModelType = this.modelTypes[this.modelTypeIndex];
-                this.currentModelType.initialize(this.buffer);
+                if (this.parallelModelTypes) {
+                    catchUpModelTypes(this.modelTypeIndex);
+                } else {
+                    this.currentModelType.initialize(this.buffer);
+                }
             }
         }
 
@@ -217,8 +248,10 @@ public class SegmentGenerator {
         }
 
         //Any uninitialized model types must be initialized before the buffer is flushed
-        for (this.modelTypeIndex += 1; this.modelTypeIndex < this.modelTypes.length; this.modelTypeIndex++) {
-            modelTypes[this.modelTypeIndex].initialize(this.buffer);
+        if (!this.parallelModelTypes) {
+            for (this.modelTypeIndex += 1; this.modelTypeIndex < this.modelTypes.length; this.modelTypeIndex++) {
+                modelTypes[this.modelTypeIndex].initialize(this.buffer);
+            }
         }
 
         //Finalized segments are emitted until the buffer is empty, dynamic splitting is disabled as flushing can
@@ -227,22 +260,117 @@ public class SegmentGenerator {
         this.dynamicSplitFraction = 0;
         while (!buffer.isEmpty()) {
             emitFinalSegment();
-            for (ModelType m : this.modelTypes) {
-                m.initialize(this.buffer);
-            }
+            initializeModelTypes();
         }
         this.dynamicSplitFraction = previousDynamicSplitFraction;
         resetModelTypeIndex();
     }
 
     private void resetModelTypeIndex() {
-        //Restarts ingestion using the first model type and the currently buffered data points
+        //Restarts ingestion using the first model type and the currently buffered data points, all of the model types
+        // are initialized if they are fitted in parallel as they are all given each data point when it is ingested
         this.modelTypeIndex = 0;
         this.currentModelType = modelTypes[modelTypeIndex];
-        this.currentModelType.initialize(this.buffer);
+        if (this.parallelModelTypes) {
+            initializeModelTypes();
+        } else {
+            this.currentModelType.initialize(this.buffer);
+        }
+    }
+
+    private boolean appendToCurrentModelType(int row) {
+        //Only the current model type is given each data point when it is ingested, the remaining model types are given
+        // the data points they are missing by one task each when the current model type fails or a segment is emitted,
+        // so each task appends a range of data points instead of a task being submitted for each data point
+        if (this.currentModelType.length() == row) {
+            this.currentModelType.append(this.buffer, row);
+        }
+        return this.currentModelType.length() == this.buffer.size();
+    }
+
+    private void catchUpModelTypes(int from) {
+        //The first model type is caught up by this thread while the others are caught up by tasks in the pool
+        int size = this.buffer.size();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[this.modelTypes.length];
+        for (int i = from + 1; i < this.modelTypes.length; i++) {
+            int index = i;
+            tasks[i] = this.modelTypePool.submit(() -> catchUp(this.modelTypes[index], size));
+        }
+        catchUp(this.modelTypes[from], size);
+        joinAll(tasks);
+        this.modelTypesCaughtUp = size;
+    }
+
+    private void catchUp(ModelType modelType, int size) {
+        //A model type is only given a data point if its model represents all prior data points, so its length is less
+        // than the number of data points it has been given if it failed now or in the past
+        for (int row = this.modelTypesCaughtUp; row < size && modelType.length() == row; row++) {
+            modelType.append(this.buffer, row);
+        }
+    }
+
+    private void initializeModelTypes() {
+        //The model types are initialized in parallel for wide groups, with the first model type initialized by this thread
+        if (!this.parallelModelTypes) {
+            for (ModelType m : this.modelTypes) {
+                m.initialize(this.buffer);
+            }
+            return;
+        }
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[this.modelTypes.length];
+        for (int i = 1; i < this.modelTypes.length; i++) {
+            ModelType modelType = this.modelTypes[i];
+            tasks[i] = this.modelTypePool.submit(() -> modelType.initialize(this.buffer));
+        }
+        this.modelTypes[0].initialize(this.buffer);
+        joinAll(tasks);
+        this.modelTypesCaughtUp = this.buffer.size();
+    }
+
+    private float[] compressionRatios() {
+        //The compression ratios are computed in parallel for wide groups as size() might verify the model using the buffer
+        float[] compressionRatios = new float[this.modelTypes.length];
+        if (!this.parallelModelTypes) {
+            for (int i = 0; i < this.modelTypes.length; i++) {
+                compressionRatios[i] = compressionRatio(this.modelTypes[i]);
+            }
+            return compressionRatios;
+        }
+
+        //The model types after the current model type are given the data points they are missing before their ratio
+        int size = this.buffer.size();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[this.modelTypes.length];
+        for (int i = 1; i < this.modelTypes.length; i++) {
+            int index = i;
+            tasks[i] = this.modelTypePool.submit(() -> {
+                if (index > this.modelTypeIndex) {
+                    catchUp(this.modelTypes[index], size);
+                }
+                compressionRatios[index] = compressionRatio(this.modelTypes[index]);
+            });
+        }
+        compressionRatios[0] = compressionRatio(this.modelTypes[0]);
+        joinAll(tasks);
+        this.modelTypesCaughtUp = size;
+        return compressionRatios;
+    }
+
+    private void joinAll(ForkJoinTask<?>[] tasks) {
+        //Slots are null for model types that did not need a task
+        for (ForkJoinTask<?> task : tasks) {
+            if (task != null) {
+                task.join();
+            }
+        }
     }
 
     private void emitTemporarySegment() {
+        //A temporary segment cannot be emitted for a split only containing time series that currently are in a gap
+        if (this.buffer.isEmpty()) {
+            return;
+        }
+
         //The fallback model type is used if the current model type cannot represent the data points in the buffer
         ModelType modelTypeToBeEmitted = this.currentModelType;
         if (modelTypeToBeEmitted.length() < this.buffer.size() ||
@@ -262,15 +390,23 @@ public class SegmentGenerator {
     }
 
     private void emitFinalSegment() {
-        //The model type providing the model with best compression ratio is selected as mostEfficientModelType
+        //The model type with the highest score from the selection policy is selected as mostEfficientModelType, the
+        // compression ratio of each model type is only computed once as size() might verify the model using the buffer
+        float[] compressionRatios = compressionRatios();
         ModelType mostEfficientModelType = this.modelTypes[0];
-        for (ModelType modelType : this.modelTypes) {
-            mostEfficientModelType = (compressionRatio(modelType) < compressionRatio(mostEfficientModelType)) ? mostEfficientModelType : modelType;
+        float highestCompressionRatio = compressionRatios[0];
+        float highestScore = this.selectionPolicy.score(this.modelTypeProviders[0], this.modelTypes[0], compressionRatios[0]);
+        for (int i = 1; i < this.modelTypes.length; i++) {
+            float score = this.selectionPolicy.score(this.modelTypeProviders[i], this.modelTypes[i], compressionRatios[i]);
+            if (!(score < highestScore)) { //NaN is not less than any score so it is selected
+                mostEfficientModelType = this.modelTypes[i];
+                highestCompressionRatio = compressionRatios[i];
+                highestScore = score;
+            }
         }
 
         //If none of the model types has received enough data points to fit a model to them, the fallback model type is used
         int mostEfficientModelTypeLength = mostEfficientModelType.length();
-        float highestCompressionRatio = compressionRatio(mostEfficientModelType);
         if (Float.isNaN(highestCompressionRatio) || mostEfficientModelTypeLength == 0) {
             mostEfficientModelType = this.fallbackModelType;
             mostEfficientModelType.initialize(this.buffer);
@@ -280,7 +416,7 @@ public class SegmentGenerator {
 
         //A segment containing the model with the best compression ratio is constructed and emitted
         emitSegment(this.finalizedSegmentStream, mostEfficientModelType, new ArrayList<>(this.gaps));
-        this.buffer.subList(0, mostEfficientModelTypeLength).clear();
+        this.buffer.removeFirst(mostEfficientModelTypeLength);
 
         //If the number of data points in the buffer is less then the number of data points that has yet to be
         // emitted, then some of these data points have already been emitted as part of the finalized segment
@@ -294,7 +430,7 @@ public class SegmentGenerator {
 
         //If the time series have changed it might beneficial to split or join their groups
         boolean compressionRatioIsBelowAverage = checkIfCompressionRatioIsBelowAverageAndUpdateTheAverage(highestCompressionRatio);
-        if (!this.buffer.isEmpty() && this.buffer.get(0).length > 1 && compressionRatioIsBelowAverage) {
+        if (!this.buffer.isEmpty() && this.buffer.width() > 1 && compressionRatioIsBelowAverage) {
             splitGroupIfItsTimeSeriesAreNoLongerCorrelated();
         } else if (!this.splitSegmentGenerators.isEmpty() && this.emittedFinalizedSegments == this.finalizedSegmentsBeforeNextJoinCheck) {
             this.splitsToJoinIfCorrelated.add(this);
@@ -308,15 +444,15 @@ public class SegmentGenerator {
         if (modelTypeLength == 0) {
             return Float.NaN;
         }
-        long startTime = this.buffer.get(0)[0].timestamp;
-        long endTime = this.buffer.get(modelTypeLength - 1)[0].timestamp;
+        long startTime = this.buffer.getTimestamp(0);
+        long endTime = this.buffer.getTimestamp(modelTypeLength - 1);
         return modelType.compressionRatio(startTime, endTime, samplingInterval, this.buffer, this.gaps.size());
     }
 
     private void emitSegment(SegmentFunction stream, ModelType modelType, List<Integer> segmentGaps) {
         int modelTypeLength = modelType.length();
-        long startTime = this.buffer.get(0)[0].timestamp;
-        long endTime = this.buffer.get(modelTypeLength - 1)[0].timestamp;
+        long startTime = this.buffer.getTimestamp(0);
+        long endTime = this.buffer.getTimestamp(modelTypeLength - 1);
         int[] gaps = segmentGaps.stream().mapToInt(l -> l).toArray();
         byte[] model = modelType.getModel(startTime, endTime, samplingInterval, this.buffer);
         stream.emit(this.gid, startTime, endTime, modelType.mtid, model, Static.intToBytes(gaps));
@@ -331,9 +467,9 @@ public class SegmentGenerator {
 
     private void splitGroupIfItsTimeSeriesAreNoLongerCorrelated() {
         //If only a subset of the time series in it are currently correlated the group is temporarily split into multiple groups
-        DataPoint[] bufferHead = this.buffer.get(0);
         float doubleErrorBound = 2 * this.fallbackModelType.errorBound;
-        int lengthOfDataPointsInBuffer = bufferHead.length;
+        float doubleAbsoluteErrorBound = 2 * this.fallbackModelType.absoluteErrorBound;
+        int lengthOfDataPointsInBuffer = this.buffer.width();
         int[] tsTids = Arrays.stream(this.timeSeriesGroup.getTimeSeries()).mapToInt(ts -> ts.tid).toArray();
         Set<Integer> timeSeriesWithoutGaps = IntStream.range(0, lengthOfDataPointsInBuffer).boxed().collect(Collectors.toSet());
 
@@ -346,19 +482,18 @@ public class SegmentGenerator {
                 //Comparing a time series to itself should always return true
                 if (i == j) {
                     bufferSplitIndexes.add(i);
-                    timeSeriesSplitIndexes.add(Arrays.binarySearch(tsTids, bufferHead[i].tid));
+                    timeSeriesSplitIndexes.add(Arrays.binarySearch(tsTids, this.buffer.getTid(i)));
                     continue;
                 }
 
                 //The splitIfNotCorrelated method is only executed if the buffer contains data points
                 boolean allDataPointsWithinDoubleErrorBound = lastEmittedModelType.withinErrorBound(doubleErrorBound,
-                        this.buffer.stream().map(dps -> dps[i]).iterator(),
-                        this.buffer.stream().map(dps -> dps[j]).iterator());
+                        doubleAbsoluteErrorBound, this.buffer, i, this.buffer, j);
 
                 //Time series should be ingested together if all of their data point are within the double error bound
                 if (allDataPointsWithinDoubleErrorBound) {
                     bufferSplitIndexes.add(j);
-                    timeSeriesSplitIndexes.add(Arrays.binarySearch(tsTids, bufferHead[j].tid));
+                    timeSeriesSplitIndexes.add(Arrays.binarySearch(tsTids, this.buffer.getTid(j)));
                 }
             }
             //If the size of the split is the number of the time series not currently in a gap, no split is required
@@ -369,7 +504,7 @@ public class SegmentGenerator {
             //Only the time series that currently are not in a gap can be grouped together as they have data points buffered
             bufferSplitIndexes.forEach(timeSeriesWithoutGaps::remove);
             HashSet<Integer> gaps = new HashSet<>(this.tids);
-            bufferSplitIndexes.forEach(index -> gaps.remove(this.buffer.get(0)[index].tid));
+            bufferSplitIndexes.forEach(index -> gaps.remove(this.buffer.getTid(index)));
             int[] bufferSplitIndex = bufferSplitIndexes.stream().mapToInt(k -> k).toArray();
             int[] timeSeriesSplitIndex = timeSeriesSplitIndexes.stream().mapToInt(k -> k).toArray();
             splitSegmentGenerator(bufferSplitIndex, timeSeriesSplitIndex, gaps);
@@ -389,9 +524,10 @@ public class SegmentGenerator {
     private void splitSegmentGenerator(int[] bufferSplitIndex, int[] timeSeriesSplitIndex, Set<Integer> gaps) {
         TimeSeriesGroup tsg = new TimeSeriesGroup(this.timeSeriesGroup, timeSeriesSplitIndex);
         SegmentGenerator sg = new SegmentGenerator(tsg, this.modelTypeInitializer, this.fallbackModelType,
-                this.tids, this.maximumLatency, this.dynamicSplitFraction, this.temporarySegmentStream, this.finalizedSegmentStream);
-        sg.buffer = copyBuffer(this.buffer, bufferSplitIndex);
-        sg.gaps = gaps;
+                this.selectionPolicy, this.tids, this.maximumLatency, this.dynamicSplitFraction, this.parallelModelTypesThreshold,
+                this.modelTypePool, this.temporarySegmentStream, this.finalizedSegmentStream);
+        sg.setGaps(gaps);
+        copyBuffer(this.buffer, bufferSplitIndex, sg.buffer);
         sg.logger = this.logger;
         int i = 0;
         sg.previousTimeStamps = new long[timeSeriesSplitIndex.length];
@@ -416,29 +552,37 @@ public class SegmentGenerator {
         }
     }
 
-    private ArrayList<DataPoint[]> copyBuffer(ArrayList<DataPoint[]> buffer, int[] bufferSplitIndex) {
+    private void copyBuffer(DataPointBuffer buffer, int[] bufferSplitIndex, DataPointBuffer newBuffer) {
         //No data points are buffered for time series currently in a gap
         if (bufferSplitIndex.length == 0) {
-            return new ArrayList<>();
+            return;
         }
 
-        //Copies all data points for the split time series to the new buffer
-        ArrayList<DataPoint[]> newBuffer = new ArrayList<>(buffer.size());
-        for (DataPoint[] dps : buffer) {
-            DataPoint[] newDps = new DataPoint[bufferSplitIndex.length];
-            int j = 0;
-            for (int i : bufferSplitIndex) {
-                newDps[j] = new DataPoint(dps[i].tid, dps[i].timestamp, dps[i].value);
-                j++;
+        //Copies all data points for the split time series to the new buffer, the split time series are ordered as
+        // bufferSplitIndex so the index of a value in bufferSplitIndex is also the index of its time series in the split
+        int size = buffer.size();
+        float[] values = new float[bufferSplitIndex.length];
+        for (int row = 0; row < size; row++) {
+            for (int j = 0; j < bufferSplitIndex.length; j++) {
+                values[j] = buffer.getValue(row, bufferSplitIndex[j]);
             }
-            newBuffer.add(newDps);
+            newBuffer.append(buffer.getTimestamp(row), values);
+        }
+    }
+
+    private void setGaps(Set<Integer> gaps) {
+        //The buffer tracks the time series in a gap by their index in the group, so it is updated when gaps is replaced
+        this.gaps = gaps;
+        TimeSeries[] timeSeries = this.timeSeriesGroup.getTimeSeries();
+        for (int i = 0; i < timeSeries.length; i++) {
+            this.buffer.setGap(i, gaps.contains(timeSeries[i].tid));
         }
-        return newBuffer;
     }
 
     private void joinGroupsIfTheirTimeSeriesAreCorrelated() {
         //Assumes that time series which are not correlated would have been split of from the group, so only [0] is checked
         float doubleErrorBound = 2 * this.fallbackModelType.errorBound;
+        float doubleAbsoluteErrorBound = 2 * this.fallbackModelType.absoluteErrorBound;
         HashSet<SegmentGenerator> markedForJoining = new HashSet<>();
         ArrayList<SegmentGenerator> joined = new ArrayList<>();
         while (!this.splitsToJoinIfCorrelated.isEmpty()) {
@@ -465,11 +609,11 @@ public class SegmentGenerator {
                 int is = sgi.buffer.size();
                 int js = sgj.buffer.size();
                 boolean canBeJoined = is > 0 && js > 0 &&
-                        sgi.buffer.get(is - 1)[0].timestamp == sgj.buffer.get(js - 1)[0].timestamp;
+                        sgi.buffer.getTimestamp(is - 1) == sgj.buffer.getTimestamp(js - 1);
 
                 //The time series are joined if their data points with equal time stamps are within twice the error bound
-                canBeJoined &= lastEmittedModelType.withinErrorBound(doubleErrorBound,
-                        new ReverseBufferIterator(sgi.buffer, 0), new ReverseBufferIterator(sgj.buffer, 0));
+                canBeJoined &= lastEmittedModelType.withinErrorBound(doubleErrorBound, doubleAbsoluteErrorBound,
+                        sgi.buffer, 0, sgj.buffer, 0);
 
                 if (canBeJoined) {
                     int shortestBufferLength = Math.min(sgi.buffer.size(), sgj.buffer.size());
@@ -520,8 +664,9 @@ public class SegmentGenerator {
             nsg = this;
             this.timeSeriesGroup = tsg;
         } else {
-            nsg = new SegmentGenerator(tsg, this.modelTypeInitializer, this.fallbackModelType, this.tids,
-                    this.maximumLatency, this.dynamicSplitFraction, this.temporarySegmentStream, this.finalizedSegmentStream);
+            nsg = new SegmentGenerator(tsg, this.modelTypeInitializer, this.fallbackModelType, this.selectionPolicy, this.tids,
+                    this.maximumLatency, this.dynamicSplitFraction, this.parallelModelTypesThreshold,
+                    this.modelTypePool, this.temporarySegmentStream, this.finalizedSegmentStream);
             nsg.logger = this.logger;
             nsg.splitSegmentGenerators = this.splitSegmentGenerators;
             nsg.splitsToJoinIfCorrelated = this.splitsToJoinIfCorrelated;
@@ -529,27 +674,32 @@ public class SegmentGenerator {
         }
         this.splitSegmentGenerators.removeAll(sgs);
 
+        //The set of time series currently in a gap and controlled by nsg is computed before its buffer is filled
+        Set<Integer> gaps = new HashSet<>(this.tids);
+        Arrays.stream(activeJoinIndex).forEach(gaps::remove);
+        nsg.buffer = new DataPointBuffer(totalJoinIndex, this.fallbackModelType.lengthBound);
+        nsg.setGaps(gaps);
+
         //The overlapping data points are moved to nsg before the old SegmentGenerators are flushed
-        for (int next = 1; next <= shortestSharedBufferLength; next++) {
-            DataPoint[] result = new DataPoint[activeJoinIndex.length];
+        float[] values = new float[totalJoinIndex.length];
+        for (int next = shortestSharedBufferLength; next >= 1; next--) {
+            long timestamp = 0;
             for (SegmentGenerator sg : sgs) {
-                DataPoint[] dps = sg.buffer.get(sg.buffer.size() - next);
-                for (DataPoint dp : dps) {
-                    int write = Arrays.binarySearch(activeJoinIndex, dp.tid);
-                    result[write] = dp;
+                int row = sg.buffer.size() - next;
+                int width = sg.buffer.width();
+                for (int column = 0; column < width; column++) {
+                    int write = Arrays.binarySearch(totalJoinIndex, sg.buffer.getTid(column));
+                    values[write] = sg.buffer.getValue(row, column);
                 }
+                timestamp = sg.buffer.getTimestamp(row);
             }
-            nsg.buffer.add(result);
+            nsg.buffer.append(timestamp, values);
         }
-        Collections.reverse(nsg.buffer);
 
         //The remaining data points stored by each SegmentGenerator are flushed
         for (SegmentGenerator sg : sgs) {
-            int size = sg.buffer.size();
-            sg.buffer.subList(size - nsg.buffer.size(), size).clear();
-            sg.modelTypeIndex = 0;
-            sg.currentModelType = sg.modelTypes[0];
-            sg.currentModelType.initialize(sg.buffer);
+            sg.buffer.removeLast(nsg.buffer.size());
+            sg.resetModelTypeIndex();
             sg.flushBuffer();
             TimeSeries[] tss = sg.timeSeriesGroup.getTimeSeries();
             for (int i = 0; i < tss.length; i++) {
@@ -559,11 +709,6 @@ public class SegmentGenerator {
             }
         }
 
-        //Finally the set of time series currently in a gap and controlled by nsg is computed
-        Set<Integer> gaps = new HashSet<>(this.tids);
-        Arrays.stream(nsg.buffer.get(0)).forEach(dp -> gaps.remove(dp.tid));
-        nsg.gaps = gaps;
-
         //Initializes the first model with the content in the new combined buffer
         nsg.resetModelTypeIndex();
 
@@ -0,0 +1,119 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+//This class contains the selection policies included with ModelarDB and parses modelardb.selection_policy
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.models.ModelType;
+import dk.aau.modelardb.core.models.ModelTypeProvider;
+
+public class SelectionPolicies {
+
+    /**
+     * Public Methods
+     **/
+    public static SelectionPolicy parse(String selectionPolicy) {
+        String[] split = selectionPolicy.trim().split("\\s+");
+        switch (split[0]) {
+            case "compression_ratio":
+                if (split.length != 1) {
+                    throw new IllegalArgumentException("CORE: the compression_ratio selection policy has no parameters");
+                }
+                return new CompressionRatio();
+            case "weighted":
+                if (split.length != 4) {
+                    throw new IllegalArgumentException(
+                            "CORE: the weighted selection policy requires a size weight, decode weight, and aggregate fraction");
+                }
+                float[] parameters = new float[3];
+                for (int i = 0; i < parameters.length; i++) {
+                    try {
+                        parameters[i] = Float.parseFloat(split[i + 1]);
+                    } catch (NumberFormatException nfe) {
+                        throw new IllegalArgumentException("CORE: the parameters of the weighted selection policy must be floats");
+                    }
+                }
+                return new Weighted(parameters[0], parameters[1], parameters[2]);
+            default:
+                try {
+                    return (SelectionPolicy) Class.forName(split[0]).getDeclaredConstructor().newInstance();
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalArgumentException("CORE: selection policy \"" + split[0] + "\" could not be found in CLASSPATH", e);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("CORE: construction of selection policy \"" + split[0] + "\" is not possible", e);
+                }
+        }
+    }
+
+    /**
+     * Inner Classes
+     **/
+    public static class CompressionRatio implements SelectionPolicy {
+        @Override
+        public float score(ModelTypeProvider provider, ModelType modelType, float compressionRatio) {
+            return compressionRatio;
+        }
+
+        @Override
+        public String toString() {
+            return "compression_ratio";
+        }
+    }
+
+    public static class Weighted implements SelectionPolicy {
+
+        /**
+         * Instance Variables
+         **/
+        private final float sizeWeight;
+        private final float decodeWeight;
+        private final float aggregateFraction;
+
+        /**
+         * Constructors
+         **/
+        public Weighted(float sizeWeight, float decodeWeight, float aggregateFraction) {
+            if (sizeWeight < 0.0F || decodeWeight < 0.0F) {
+                throw new IllegalArgumentException("CORE: the weights of the weighted selection policy must be zero or positive");
+            }
+            if (aggregateFraction < 0.0F || 1.0F < aggregateFraction) {
+                throw new IllegalArgumentException("CORE: the aggregate fraction of the weighted selection policy must be from 0.0 to 1.0");
+            }
+            this.sizeWeight = sizeWeight;
+            this.decodeWeight = decodeWeight;
+            this.aggregateFraction = aggregateFraction;
+        }
+
+        /**
+         * Public Methods
+         **/
+        @Override
+        public float score(ModelTypeProvider provider, ModelType modelType, float compressionRatio) {
+            //The cost is the bytes stored per data point and the cost of decoding each data point when queried, except
+            // for the fraction of queries that compute aggregates if the model type computes them without decoding
+            float bytesPerDataPoint = 16.0F / compressionRatio;
+            float decodeCost = provider.getDecodeCostHint();
+            if (provider.supportsAggregatePushdown()) {
+                decodeCost *= 1.0F - this.aggregateFraction;
+            }
+            return -(this.sizeWeight * bytesPerDataPoint + this.decodeWeight * decodeCost);
+        }
+
+        @Override
+        public String toString() {
+            return "weighted " + this.sizeWeight + " " + this.decodeWeight + " " + this.aggregateFraction;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+//This interface is used by SegmentGenerator to select which of the model types that are fitted to the buffered data
+// points are used for the next finalized segment. User-defined policies can be used by providing the name of a class
+// implementing SelectionPolicy with a constructor without parameters as modelardb.selection_policy
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.models.ModelType;
+import dk.aau.modelardb.core.models.ModelTypeProvider;
+
+import java.io.Serializable;
+
+public interface SelectionPolicy extends Serializable {
+
+    //The model type with the highest score is selected, and a NaN compression ratio must produce a NaN score as it
+    // indicates that the model type could not represent the data points, so the fallback model type is used instead
+    float score(ModelTypeProvider provider, ModelType modelType, float compressionRatio);
+}
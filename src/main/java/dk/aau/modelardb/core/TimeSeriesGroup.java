@@ -15,17 +15,24 @@
 package dk.aau.modelardb.core;
 
 import dk.aau.modelardb.core.timeseries.AsyncTimeSeries;
+import dk.aau.modelardb.core.timeseries.BatchTimeSeries;
 import dk.aau.modelardb.core.timeseries.TimeSeries;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.channels.Selector;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 public class TimeSeriesGroup implements Serializable {
 
+    //The number of data points read at a time from each time series that is read in batches
+    private static final int BATCH_SIZE = 1024;
+
     /**
      * Instance Variables
      **/
@@ -33,10 +40,19 @@ public class TimeSeriesGroup implements Serializable {
     public final boolean isAsync;
     public final int samplingInterval;
     private final TimeSeries[] timeSeries;
-    private final DataPoint[] currentDataPoints;
-    private final DataPoint[] nextDataPoints;
+    private final float[] currentValues;
+    private final BitSet currentGaps;
+    private final long[] nextTimestamps;
+    private final float[] nextValues;
+    private final long[][] batchTimestamps;
+    private final float[][] batchValues;
+    private final int[] batchIndex;
+    private final int[] batchSize;
+    private final ReentrantLock openLock = new ReentrantLock();
+    private boolean opened;
     private int timeSeriesActive;
     private int timeSeriesHasNext;
+    private long current;
     private long next;
 
     /**
@@ -63,23 +79,39 @@ public class TimeSeriesGroup implements Serializable {
         //Initializes variables for holding the latest data point for each time series
         this.gid = gid;
         this.timeSeries = timeSeries;
-        this.nextDataPoints = new DataPoint[timeSeries.length];
-        this.currentDataPoints = new DataPoint[timeSeries.length];
+        this.nextTimestamps = new long[timeSeries.length];
+        this.nextValues = new float[timeSeries.length];
+        this.currentValues = new float[timeSeries.length];
+        this.currentGaps = new BitSet(timeSeries.length);
         this.next = Long.MAX_VALUE;
         this.timeSeriesHasNext = timeSeries.length;
+
+        //Time series read from columnar formats are read in batches that are allocated when the group is initialized
+        this.batchTimestamps = new long[timeSeries.length][];
+        this.batchValues = new float[timeSeries.length][];
+        this.batchIndex = new int[timeSeries.length];
+        this.batchSize = new int[timeSeries.length];
     }
 
     TimeSeriesGroup(TimeSeriesGroup tsg, int[] splitIndex) {
         this.gid = tsg.gid;
-        this.nextDataPoints = new DataPoint[splitIndex.length];
-        this.currentDataPoints = new DataPoint[splitIndex.length];
+        this.nextTimestamps = new long[splitIndex.length];
+        this.nextValues = new float[splitIndex.length];
+        this.batchTimestamps = new long[splitIndex.length][];
+        this.batchValues = new float[splitIndex.length][];
+        this.batchIndex = new int[splitIndex.length];
+        this.batchSize = new int[splitIndex.length];
+        this.currentValues = new float[splitIndex.length];
+        this.currentGaps = new BitSet(splitIndex.length);
         this.timeSeries = new TimeSeries[splitIndex.length];
         this.next = tsg.next;
 
         int j = 0;
         for (int i : splitIndex) {
-            this.timeSeriesHasNext += tsg.getTimeSeries()[i].hasNext() ? 1 : 0;
-            this.nextDataPoints[j] = tsg.nextDataPoints[i];
+            this.timeSeriesHasNext += tsg.hasNext(i) ? 1 : 0;
+            tsg.moveTo(i, this, j);
+            this.currentValues[j] = tsg.currentValues[i];
+            this.currentGaps.set(j, tsg.currentGaps.get(i));
             this.timeSeries[j] = tsg.timeSeries[i];
             j++;
         }
@@ -90,8 +122,14 @@ public class TimeSeriesGroup implements Serializable {
 
     TimeSeriesGroup(Set<TimeSeriesGroup> tsgs, int[] joinIndex) {
         this.gid = tsgs.iterator().next().gid;
-        this.nextDataPoints = new DataPoint[joinIndex.length];
-        this.currentDataPoints = new DataPoint[joinIndex.length];
+        this.nextTimestamps = new long[joinIndex.length];
+        this.nextValues = new float[joinIndex.length];
+        this.batchTimestamps = new long[joinIndex.length][];
+        this.batchValues = new float[joinIndex.length][];
+        this.batchIndex = new int[joinIndex.length];
+        this.batchSize = new int[joinIndex.length];
+        this.currentValues = new float[joinIndex.length];
+        this.currentGaps = new BitSet(joinIndex.length);
         this.timeSeries = new TimeSeries[joinIndex.length];
         this.next = Long.MAX_VALUE;
 
@@ -102,8 +140,9 @@ public class TimeSeriesGroup implements Serializable {
             for (int i = 0; i < tsg.timeSeries.length; i++) {
                 TimeSeries ts = tsg.timeSeries[i];
                 int index = Arrays.binarySearch(joinIndex, ts.tid);
-                this.nextDataPoints[index] = tsg.nextDataPoints[i];
-                this.currentDataPoints[index] = tsg.currentDataPoints[i];
+                tsg.moveTo(i, this, index);
+                this.currentValues[index] = tsg.currentValues[i];
+                this.currentGaps.set(index, tsg.currentGaps.get(i));
                 this.timeSeries[index] = tsg.timeSeries[i];
             }
             tsg.timeSeriesHasNext = 0;
@@ -116,21 +155,50 @@ public class TimeSeriesGroup implements Serializable {
      * Public Methods
      **/
     public void initialize() {
+        open(null);
         for (int i = 0; i < this.timeSeries.length; i++) {
             TimeSeries ts = this.timeSeries[i];
             ts.open();
+            if (ts instanceof BatchTimeSeries) {
+                this.batchTimestamps[i] = new long[BATCH_SIZE];
+                this.batchValues[i] = new float[BATCH_SIZE];
+            }
 
-            //Stores the first data point from each time series to track when a gap occurs
-            if (ts.hasNext()) {
-                this.nextDataPoints[i] = ts.next();
-                if (this.nextDataPoints[i] == null) {
-                    throw new IllegalArgumentException("CORE: unable to initialize " + this.timeSeries[i].source);
+            //Stores the first data point from each time series to track when a gap occurs, data points that have
+            // already been ingested before the time series was resumed are skipped
+            boolean initialized = false;
+            while (hasNext(i)) {
+                readNext(i);
+                if (this.nextTimestamps[i] > ts.getResumeTimestamp()) {
+                    this.next = Math.min(this.next, this.nextTimestamps[i]);
+                    initialized = true;
+                    break;
                 }
-                this.next = Math.min(this.next, this.nextDataPoints[i].timestamp);
+            }
+
+            //A time series without data points, e.g., as it has been ingested completely, is in a gap until the other
+            // time series have been ingested
+            if ( ! initialized) {
+                this.nextTimestamps[i] = Long.MAX_VALUE;
+                this.nextValues[i] = 0.0F;
+                this.timeSeriesHasNext--;
             }
         }
     }
 
+    void initialize(IngestionPipeline pipeline) {
+        //The data points are read from the sources by the parse stage of the pipeline so this thread only aligns them,
+        // unless the group is already read by the prefetcher so the data points are not buffered by two threads
+        open(timeSeries -> pipeline.parse(this.gid, timeSeries));
+        initialize();
+    }
+
+    void prefetch(Prefetcher prefetcher) {
+        //A group is read ahead at most once and never after it has been initialized, e.g., by a working set that stole
+        // it from the working set reading it ahead, as the time series are replaced in the array by the prefetcher
+        open(prefetcher::read);
+    }
+
     public void attachToSelector(Selector s, SegmentGenerator mg) throws IOException {
         for (TimeSeries ts : this.timeSeries) {
             if (ts instanceof AsyncTimeSeries) {
@@ -167,29 +235,52 @@ public class TimeSeriesGroup implements Serializable {
         return this.timeSeriesHasNext != 0;
     }
 
-    public DataPoint[] next() {
-        //Prepares the data points for the next SI
-        this.timeSeriesActive = 0;
+    public void next() {
+        //Prepares the values for the next SI, the values are written to the same array for each SI so no data points
+        // are allocated, and a bit is set for each time series without a value as the values are never set to NaN
         this.timeSeriesActive = this.timeSeries.length;
         for (int i = 0; i < this.timeSeries.length; i++) {
             TimeSeries ts = this.timeSeries[i];
 
-            if (this.nextDataPoints[i].timestamp == this.next) {
-                //No gap have occurred so this data point can be emitted in this iteration
-                currentDataPoints[i] = this.nextDataPoints[i];
-                if (ts.hasNext()) {
-                    this.nextDataPoints[i] = ts.next();
+            if (this.nextTimestamps[i] == this.next) {
+                //No gap have occurred so this data point can be emitted in this iteration, unless its value is NaN,
+                // e.g., an empty cell in a wide CSV file, which is a gap just like a missing data point
+                this.currentValues[i] = this.nextValues[i];
+                if (Float.isNaN(this.nextValues[i])) {
+                    this.currentGaps.set(i);
+                    this.timeSeriesActive--;
+                } else {
+                    this.currentGaps.clear(i);
+                }
+                if (hasNext(i)) {
+                    readNext(i);
                 } else {
                     this.timeSeriesHasNext--;
                 }
             } else {
                 //A gap have occurred so this data point cannot be not emitted in this iteration
-                currentDataPoints[i] = new DataPoint(ts.tid, this.next, Float.NaN);
+                this.currentGaps.set(i);
                 this.timeSeriesActive--;
             }
         }
+        this.current = this.next;
         this.next += this.samplingInterval;
-        return this.currentDataPoints;
+    }
+
+    public long getTimestamp() {
+        return this.current;
+    }
+
+    public float getValue(int index) {
+        return this.currentValues[index];
+    }
+
+    public boolean isGap(int index) {
+        return this.currentGaps.get(index);
+    }
+
+    public BitSet getGaps() {
+        return this.currentGaps;
     }
 
     public int getActiveTimeSeries() {
@@ -201,4 +292,57 @@ public class TimeSeriesGroup implements Serializable {
             ts.close();
         }
     }
+
+    /**
+     * Private Methods
+     **/
+    private void open(Consumer<TimeSeries[]> reader) {
+        //Only the flag and the replacement of the time series are guarded, which never block as the readers are started
+        // on other threads, so a group being initialized never blocks a working set prefetching it while it is opened
+        this.openLock.lock();
+        try {
+            if ( ! this.opened && reader != null) {
+                reader.accept(this.timeSeries);
+            }
+            this.opened = true;
+        } finally {
+            this.openLock.unlock();
+        }
+    }
+
+    private boolean hasNext(int index) {
+        return this.batchIndex[index] < this.batchSize[index] || this.timeSeries[index].hasNext();
+    }
+
+    private void readNext(int index) {
+        //Time series read in batches are read from the batch so no data point is allocated for each row
+        if (this.batchTimestamps[index] != null) {
+            if (this.batchIndex[index] == this.batchSize[index]) {
+                this.batchSize[index] = ((BatchTimeSeries) this.timeSeries[index]).nextBatch(
+                        this.batchTimestamps[index], this.batchValues[index]);
+                this.batchIndex[index] = 0;
+            }
+            this.nextTimestamps[index] = this.batchTimestamps[index][this.batchIndex[index]];
+            this.nextValues[index] = this.batchValues[index][this.batchIndex[index]];
+            this.batchIndex[index]++;
+            return;
+        }
+
+        DataPoint dataPoint = this.timeSeries[index].next();
+        if (dataPoint == null) {
+            throw new IllegalArgumentException("CORE: unable to initialize " + this.timeSeries[index].source);
+        }
+        this.nextTimestamps[index] = dataPoint.timestamp;
+        this.nextValues[index] = dataPoint.value;
+    }
+
+    private void moveTo(int index, TimeSeriesGroup tsg, int tsgIndex) {
+        //The next data point and the remaining batch are moved with the time series when a group is split or joined
+        tsg.nextTimestamps[tsgIndex] = this.nextTimestamps[index];
+        tsg.nextValues[tsgIndex] = this.nextValues[index];
+        tsg.batchTimestamps[tsgIndex] = this.batchTimestamps[index];
+        tsg.batchValues[tsgIndex] = this.batchValues[index];
+        tsg.batchIndex[tsgIndex] = this.batchIndex[index];
+        tsg.batchSize[tsgIndex] = this.batchSize[index];
+    }
 }
@@ -0,0 +1,98 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core;
+
+import dk.aau.modelardb.core.utility.Pair;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+//The scheduler assigns the bounded groups of working sets ingested in the same JVM dynamically, as the cost of a
+// group depends on how hard it is to compress and on dynamic splits and not only on its rate. Each working set takes
+// its own groups from the front of its deque and, when it has none left, steals groups from the back of the deques of
+// the other working sets, so all ingestors stay busy until every bounded group has been ingested. Working sets that
+// own unbounded groups never steal, so they start ingesting their unbounded groups after their own bounded groups
+class WorkStealingScheduler {
+
+    /**
+     * Instance Variables
+     **/
+    private final WorkingSet[] workingSets;
+    private final List<ConcurrentLinkedDeque<Integer>> deques;
+    private final boolean[] thieves;
+
+    /**
+     * Constructors
+     **/
+    WorkStealingScheduler(WorkingSet[] workingSets) {
+        this.workingSets = workingSets;
+        this.deques = new ArrayList<>(workingSets.length);
+        this.thieves = new boolean[workingSets.length];
+        for (int owner = 0; owner < workingSets.length; owner++) {
+            ConcurrentLinkedDeque<Integer> deque = new ConcurrentLinkedDeque<>();
+            for (int index : workingSets[owner].getBoundedTimeSeriesGroupIndices()) {
+                deque.addLast(index);
+            }
+            this.deques.add(deque);
+            this.thieves[owner] = !workingSets[owner].hasUnboundedTimeSeriesGroups();
+            workingSets[owner].setScheduler(this, owner);
+        }
+    }
+
+    /**
+     * Package-Private Methods
+     **/
+    Pair<WorkingSet, Integer> next(int owner) {
+        Integer index = this.deques.get(owner).pollFirst();
+        if (index != null) {
+            return new Pair<>(this.workingSets[owner], index);
+        }
+        if (!this.thieves[owner]) {
+            return null;
+        }
+
+        //The other working sets are visited in order starting after the owner so thieves spread over the victims
+        for (int offset = 1; offset < this.workingSets.length; offset++) {
+            int victim = (owner + offset) % this.workingSets.length;
+            index = this.deques.get(victim).pollLast();
+            if (index != null) {
+                return new Pair<>(this.workingSets[victim], index);
+            }
+        }
+        return null;
+    }
+
+    List<Integer> peek(int owner, int count) {
+        //The groups the owner will take next are returned without taking them, although they might be stolen later
+        List<Integer> next = new ArrayList<>(count);
+        Iterator<Integer> iterator = this.deques.get(owner).iterator();
+        while (next.size() < count && iterator.hasNext()) {
+            next.add(iterator.next());
+        }
+        return next;
+    }
+
+    List<Integer> drain(int owner) {
+        //The groups that have not been taken when ingestion is terminated are returned so they can be closed
+        List<Integer> remaining = new ArrayList<>();
+        Integer index;
+        while ((index = this.deques.get(owner).pollFirst()) != null) {
+            remaining.add(index);
+        }
+        return remaining;
+    }
+}
@@ -17,18 +17,29 @@ package dk.aau.modelardb.core;
 import dk.aau.modelardb.core.models.ModelType;
 import dk.aau.modelardb.core.models.ModelTypeFactory;
 import dk.aau.modelardb.core.utility.Logger;
+import dk.aau.modelardb.core.utility.Pair;
 import dk.aau.modelardb.core.utility.SegmentFunction;
+import dk.aau.modelardb.core.utility.Static;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class WorkingSet implements Serializable {
 
@@ -36,11 +47,17 @@ public class WorkingSet implements Serializable {
     public final Logger logger = new Logger();
     private final TimeSeriesGroup[] timeSeriesGroups;
     private final float dynamicSplitFraction;
-    private final String[] modelTypeNames;
-    private final int[] mtids;
+    private final String[][] modelTypeNames;
+    private final int[][] mtids;
     private final float errorBound;
+    private final float[] absoluteErrorBounds;
+    private final SelectionPolicy selectionPolicy;
     private final int lengthBound;
     private final int maximumLatency;
+    private final int parallelModelTypesThreshold;
+    private final int pipelineCapacity;
+    private final int prefetchDepth;
+    private final boolean virtualThreads;
     /**
      * Instance Variables
      **/
@@ -48,19 +65,34 @@ public class WorkingSet implements Serializable {
     private SegmentFunction consumeTemporarySegment;
     private SegmentFunction consumeFinalizedSegment;
     private BooleanSupplier haveExecutionBeenTerminated;
+    private transient IngestionPipeline pipeline;
+    private transient Prefetcher prefetcher;
+    private transient ForkJoinPool modelTypePool;
+    private transient Supplier<ExecutorService> unboundedExecutor;
+    //The scheduler is not serialized so working sets sent to other JVMs, e.g., Spark receivers, only ingest their own groups
+    private transient WorkStealingScheduler scheduler;
+    private transient int schedulerIndex;
     /**
      * Constructors
      **/
-    public WorkingSet(TimeSeriesGroup[] timeSeriesGroups, float dynamicSplitFraction, String[] models,
-                      int[] mtids, float errorBound, int lengthBound, int latency) {
+    public WorkingSet(TimeSeriesGroup[] timeSeriesGroups, float dynamicSplitFraction, String[][] models,
+                      int[][] mtids, float errorBound, float[] absoluteErrorBounds, SelectionPolicy selectionPolicy,
+                      int lengthBound, int latency, int parallelModelTypesThreshold, int pipelineCapacity,
+                      int prefetchDepth, boolean virtualThreads) {
         this.timeSeriesGroups = timeSeriesGroups;
         this.dynamicSplitFraction = (dynamicSplitFraction > 0.0F) ? dynamicSplitFraction : 0.0F;
         this.currentTimeSeriesGroup = 0;
         this.modelTypeNames = models;
         this.mtids = mtids;
         this.errorBound = errorBound;
+        this.absoluteErrorBounds = absoluteErrorBounds;
+        this.selectionPolicy = selectionPolicy;
         this.maximumLatency = latency;
         this.lengthBound = lengthBound;
+        this.parallelModelTypesThreshold = parallelModelTypesThreshold;
+        this.pipelineCapacity = pipelineCapacity;
+        this.prefetchDepth = prefetchDepth;
+        this.virtualThreads = virtualThreads;
     }
 
     public static String toString(WorkingSet[] workingSets) {
@@ -86,19 +118,21 @@ public class WorkingSet implements Serializable {
      **/
     public void process(SegmentFunction consumeTemporarySegment, SegmentFunction consumeFinalizedSegment,
                         BooleanSupplier haveExecutionBeenTerminated) throws IOException {
-        //DEBUG: initializes the timer stored in the logger
-        this.logger.getTimeSpan();
-        this.consumeTemporarySegment = consumeTemporarySegment;
-        this.consumeFinalizedSegment = consumeFinalizedSegment;
-        this.haveExecutionBeenTerminated = haveExecutionBeenTerminated;
+        process(consumeTemporarySegment, consumeFinalizedSegment, haveExecutionBeenTerminated,
+                this.virtualThreads ? Static::newVirtualThreadPerTaskExecutor : null);
+    }
 
-        processBounded();
-        processUnbounded();
+    public IngestionPipeline getIngestionPipeline() {
+        return this.pipeline;
+    }
 
-        //Ensures all resources are closed
-        for (TimeSeriesGroup tsg : this.timeSeriesGroups) {
-            tsg.close();
-        }
+    public Prefetcher getPrefetcher() {
+        return this.prefetcher;
+    }
+
+    public static void shareBoundedTimeSeriesGroups(WorkingSet[] workingSets) {
+        //The working sets must be ingested in this JVM for the bounded groups to be scheduled across them
+        new WorkStealingScheduler(workingSets);
     }
 
     public String toString() {
@@ -112,16 +146,106 @@ public class WorkingSet implements Serializable {
         return headerFooter + "\n" + body + "\n" + headerFooter;
     }
 
+    /**
+     * Package-Private Methods
+     **/
+    void process(SegmentFunction consumeTemporarySegment, SegmentFunction consumeFinalizedSegment,
+                 BooleanSupplier haveExecutionBeenTerminated, Supplier<ExecutorService> unboundedExecutor) throws IOException {
+        //DEBUG: initializes the timer stored in the logger
+        this.logger.getTimeSpan();
+        this.consumeTemporarySegment = consumeTemporarySegment;
+        this.consumeFinalizedSegment = consumeFinalizedSegment;
+        this.haveExecutionBeenTerminated = haveExecutionBeenTerminated;
+
+        //The unbounded groups are ingested by a thread per group if an executor is given, which is a virtual thread
+        // per group unless the working set is processed by the tests on a JDK without virtual threads
+        this.unboundedExecutor = unboundedExecutor;
+
+        //The segments are emitted by a separate stage if the ingestion pipeline is enabled
+        if (this.pipelineCapacity > 0) {
+            this.pipeline = new IngestionPipeline(this.pipelineCapacity);
+            this.consumeTemporarySegment = this.pipeline.emitTo(consumeTemporarySegment);
+            this.consumeFinalizedSegment = this.pipeline.emitTo(consumeFinalizedSegment);
+        }
+
+        //The model types of wide groups are fitted by a pool owned by this working set so ingestors do not share a pool
+        if (this.parallelModelTypesThreshold > 0) {
+            this.modelTypePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+
+        //The sources of the next bounded groups are read ahead by a pool of threads if the prefetcher is enabled
+        if (this.prefetchDepth > 0) {
+            this.prefetcher = new Prefetcher(this.prefetchDepth);
+        }
+
+        try {
+            processBounded();
+            processUnbounded();
+        } finally {
+            //Ensures all resources are closed and all segments are emitted, bounded groups taken by other working sets
+            // are closed by them when they are ingested
+            if (this.scheduler == null) {
+                for (TimeSeriesGroup tsg : this.timeSeriesGroups) {
+                    tsg.close();
+                }
+            } else {
+                for (int index : this.scheduler.drain(this.schedulerIndex)) {
+                    this.timeSeriesGroups[index].close();
+                }
+                for (int index = getBoundedTimeSeriesGroupIndices().length; index < this.timeSeriesGroups.length; index++) {
+                    this.timeSeriesGroups[index].close();
+                }
+            }
+            if (this.modelTypePool != null) {
+                this.modelTypePool.shutdown();
+            }
+            if (this.prefetcher != null) {
+                this.prefetcher.close();
+                Static.info("CORE: " + this.prefetcher);
+            }
+            if (this.pipeline != null) {
+                this.pipeline.close();
+                Static.info("CORE: " + this.pipeline);
+            }
+        }
+    }
+
+    int[] getBoundedTimeSeriesGroupIndices() {
+        //Only the bounded groups before the first unbounded group are ingested as bounded groups
+        int index = 0;
+        while (index < this.timeSeriesGroups.length && !this.timeSeriesGroups[index].isAsync) {
+            index++;
+        }
+        return IntStream.range(0, index).toArray();
+    }
+
+    boolean hasUnboundedTimeSeriesGroups() {
+        return getBoundedTimeSeriesGroupIndices().length < this.timeSeriesGroups.length;
+    }
+
+    void setScheduler(WorkStealingScheduler scheduler, int schedulerIndex) {
+        this.scheduler = scheduler;
+        this.schedulerIndex = schedulerIndex;
+    }
+
     /**
      * Private Methods
      **/
     private void processBounded() {
+        if (this.scheduler != null) {
+            processScheduled();
+            return;
+        }
+
         while (this.currentTimeSeriesGroup < this.timeSeriesGroups.length &&
                 !this.timeSeriesGroups[this.currentTimeSeriesGroup].isAsync) {
             //Checks if the engine currently ingesting from this working set has been terminated
             if (this.haveExecutionBeenTerminated.getAsBoolean()) {
                 return;
             }
+            //The group that is ingested is read first, followed by the groups that are ingested after it
+            prefetch(this, IntStream.rangeClosed(this.currentTimeSeriesGroup,
+                    this.currentTimeSeriesGroup + this.prefetchDepth).boxed().collect(Collectors.toList()));
             SegmentGenerator sg = getNextSegmentGenerator();
             sg.consumeAllDataPoints();
             sg.close();
@@ -130,11 +254,36 @@ public class WorkingSet implements Serializable {
         }
     }
 
+    private void processScheduled() {
+        //The unit of work is a segment generator for one group, which uses the model types of the working set that
+        // owns the group, while the segments are emitted by this working set
+        Pair<WorkingSet, Integer> next;
+        while (!this.haveExecutionBeenTerminated.getAsBoolean() && (next = this.scheduler.next(this.schedulerIndex)) != null) {
+            if (next._1 == this) {
+                this.currentTimeSeriesGroup = next._2;
+            }
+            //The group that is ingested is read first, followed by the groups this working set will take next
+            prefetch(next._1, Collections.singletonList(next._2));
+            prefetch(this, this.scheduler.peek(this.schedulerIndex, this.prefetchDepth));
+            SegmentGenerator sg = newSegmentGenerator(next._1, next._2);
+            sg.consumeAllDataPoints();
+            sg.close();
+            sg.logger.printGeneratorResult(sg.getTimeSeriesGroup());
+            this.logger.add(sg.logger);
+        }
+        this.currentTimeSeriesGroup = getBoundedTimeSeriesGroupIndices().length;
+    }
+
     private void processUnbounded() throws IOException {
         //There is no work to do if no unbounded time series were in the configuration file or if the engine is terminated
         if (this.currentTimeSeriesGroup == this.timeSeriesGroups.length || this.haveExecutionBeenTerminated.getAsBoolean()) {
             return;
         }
+
+        if (this.unboundedExecutor != null) {
+            processUnboundedOnThreadPerGroup(this.unboundedExecutor.get());
+            return;
+        }
         Selector selector = Selector.open();
         int unboundedChannelsRegistered = 0;
 
@@ -188,18 +337,113 @@ public class WorkingSet implements Serializable {
         }
     }
 
+    private void processUnboundedOnThreadPerGroup(ExecutorService executor) throws IOException {
+        //Each unbounded group is ingested by its own thread using blocking reads, so a group that is slow to send or fit
+        // data points only delays its own segments, while the SegmentFunctions and the logger are used under a lock as
+        // they expect to be used by the single thread ingesting the working set
+        ReentrantLock lock = new ReentrantLock();
+        this.consumeTemporarySegment = lockedBy(lock, this.consumeTemporarySegment);
+        this.consumeFinalizedSegment = lockedBy(lock, this.consumeFinalizedSegment);
+        ExecutorCompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        int running = 0;
+        while (this.currentTimeSeriesGroup < this.timeSeriesGroups.length) {
+            int index = this.currentTimeSeriesGroup++;
+            completionService.submit(() -> {
+                //The group is initialized by its own thread as connecting and reading the first data points blocks
+                SegmentGenerator sg = newSegmentGenerator(this, index);
+                sg.consumeAllDataPoints();
+                sg.close();
+                lock.lock();
+                try {
+                    sg.logger.printGeneratorResult(sg.getTimeSeriesGroup());
+                    this.logger.add(sg.logger);
+                } finally {
+                    lock.unlock();
+                }
+                return null;
+            });
+            running++;
+        }
+        executor.shutdown();
+
+        //The groups are checked as they complete so a group that fails is reported while the other groups are still
+        // ingested, and the threads are interrupted if a group fails or the engine currently ingesting from this working
+        // set is terminated, which closes the channels they are blocked on so they terminate before the groups are closed
+        try {
+            while (running > 0) {
+                Future<Void> completed = completionService.poll(100, TimeUnit.MILLISECONDS);
+                if (completed != null) {
+                    running--;
+                    completed.get();
+                } else if (this.haveExecutionBeenTerminated.getAsBoolean()) {
+                    stopThreadPerGroup(executor);
+                    return;
+                }
+            }
+        } catch (InterruptedException ie) {
+            stopThreadPerGroup(executor);
+            Thread.currentThread().interrupt();
+            throw new IOException("CORE: interrupted while ingesting the unbounded groups", ie);
+        } catch (ExecutionException ee) {
+            stopThreadPerGroup(executor);
+            throw new IOException("CORE: unable to ingest an unbounded group", ee.getCause());
+        }
+    }
+
+    private void stopThreadPerGroup(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SegmentFunction lockedBy(ReentrantLock lock, SegmentFunction segmentFunction) {
+        return (gid, startTime, endTime, mtid, model, gaps) -> {
+            lock.lock();
+            try {
+                segmentFunction.emit(gid, startTime, endTime, mtid, model, gaps);
+            } finally {
+                lock.unlock();
+            }
+        };
+    }
+
+    private void prefetch(WorkingSet owner, List<Integer> indices) {
+        if (this.prefetcher == null) {
+            return;
+        }
+        for (int index : indices) {
+            if (index < owner.timeSeriesGroups.length && !owner.timeSeriesGroups[index].isAsync) {
+                owner.timeSeriesGroups[index].prefetch(this.prefetcher);
+            }
+        }
+    }
+
     private SegmentGenerator getNextSegmentGenerator() {
-        int index = this.currentTimeSeriesGroup++;
-        TimeSeriesGroup tsg = this.timeSeriesGroups[index];
-        tsg.initialize();
+        return newSegmentGenerator(this, this.currentTimeSeriesGroup++);
+    }
+
+    private SegmentGenerator newSegmentGenerator(WorkingSet owner, int index) {
+        TimeSeriesGroup tsg = owner.timeSeriesGroups[index];
+        if (this.pipeline != null && !tsg.isAsync) {
+            tsg.initialize(this.pipeline);
+        } else {
+            tsg.initialize();
+        }
+        //The model types and absolute error bound are selected per group by the configuration file
+        float absoluteErrorBound = owner.absoluteErrorBounds[index];
         Supplier<ModelType[]> modelTypeInitializer = () -> ModelTypeFactory.getModelTypes(
-                this.modelTypeNames, this.mtids, this.errorBound, this.lengthBound);
-        ModelType fallbackModelType = ModelTypeFactory.getFallbackModelType(this.errorBound, this.lengthBound);
+                owner.modelTypeNames[index], owner.mtids[index], owner.errorBound, absoluteErrorBound, owner.lengthBound);
+        ModelType fallbackModelType = ModelTypeFactory.getFallbackModelType(
+                owner.errorBound, absoluteErrorBound, owner.lengthBound);
         List<Integer> tids = null;
-        if (this.dynamicSplitFraction != 0.0F) {
+        if (owner.dynamicSplitFraction != 0.0F) {
             tids = Arrays.stream(tsg.getTimeSeries()).map(ts -> ts.tid).collect(Collectors.toList());
         }
-        return new SegmentGenerator(tsg, modelTypeInitializer, fallbackModelType, tids, this.maximumLatency,
-                this.dynamicSplitFraction, this.consumeTemporarySegment, this.consumeFinalizedSegment);
+        return new SegmentGenerator(tsg, modelTypeInitializer, fallbackModelType, owner.selectionPolicy, tids,
+                owner.maximumLatency, owner.dynamicSplitFraction, owner.parallelModelTypesThreshold, this.modelTypePool,
+                this.consumeTemporarySegment, this.consumeFinalizedSegment);
     }
 }
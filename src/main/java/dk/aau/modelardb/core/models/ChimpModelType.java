@@ -0,0 +1,302 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models;
+
+import dk.aau.modelardb.core.utility.BitBuffer;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
+
+import java.util.Arrays;
+
+//The implementation of this model type is based on Chimp128 as described by Liakos et al. in "Chimp: Efficient Lossless
+// Floating Point Compression for Time Series Databases" but adapted to 32-bit floats. Each value is XORed with the
+// previous value or, if it produces more trailing zeros, with one of the previous values that ends with the same bits
+class ChimpModelType extends ModelType {
+
+    /**
+     * Instance Variables
+     **/
+    //The number of previous values that can be referenced, the threshold for using them, and the bits used to find them
+    static final int PREVIOUS_VALUES = 64;
+    static final int INDEX_BITS = 6;
+    static final int THRESHOLD = 5 + INDEX_BITS;
+    static final int KEY_MASK = (1 << (THRESHOLD + 1)) - 1;
+
+    //The number of leading zeros are rounded down to one of eight values, so they can be stored using three bits
+    static final int[] LEADING_ZEROS = {0, 4, 6, 8, 10, 12, 14, 16};
+    private static final int[] LEADING_ROUND = new int[Integer.SIZE + 1];
+    private static final int[] LEADING_REPRESENTATION = new int[Integer.SIZE + 1];
+
+    static {
+        for (int leadingZeros = 0, code = 0; leadingZeros <= Integer.SIZE; leadingZeros++) {
+            if (code + 1 < LEADING_ZEROS.length && LEADING_ZEROS[code + 1] <= leadingZeros) {
+                code++;
+            }
+            LEADING_ROUND[leadingZeros] = LEADING_ZEROS[code];
+            LEADING_REPRESENTATION[leadingZeros] = code;
+        }
+    }
+
+    private BitBuffer compressed;
+    private int currentSize;
+    private final int[] storedValues;
+    private final int[] indices;
+    private int firstIndex;
+    private int currentIndex;
+    private int storedLeadingZeros;
+
+    /**
+     * Constructors
+     **/
+    ChimpModelType(int mtid, float errorBound, int lengthBound) {
+        super(mtid, errorBound, lengthBound);
+        this.storedValues = new int[PREVIOUS_VALUES];
+        this.indices = new int[KEY_MASK + 1];
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public boolean append(DataPointBuffer currentSegment, int row) {
+        if (this.currentSize == this.lengthBound) {
+            return false;
+        }
+
+        float[] values = currentSegment.getValues();
+        int from = currentSegment.getOffset(row);
+        int to = from + currentSegment.width();
+        if (this.currentSize == 0) {
+            int value = Float.floatToIntBits(values[from]);
+            this.compressed.writeBits(value, Integer.SIZE);
+            this.storedValues[0] = value;
+            this.indices[value & KEY_MASK] = this.firstIndex;
+            from++;
+        }
+        for (int index = from; index < to; index++) {
+            compress(Float.floatToIntBits(values[index]));
+        }
+        this.currentSize += 1;
+        return true;
+    }
+
+    @Override
+    public void initialize(DataPointBuffer currentSegment) {
+        this.currentSize = 0;
+        this.compressed = new BitBuffer(4 * this.lengthBound);
+        //The indices are not cleared for each segment as the values from previous segments are skipped by starting
+        // the segment from a larger index, which is a multiple of PREVIOUS_VALUES so it maps to the first stored value
+        this.firstIndex = (this.currentIndex + PREVIOUS_VALUES) & -PREVIOUS_VALUES;
+        if (this.firstIndex > Integer.MAX_VALUE / 2) {
+            Arrays.fill(this.indices, 0);
+            this.firstIndex = PREVIOUS_VALUES;
+        }
+        this.currentIndex = this.firstIndex;
+        this.storedLeadingZeros = Integer.SIZE + 1;
+
+        int rows = currentSegment.size();
+        for (int row = 0; row < rows; row++) {
+            this.append(currentSegment, row);
+        }
+    }
+
+    @Override
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer currentSegment) {
+        return this.compressed.array();
+    }
+
+    @Override
+    public Segment get(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
+        return new ChimpSegment(tid, startTime, endTime, samplingInterval, model, offsets);
+    }
+
+    @Override
+    public int length() {
+        return this.currentSize;
+    }
+
+    @Override
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        if (this.currentSize == 0) {
+            return Float.NaN;
+        } else {
+            return this.compressed.size();
+        }
+    }
+
+    /**
+     * Private Methods
+     **/
+    private void compress(int value) {
+        //A previous value is only used if it is still stored and the XOR has more trailing zeros than the threshold
+        int key = value & KEY_MASK;
+        int candidateIndex = this.indices[key];
+        int previousIndex = this.currentIndex & (PREVIOUS_VALUES - 1);
+        int xor = this.storedValues[previousIndex] ^ value;
+        int trailingZeros = 0;
+        if (this.firstIndex <= candidateIndex && this.currentIndex - candidateIndex < PREVIOUS_VALUES) {
+            int candidateXor = this.storedValues[candidateIndex & (PREVIOUS_VALUES - 1)] ^ value;
+            int candidateTrailingZeros = Integer.numberOfTrailingZeros(candidateXor);
+            if (candidateTrailingZeros > THRESHOLD) {
+                previousIndex = candidateIndex & (PREVIOUS_VALUES - 1);
+                xor = candidateXor;
+                trailingZeros = candidateTrailingZeros;
+            }
+        }
+
+        if (xor == 0) {
+            //Flag 00: the value is identical to a previous value
+            this.compressed.writeBits(previousIndex, 2 + INDEX_BITS);
+            this.storedLeadingZeros = Integer.SIZE + 1;
+        } else {
+            int leadingZeros = LEADING_ROUND[Integer.numberOfLeadingZeros(xor)];
+            if (trailingZeros > THRESHOLD) {
+                //Flag 01: the value only differs from a previous value in a few bits in the middle
+                int significantBits = Integer.SIZE - leadingZeros - trailingZeros;
+                this.compressed.writeBits(((PREVIOUS_VALUES + previousIndex) << 8)
+                        | (LEADING_REPRESENTATION[leadingZeros] << 5) | significantBits, 2 + INDEX_BITS + 3 + 5);
+                this.compressed.writeBits(xor >>> trailingZeros, significantBits);
+                this.storedLeadingZeros = Integer.SIZE + 1;
+            } else if (leadingZeros == this.storedLeadingZeros) {
+                //Flag 10: the value differs from the previous value with the same number of leading zeros as before
+                this.compressed.writeBits(2, 2);
+                this.compressed.writeBits(xor, Integer.SIZE - leadingZeros);
+            } else {
+                //Flag 11: the value differs from the previous value with a new number of leading zeros
+                this.storedLeadingZeros = leadingZeros;
+                this.compressed.writeBits(24 + LEADING_REPRESENTATION[leadingZeros], 5);
+                this.compressed.writeBits(xor, Integer.SIZE - leadingZeros);
+            }
+        }
+
+        this.currentIndex++;
+        this.storedValues[this.currentIndex & (PREVIOUS_VALUES - 1)] = value;
+        this.indices[key] = this.currentIndex;
+    }
+}
+
+
+class ChimpSegment extends Segment {
+
+    /**
+     * Instance Variables
+     **/
+    //The values are decompressed by a cursor when they are needed like for FacebookGorillaSegment
+    private final byte[] model;
+    private BitBuffer bitBuffer;
+    private int[] storedValues;
+    private int nextIndex;
+    private int lastVal;
+    private int storedLeadingZeros;
+
+    /**
+     * Constructors
+     **/
+    ChimpSegment(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
+        super(tid, startTime, endTime, samplingInterval, offsets);
+        this.model = model;
+        this.nextIndex = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public float min() {
+        float min = Float.MAX_VALUE;
+        int inc = getGroupSize();
+        int init = inc * getTemporalOffset() + getGroupOffset();
+        int length = init + inc * this.length();
+        for (int index = init; index < length; index += inc) {
+            min = Float.min(min, decompressTo(index));
+        }
+        return min;
+    }
+
+    @Override
+    public float max() {
+        float max = -Float.MAX_VALUE;
+        int inc = getGroupSize();
+        int init = inc * getTemporalOffset() + getGroupOffset();
+        int length = init + inc * this.length();
+        for (int index = init; index < length; index += inc) {
+            max = Float.max(max, decompressTo(index));
+        }
+        return max;
+    }
+
+    @Override
+    public double sum() {
+        double acc = 0;
+        int inc = getGroupSize();
+        int init = inc * getTemporalOffset() + getGroupOffset();
+        int length = init + inc * this.length();
+        for (int index = init; index < length; index += inc) {
+            acc += decompressTo(index);
+        }
+        return acc;
+    }
+
+    /**
+     * Protected Methods
+     **/
+    @Override
+    protected float get(long timestamp, int index) {
+        return decompressTo(index);
+    }
+
+    /**
+     * Private Methods
+     **/
+    private float decompressTo(int index) {
+        //The values are stored as the difference from previous values so the cursor can only move forward
+        if (index < this.nextIndex - 1) {
+            this.bitBuffer = new BitBuffer(this.model);
+            this.storedValues = new int[ChimpModelType.PREVIOUS_VALUES];
+            this.storedLeadingZeros = Integer.SIZE + 1;
+            this.lastVal = (int) this.bitBuffer.readBits(Integer.SIZE);
+            this.storedValues[0] = this.lastVal;
+            this.nextIndex = 1;
+        }
+
+        BitBuffer bitBuffer = this.bitBuffer;
+        int[] storedValues = this.storedValues;
+        while (this.nextIndex <= index) {
+            int value;
+            switch ((int) bitBuffer.readBits(2)) {
+                case 0:
+                    value = storedValues[(int) bitBuffer.readBits(ChimpModelType.INDEX_BITS)];
+                    break;
+                case 1:
+                    int fields = (int) bitBuffer.readBits(ChimpModelType.INDEX_BITS + 3 + 5);
+                    int previousValue = storedValues[fields >>> 8];
+                    int significantBits = fields & 0x1F;
+                    int trailingZeros = Integer.SIZE - ChimpModelType.LEADING_ZEROS[(fields >>> 5) & 0x7] - significantBits;
+                    value = previousValue ^ ((int) bitBuffer.readBits(significantBits) << trailingZeros);
+                    break;
+                case 2:
+                    value = this.lastVal ^ (int) bitBuffer.readBits(Integer.SIZE - this.storedLeadingZeros);
+                    break;
+                default:
+                    this.storedLeadingZeros = ChimpModelType.LEADING_ZEROS[(int) bitBuffer.readBits(3)];
+                    value = this.lastVal ^ (int) bitBuffer.readBits(Integer.SIZE - this.storedLeadingZeros);
+                    break;
+            }
+            storedValues[this.nextIndex % ChimpModelType.PREVIOUS_VALUES] = value;
+            this.lastVal = value;
+            this.nextIndex++;
+        }
+        return Float.intBitsToFloat(this.lastVal);
+    }
+}
@@ -14,10 +14,8 @@
  */
 package dk.aau.modelardb.core.models;
 
-import dk.aau.modelardb.core.DataPoint;
 import dk.aau.modelardb.core.utility.BitBuffer;
-
-import java.util.List;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
 
 //The implementation of this model type is based on code published by Michael Burman
 // under the Apache2 license. LINK: https://github.com/burmanm/gorilla-tsc
@@ -43,20 +41,21 @@ class FacebookGorillaModelType extends ModelType {
      * Public Methods
      **/
     @Override
-    public boolean append(DataPoint[] currentDataPoints) {
+    public boolean append(DataPointBuffer currentSegment, int row) {
         if (this.currentSize == this.lengthBound) {
             return false;
         }
 
+        int width = currentSegment.width();
         if (this.currentSize == 0) {
-            this.lastVal = Float.floatToIntBits(currentDataPoints[0].value);
+            this.lastVal = Float.floatToIntBits(currentSegment.getValue(row, 0));
             this.compressed.writeBits(lastVal, java.lang.Integer.SIZE);
-            for (int i = 1; i < currentDataPoints.length; i++) {
-                compress(currentDataPoints[i].value);
+            for (int column = 1; column < width; column++) {
+                compress(currentSegment.getValue(row, column));
             }
         } else {
-            for (DataPoint dp : currentDataPoints) {
-                compress(dp.value);
+            for (int column = 0; column < width; column++) {
+                compress(currentSegment.getValue(row, column));
             }
         }
         this.currentSize += 1;
@@ -64,19 +63,20 @@ class FacebookGorillaModelType extends ModelType {
     }
 
     @Override
-    public void initialize(List<DataPoint[]> currentSegment) {
+    public void initialize(DataPointBuffer currentSegment) {
         this.currentSize = 0;
         this.compressed = new BitBuffer(4 * this.lengthBound);
         this.storedLeadingZeros = Integer.MAX_VALUE;
         this.storedTrailingZeros = 0;
 
-        for (DataPoint[] dataPoints : currentSegment) {
-            this.append(dataPoints);
+        int rows = currentSegment.size();
+        for (int row = 0; row < rows; row++) {
+            this.append(currentSegment, row);
         }
     }
 
     @Override
-    public byte[] getModel(long startTime, long endTime, int samplingInterval, List<DataPoint[]> currentSegment) {
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer currentSegment) {
         return this.compressed.array();
     }
 
@@ -91,7 +91,7 @@ class FacebookGorillaModelType extends ModelType {
     }
 
     @Override
-    public float size(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
         if (this.currentSize == 0) {
             return Float.NaN;
         } else {
@@ -146,15 +146,22 @@ class FacebookGorillaSegment extends Segment {
     /**
      * Instance Variables
      **/
-    private final float[] values;
+    //The values are decompressed by a cursor when they are needed, so only the values up to the last value used are
+    // decompressed and values that are not used, e.g., the values of the other time series in the group, are skipped
+    private final byte[] model;
+    private BitBuffer bitBuffer;
+    private int nextIndex;
+    private int lastVal;
+    private int storedLeadingZeros;
+    private int storedTrailingZeros;
 
     /**
      * Constructors
      **/
     FacebookGorillaSegment(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
-        //Unlike length(), capacity() is not impacted by changes to the segment's start time
         super(tid, startTime, endTime, samplingInterval, offsets);
-        this.values = decompress(model, super.capacity());
+        this.model = model;
+        this.nextIndex = Integer.MAX_VALUE;
     }
 
     /**
@@ -167,7 +174,7 @@ class FacebookGorillaSegment extends Segment {
         int init = inc * getTemporalOffset() + getGroupOffset();
         int length = init + inc * this.length();
         for (int index = init; index < length; index += inc) {
-            min = Float.min(min, this.values[index]);
+            min = Float.min(min, decompressTo(index));
         }
         return min;
     }
@@ -179,7 +186,7 @@ class FacebookGorillaSegment extends Segment {
         int init = inc * getTemporalOffset() + getGroupOffset();
         int length = init + inc * this.length();
         for (int index = init; index < length; index += inc) {
-            max = Float.max(max, this.values[index]);
+            max = Float.max(max, decompressTo(index));
         }
         return max;
     }
@@ -191,7 +198,7 @@ class FacebookGorillaSegment extends Segment {
         int init = inc * getTemporalOffset() + getGroupOffset();
         int length = init + inc * this.length();
         for (int index = init; index < length; index += inc) {
-            acc += this.values[index];
+            acc += decompressTo(index);
         }
         return acc;
     }
@@ -201,42 +208,41 @@ class FacebookGorillaSegment extends Segment {
      **/
     @Override
     protected float get(long timestamp, int index) {
-        return this.values[index];
+        return decompressTo(index);
     }
 
     /**
      * Private Methods
      **/
-    private float[] decompress(byte[] values, int length) {
-        float[] result = new float[length];
-        BitBuffer bitBuffer = new BitBuffer(values);
-
-        int storedLeadingZeros = Integer.MAX_VALUE;
-        int storedTrailingZeros = 0;
-        int lastVal = bitBuffer.getInt(java.lang.Integer.SIZE);
-        result[0] = Float.intBitsToFloat(lastVal);
+    private float decompressTo(int index) {
+        //The values are stored as the difference from the previous value so the cursor can only move forward
+        if (index < this.nextIndex - 1) {
+            this.bitBuffer = new BitBuffer(this.model);
+            this.storedLeadingZeros = Integer.MAX_VALUE;
+            this.storedTrailingZeros = 0;
+            this.lastVal = (int) this.bitBuffer.readBits(java.lang.Integer.SIZE);
+            this.nextIndex = 1;
+        }
 
-        for (int i = 1; i < length; i++) {
+        BitBuffer bitBuffer = this.bitBuffer;
+        while (this.nextIndex <= index) {
             if (bitBuffer.readBit()) {
                 if (bitBuffer.readBit()) {
                     //New leading and trailing zeros
-                    storedLeadingZeros = bitBuffer.getInt(5);
-                    byte significantBits = (byte) bitBuffer.getInt(6);
+                    this.storedLeadingZeros = (int) bitBuffer.readBits(5);
+                    byte significantBits = (byte) bitBuffer.readBits(6);
                     if (significantBits == 0) {
                         significantBits = 32;
                     }
-                    storedTrailingZeros = 32 - significantBits - storedLeadingZeros;
+                    this.storedTrailingZeros = 32 - significantBits - this.storedLeadingZeros;
                 }
 
-                int value = bitBuffer.getInt(32 - storedLeadingZeros - storedTrailingZeros);
-                value <<= storedTrailingZeros;
-                value = lastVal ^ value;
-                lastVal = value;
-                result[i] = Float.intBitsToFloat(lastVal);
-            } else {
-                result[i] = Float.intBitsToFloat(lastVal);
+                int value = (int) bitBuffer.readBits(32 - this.storedLeadingZeros - this.storedTrailingZeros);
+                value <<= this.storedTrailingZeros;
+                this.lastVal = this.lastVal ^ value;
             }
+            this.nextIndex++;
         }
-        return result;
+        return Float.intBitsToFloat(this.lastVal);
     }
 }
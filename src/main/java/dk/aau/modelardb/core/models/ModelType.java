@@ -14,55 +14,70 @@
  */
 package dk.aau.modelardb.core.models;
 
-import dk.aau.modelardb.core.DataPoint;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
 import dk.aau.modelardb.core.utility.Static;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.List;
 
 public abstract class ModelType implements Serializable {
 
+    private final static DataPointBuffer emptyBuffer = new DataPointBuffer(new int[0], 1);
+
     /**
      * Instance Variables
      **/
     public final int mtid;
     public final float errorBound;
+    public final float absoluteErrorBound;
     public final int lengthBound;
 
     /**
      * Constructors
      **/
     public ModelType(int mtid, float errorBound, int lengthBound) {
+        this(mtid, errorBound, 0.0F, lengthBound);
+    }
+
+    public ModelType(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
         this.mtid = mtid;
         this.errorBound = errorBound;
+        this.absoluteErrorBound = absoluteErrorBound;
         this.lengthBound = lengthBound;
     }
 
     /**
      * Public Methods
      **/
-    abstract public boolean append(DataPoint[] currentDataPoints);
+    abstract public boolean append(DataPointBuffer currentSegment, int row);
 
-    abstract public void initialize(List<DataPoint[]> currentSegment);
+    abstract public void initialize(DataPointBuffer currentSegment);
 
-    abstract public byte[] getModel(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps);
+    abstract public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer dps);
 
     abstract public Segment get(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets);
 
     abstract public int length();
 
-    abstract public float size(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps);
+    abstract public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps);
 
-    public boolean withinErrorBound(float errorBound, Iterator<DataPoint> tsA, Iterator<DataPoint> tsB) {
+    public boolean withinErrorBound(float errorBound, float absoluteErrorBound, DataPointBuffer bufferA, int columnA,
+                                    DataPointBuffer bufferB, int columnB) {
+        //The buffers are compared from their last data points as the buffers might not start at the same time
         boolean allWithinErrorBound = true;
-        while (allWithinErrorBound && tsA.hasNext() && tsB.hasNext()){
-            allWithinErrorBound = Static.percentageError(tsA.next().value, tsB.next().value) < errorBound;
+        int rowA = bufferA.size() - 1;
+        int rowB = bufferB.size() - 1;
+        while (allWithinErrorBound && rowA >= 0 && rowB >= 0) {
+            float valueA = bufferA.getValue(rowA, columnA);
+            float valueB = bufferB.getValue(rowB, columnB);
+            allWithinErrorBound = Math.abs(valueA - valueB) < absoluteErrorBound ||
+                    Static.percentageError(valueA, valueB) < errorBound;
+            rowA--;
+            rowB--;
         }
         return allWithinErrorBound;
     }
 
-    final public float compressionRatio(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps, int gaps) {
+    final public float compressionRatio(long startTime, long endTime, int samplingInterval, DataPointBuffer dps, int gaps) {
         //     DPs tid: int, ts: long, v: float
         // Segment tid: int, start_time: long, end_time: long, mtid: int, model: bytes[], gaps: bytes[]
         //4 + 8 + 4 = 16 * data points is reduced to 4 + 8 + 8 + 4 + sizeof model + sizeof gaps
@@ -71,6 +86,6 @@ public abstract class ModelType implements Serializable {
 
     final public float unsafeSize() {
         //Computes the size without providing the model type with the information for it to verify the precision of its model
-        return this.size(0L, 0L, 0, new java.util.ArrayList<>());
+        return this.size(0L, 0L, 0, ModelType.emptyBuffer);
     }
 }
@@ -15,19 +15,35 @@
 package dk.aau.modelardb.core.models;
 
 import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.ServiceLoader;
 import java.util.stream.IntStream;
 
 public class ModelTypeFactory {
 
+    /**
+     * Instance Variables
+     **/
+    private static HashMap<String, ModelTypeProvider> providers;
+
     /**
      * Public Methods
      **/
     public static ModelType getFallbackModelType(float errorBound, int lengthBound) {
+        return getFallbackModelType(errorBound, 0.0F, lengthBound);
+    }
+
+    public static ModelType getFallbackModelType(float errorBound, float absoluteErrorBound, int lengthBound) {
         //Per definition the mtid of the fallback model is one
-        return getModel("dk.aau.modelardb.core.models.UncompressedModelType", 1, errorBound, lengthBound);
+        return getModel("dk.aau.modelardb.core.models.UncompressedModelType", 1, errorBound, absoluteErrorBound, lengthBound);
     }
 
     public static ModelType[] getModelTypes(String[] modelTypes, int[] mtids, float errorBound, int lengthBound) {
+        return getModelTypes(modelTypes, mtids, errorBound, 0.0F, lengthBound);
+    }
+
+    public static ModelType[] getModelTypes(String[] modelTypes, int[] mtids, float errorBound, float absoluteErrorBound,
+                                            int lengthBound) {
         for (String modelTypeName : modelTypes) {
             //The fallback model type is purposely designed without any limits to ensure that progress can always be made
             if (modelTypeName.equals("dk.aau.modelardb.core.models.UncompressedModelType")) {
@@ -35,20 +51,96 @@ public class ModelTypeFactory {
             }
         }
         return IntStream.range(0, modelTypes.length).mapToObj(i ->
-                getModel(modelTypes[i], mtids[i], errorBound, lengthBound)).toArray(ModelType[]::new);
+                getModel(modelTypes[i], mtids[i], errorBound, absoluteErrorBound, lengthBound)).toArray(ModelType[]::new);
     }
 
     public static ModelType getModel(String modelTypeName, int mtid, float error, int limit) {
-        try {
-            Constructor<?> constructor = Class.forName(modelTypeName).getDeclaredConstructor(int.class, float.class, int.class);
-            constructor.setAccessible(true);
-            return (ModelType) constructor.newInstance(mtid, error, limit);
-        } catch (ClassNotFoundException e) {
-            throw new UnsupportedOperationException("CORE: model type \"" + modelTypeName + "\" could not be found in CLASSPATH", e);
-        } catch (NoSuchMethodException e) {
-            throw new UnsupportedOperationException("CORE: model type \"" + modelTypeName + "\" require a \"int, float, int\" constructor", e);
-        } catch (Exception e) {
-            throw new UnsupportedOperationException("CORE: construction of \"" + modelTypeName + "\" is not possible", e);
+        return getModel(modelTypeName, mtid, error, 0.0F, limit);
+    }
+
+    public static ModelType getModel(String modelTypeName, int mtid, float error, float absoluteError, int limit) {
+        return getProvider(modelTypeName).create(mtid, error, absoluteError, limit);
+    }
+
+    public static synchronized ModelTypeProvider getProvider(String modelTypeName) {
+        //The providers are discovered the first time they are needed so all jars have been added to the CLASSPATH
+        if (providers == null) {
+            providers = new HashMap<>();
+            for (ModelTypeProvider provider : ServiceLoader.load(ModelTypeProvider.class)) {
+                providers.put(provider.getName(), provider);
+            }
+        }
+
+        //Model types without a provider are supported using reflection for backwards compatibility
+        return providers.computeIfAbsent(modelTypeName, ReflectionModelTypeProvider::new);
+    }
+
+    /**
+     * Inner Classes
+     **/
+    private static class ReflectionModelTypeProvider implements ModelTypeProvider {
+
+        /**
+         * Instance Variables
+         **/
+        private final String modelTypeName;
+
+        /**
+         * Constructors
+         **/
+        ReflectionModelTypeProvider(String modelTypeName) {
+            this.modelTypeName = modelTypeName;
+        }
+
+        /**
+         * Public Methods
+         **/
+        @Override
+        public String getName() {
+            return this.modelTypeName;
+        }
+
+        @Override
+        public boolean isLossless() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return false;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 1.0F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.0F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            try {
+                //Model types without an absolute error bound only have the "int, float, int" constructor
+                Class<?> modelType = Class.forName(this.modelTypeName);
+                try {
+                    Constructor<?> constructor = modelType.getDeclaredConstructor(int.class, float.class, float.class, int.class);
+                    constructor.setAccessible(true);
+                    return (ModelType) constructor.newInstance(mtid, errorBound, absoluteErrorBound, lengthBound);
+                } catch (NoSuchMethodException e) {
+                    Constructor<?> constructor = modelType.getDeclaredConstructor(int.class, float.class, int.class);
+                    constructor.setAccessible(true);
+                    return (ModelType) constructor.newInstance(mtid, errorBound, lengthBound);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new UnsupportedOperationException("CORE: model type \"" + this.modelTypeName + "\" could not be found in CLASSPATH", e);
+            } catch (NoSuchMethodException e) {
+                throw new UnsupportedOperationException("CORE: model type \"" + this.modelTypeName + "\" require a \"int, float, int\" constructor", e);
+            } catch (Exception e) {
+                throw new UnsupportedOperationException("CORE: construction of \"" + this.modelTypeName + "\" is not possible", e);
+            }
         }
     }
 }
@@ -0,0 +1,42 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+//This interface is the service provider interface for model types. Providers are
+// discovered using java.util.ServiceLoader, so user-defined model types can be
+// added by listing their provider in META-INF/services/ in a jar on the CLASSPATH
+package dk.aau.modelardb.core.models;
+
+public interface ModelTypeProvider {
+
+    //The name used for the model type in the configuration file and in the storage,
+    // it must be the name of the class returned by create() as the mtids are cached by it
+    String getName();
+
+    //If the model type always reconstructs the values exactly regardless of the error bound
+    boolean isLossless();
+
+    //If the segments created by the model type can compute min, max, and sum without computing each value
+    boolean supportsAggregatePushdown();
+
+    //The relative cost of appending a data point to the model type, PMC-Mean is 1.0
+    float getCostHint();
+
+    //The relative cost of decoding a data point from a segment created by the model type, PMC-Mean is 1.0, it can be
+    // measured for the sources of a deployment using SelectionPolicyReplay with --decode-costs
+    float getDecodeCostHint();
+
+    //The absolute error bound is zero unless it is set, and a value is within the bounds if it is within either of them
+    ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound);
+}
@@ -0,0 +1,248 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+//This class contains the providers for the model types included with ModelarDB,
+// they are registered in META-INF/services/ like user-defined model types
+package dk.aau.modelardb.core.models;
+
+public class ModelTypeProviders {
+
+    /**
+     * Inner Classes
+     **/
+    public static class PMC_Mean implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return PMC_MeanModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return true;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 1.0F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.0F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new PMC_MeanModelType(mtid, errorBound, absoluteErrorBound, lengthBound);
+        }
+    }
+
+    public static class SwingFilter implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return SwingFilterModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return true;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 2.0F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.0F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new SwingFilterModelType(mtid, errorBound, absoluteErrorBound, lengthBound);
+        }
+    }
+
+    public static class Polynomial implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return PolynomialModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return true;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 3.0F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.05F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new PolynomialModelType(mtid, errorBound, absoluteErrorBound, lengthBound);
+        }
+    }
+
+    public static class RunLength implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return RunLengthModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return true;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 1.5F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.15F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new RunLengthModelType(mtid, errorBound, absoluteErrorBound, lengthBound);
+        }
+    }
+
+    public static class FacebookGorilla implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return FacebookGorillaModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return false;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 4.0F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.4F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new FacebookGorillaModelType(mtid, errorBound, lengthBound);
+        }
+    }
+
+    public static class Chimp implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return ChimpModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return false;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 5.0F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.8F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new ChimpModelType(mtid, errorBound, lengthBound);
+        }
+    }
+
+    public static class Uncompressed implements ModelTypeProvider {
+        @Override
+        public String getName() {
+            return UncompressedModelType.class.getName();
+        }
+
+        @Override
+        public boolean isLossless() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsAggregatePushdown() {
+            return false;
+        }
+
+        @Override
+        public float getCostHint() {
+            return 0.5F;
+        }
+
+        @Override
+        public float getDecodeCostHint() {
+            return 1.0F;
+        }
+
+        @Override
+        public ModelType create(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+            return new UncompressedModelType(mtid, errorBound, absoluteErrorBound, lengthBound);
+        }
+    }
+}
@@ -14,11 +14,10 @@
  */
 package dk.aau.modelardb.core.models;
 
-import dk.aau.modelardb.core.DataPoint;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
 import dk.aau.modelardb.core.utility.Static;
 
 import java.nio.ByteBuffer;
-import java.util.List;
 
 class PMC_MeanModelType extends ModelType {
 
@@ -34,8 +33,8 @@ class PMC_MeanModelType extends ModelType {
     /**
      * Constructors
      **/
-    PMC_MeanModelType(int mtid, float errorBound, int lengthBound) {
-        super(mtid, errorBound, lengthBound);
+    PMC_MeanModelType(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+        super(mtid, errorBound, absoluteErrorBound, lengthBound);
         if (errorBound < 0.0 || 100.0 < errorBound) {
             throw new IllegalArgumentException("CORE: for PMC_MeanModelType modelardb.error_bound must be a percentage");
         }
@@ -45,7 +44,7 @@ class PMC_MeanModelType extends ModelType {
      * Public Methods
      **/
     @Override
-    public boolean append(DataPoint[] currentDataPoints) {
+    public boolean append(DataPointBuffer currentSegment, int row) {
         if (!this.withinErrorBound) {
             return false;
         }
@@ -54,16 +53,33 @@ class PMC_MeanModelType extends ModelType {
         float nextMin = this.min;
         float nextMax = this.max;
         double nextSum = this.sum;
-        for (DataPoint cdp : currentDataPoints) {
-            float value = cdp.value;
-            nextSum += value;
-            nextMin = Math.min(nextMin, value);
-            nextMax = Math.max(nextMax, value);
+        float[] values = currentSegment.getValues();
+        int width = currentSegment.width();
+        int from = currentSegment.getOffset(row);
+        if (width < Static.BRANCHING_SCAN_WIDTH) {
+            for (int index = from; index < from + width; index++) {
+                float value = values[index];
+                nextSum += value;
+                nextMin = Math.min(nextMin, value);
+                nextMax = Math.max(nextMax, value);
+            }
+        } else {
+            //Comparisons are used for wide rows as Math.min() and Math.max() must also check for NaN and signed zeros
+            for (int index = from; index < from + width; index++) {
+                float value = values[index];
+                nextSum += value;
+                if (value < nextMin) {
+                    nextMin = value;
+                }
+                if (nextMax < value) {
+                    nextMax = value;
+                }
+            }
         }
 
-        float average = (float) (nextSum / ((this.currentSize + 1) * currentDataPoints.length));
-        if (Static.outsidePercentageErrorBound(this.errorBound, average, nextMin) ||
-                Static.outsidePercentageErrorBound(this.errorBound, average, nextMax)) {
+        float average = (float) (nextSum / ((this.currentSize + 1) * width));
+        if (Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, average, nextMin) ||
+                Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, average, nextMax)) {
             this.withinErrorBound = false;
             return false;
         }
@@ -75,23 +91,24 @@ class PMC_MeanModelType extends ModelType {
     }
 
     @Override
-    public void initialize(List<DataPoint[]> currentSegment) {
+    public void initialize(DataPointBuffer currentSegment) {
         this.sum = 0.0;
         this.currentSize = 0;
         this.min = Float.MAX_VALUE;
         this.max = -Float.MAX_VALUE;
         this.withinErrorBound = true;
 
-        for (DataPoint[] dataPoints : currentSegment) {
-            if (!append(dataPoints)) {
+        int rows = currentSegment.size();
+        for (int row = 0; row < rows; row++) {
+            if (!append(currentSegment, row)) {
                 return;
             }
         }
     }
 
     @Override
-    public byte[] getModel(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
-        return ByteBuffer.allocate(4).putFloat((float) (this.sum / (this.currentSize * dps.get(0).length))).array();
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        return ByteBuffer.allocate(4).putFloat((float) (this.sum / (this.currentSize * dps.width()))).array();
     }
 
     @Override
@@ -105,7 +122,7 @@ class PMC_MeanModelType extends ModelType {
     }
 
     @Override
-    public float size(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
         if (this.currentSize == 0) {
             return Float.NaN;
         } else {
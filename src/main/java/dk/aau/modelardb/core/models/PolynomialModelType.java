@@ -0,0 +1,269 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models;
+
+import dk.aau.modelardb.core.utility.DataPointBuffer;
+import dk.aau.modelardb.core.utility.Static;
+
+import java.nio.ByteBuffer;
+
+//This model type fits a quadratic polynomial v = c0 + c1 * i + c2 * i^2 to the values using least squares, where i is
+// the number of sampling intervals since the start of the segment. The sums required to compute the coefficients are
+// updated when data points are appended, and all the values are then verified to be within the error bound
+class PolynomialModelType extends ModelType {
+
+    /**
+     * Instance Variables
+     **/
+    private int currentSize;
+    private double count;
+    private double sumX;
+    private double sumXX;
+    private double sumXXX;
+    private double sumXXXX;
+    private double sumY;
+    private double sumXY;
+    private double sumXXY;
+    private float c0;
+    private float c1;
+    private float c2;
+    private boolean withinErrorBound;
+
+    /**
+     * Constructors
+     **/
+    PolynomialModelType(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+        super(mtid, errorBound, absoluteErrorBound, lengthBound);
+        if (errorBound < 0.0 || 100.0 < errorBound) {
+            throw new IllegalArgumentException("CORE: for PolynomialModelType modelardb.error_bound must be a percentage");
+        }
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public boolean append(DataPointBuffer currentSegment, int row) {
+        if (!this.withinErrorBound || this.currentSize == this.lengthBound) {
+            return false;
+        }
+
+        //All values in a row share x so they can be added to the sums at once
+        float[] values = currentSegment.getValues();
+        int width = currentSegment.width();
+        int from = currentSegment.getOffset(row);
+        double sumOfRow = 0.0;
+        for (int index = from; index < from + width; index++) {
+            sumOfRow += values[index];
+        }
+        double x = this.currentSize;
+        double xx = x * x;
+        double count = this.count + width;
+        double sumX = this.sumX + width * x;
+        double sumXX = this.sumXX + width * xx;
+        double sumXXX = this.sumXXX + width * xx * x;
+        double sumXXXX = this.sumXXXX + width * xx * xx;
+        double sumY = this.sumY + sumOfRow;
+        double sumXY = this.sumXY + x * sumOfRow;
+        double sumXXY = this.sumXXY + xx * sumOfRow;
+
+        //The coefficients are computed using the normal equations, with fewer than three rows a lower degree is used
+        double d0, d1, d2;
+        if (this.currentSize == 0) {
+            d0 = sumY / count;
+            d1 = 0.0;
+            d2 = 0.0;
+        } else if (this.currentSize == 1) {
+            double determinant = count * sumXX - sumX * sumX;
+            d0 = (sumY * sumXX - sumX * sumXY) / determinant;
+            d1 = (count * sumXY - sumX * sumY) / determinant;
+            d2 = 0.0;
+        } else {
+            double m0 = sumXX * sumXXXX - sumXXX * sumXXX;
+            double m1 = sumX * sumXXXX - sumXXX * sumXX;
+            double m2 = sumX * sumXXX - sumXX * sumXX;
+            double determinant = count * m0 - sumX * m1 + sumXX * m2;
+            d0 = (sumY * m0 - sumX * (sumXY * sumXXXX - sumXXX * sumXXY) + sumXX * (sumXY * sumXXX - sumXX * sumXXY)) / determinant;
+            d1 = (count * (sumXY * sumXXXX - sumXXX * sumXXY) - sumY * m1 + sumXX * (sumX * sumXXY - sumXY * sumXX)) / determinant;
+            d2 = (count * (sumXX * sumXXY - sumXY * sumXXX) - sumX * (sumX * sumXXY - sumXY * sumXX) + sumY * m2) / determinant;
+        }
+
+        //The values are verified using the coefficients as floats as that is the precision they are stored with
+        float c0 = (float) d0;
+        float c1 = (float) d1;
+        float c2 = (float) d2;
+        for (int r = 0; r <= row; r++) {
+            float approximation = PolynomialModelType.get(c0, c1, c2, r);
+            int offset = currentSegment.getOffset(r);
+            for (int index = offset; index < offset + width; index++) {
+                if (Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, approximation, values[index])) {
+                    this.withinErrorBound = false;
+                    return false;
+                }
+            }
+        }
+
+        this.count = count;
+        this.sumX = sumX;
+        this.sumXX = sumXX;
+        this.sumXXX = sumXXX;
+        this.sumXXXX = sumXXXX;
+        this.sumY = sumY;
+        this.sumXY = sumXY;
+        this.sumXXY = sumXXY;
+        this.c0 = c0;
+        this.c1 = c1;
+        this.c2 = c2;
+        this.currentSize += 1;
+        return true;
+    }
+
+    @Override
+    public void initialize(DataPointBuffer currentSegment) {
+        this.currentSize = 0;
+        this.count = 0.0;
+        this.sumX = 0.0;
+        this.sumXX = 0.0;
+        this.sumXXX = 0.0;
+        this.sumXXXX = 0.0;
+        this.sumY = 0.0;
+        this.sumXY = 0.0;
+        this.sumXXY = 0.0;
+        this.withinErrorBound = true;
+
+        int rows = currentSegment.size();
+        for (int row = 0; row < rows; row++) {
+            if (!append(currentSegment, row)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        return ByteBuffer.allocate(12).putFloat(this.c0).putFloat(this.c1).putFloat(this.c2).array();
+    }
+
+    @Override
+    public Segment get(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
+        return new PolynomialSegment(tid, startTime, endTime, samplingInterval, model, offsets);
+    }
+
+    @Override
+    public int length() {
+        return this.currentSize;
+    }
+
+    @Override
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        if (this.currentSize == 0) {
+            return Float.NaN;
+        } else {
+            //The values are represented as three floats which is twelve bytes
+            return 12.0F;
+        }
+    }
+
+    /**
+     * Package-Private Methods
+     **/
+    static float get(float c0, float c1, float c2, long i) {
+        //The model type and the segment must compute the values the same way so the error bound is guaranteed
+        return (float) (c0 + c1 * (double) i + c2 * (double) i * (double) i);
+    }
+}
+
+
+class PolynomialSegment extends Segment {
+
+    /**
+     * Instance Variables
+     **/
+    private final float c0;
+    private final float c1;
+    private final float c2;
+
+    /**
+     * Constructors
+     **/
+    PolynomialSegment(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
+        super(tid, startTime, endTime, samplingInterval, offsets);
+        ByteBuffer arguments = ByteBuffer.wrap(model);
+        this.c0 = arguments.getFloat();
+        this.c1 = arguments.getFloat();
+        this.c2 = arguments.getFloat();
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public float min() {
+        float min = Float.MAX_VALUE;
+        for (long i : getCandidates()) {
+            min = Float.min(min, PolynomialModelType.get(this.c0, this.c1, this.c2, i));
+        }
+        return min;
+    }
+
+    @Override
+    public float max() {
+        float max = -Float.MAX_VALUE;
+        for (long i : getCandidates()) {
+            max = Float.max(max, PolynomialModelType.get(this.c0, this.c1, this.c2, i));
+        }
+        return max;
+    }
+
+    @Override
+    public double sum() {
+        //The sums of i and i^2 from first to last are computed using the closed-form expressions for the sums
+        long first = getTemporalOffset();
+        long last = first + this.length() - 1;
+        double count = this.length();
+        double sumX = (first + last) * count / 2.0;
+        double sumXX = sumOfSquares(last) - sumOfSquares(first - 1);
+        return this.c0 * count + this.c1 * sumX + this.c2 * sumXX;
+    }
+
+    /**
+     * Protected Methods
+     **/
+    @Override
+    protected float get(long timestamp, int index) {
+        long i = getTemporalOffset() + (timestamp - this.getStartTime()) / this.samplingInterval;
+        return PolynomialModelType.get(this.c0, this.c1, this.c2, i);
+    }
+
+    /**
+     * Private Methods
+     **/
+    private long[] getCandidates() {
+        //The minimum and maximum are at the first value, the last value, or the values closest to the vertex
+        long first = getTemporalOffset();
+        long last = first + this.length() - 1;
+        if (this.c2 != 0.0F) {
+            double vertex = -this.c1 / (2.0 * this.c2);
+            if (first < vertex && vertex < last) {
+                return new long[]{first, last, (long) Math.floor(vertex), (long) Math.ceil(vertex)};
+            }
+        }
+        return new long[]{first, last};
+    }
+
+    private static double sumOfSquares(long n) {
+        return n * (n + 1.0) * (2.0 * n + 1.0) / 6.0;
+    }
+}
@@ -0,0 +1,316 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models;
+
+import dk.aau.modelardb.core.utility.BitBuffer;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
+import dk.aau.modelardb.core.utility.Static;
+
+import java.util.Arrays;
+
+//The model type represents time series that switch between a few levels, e.g., states and set points, as a dictionary
+// with the levels and for each time series a list of runs that each consist of an index into the dictionary and the
+// number of data points that are within the error bound of that level. The runs are stored using as few bits as the
+// dictionary size and longest run allows in the following format: dictionary size: 16 bits, bits per length: 5 bits,
+// dictionary: float[], and for each time series: run count: 16 bits, runs: (index bits, length bits)[]
+class RunLengthModelType extends ModelType {
+
+    /**
+     * Instance Variables
+     **/
+    //The dictionary is searched linearly so it is kept small, and the number of runs is stored as an unsigned short
+    static final int MAX_DICTIONARY_SIZE = 256;
+    static final int MAX_LENGTH = 65535;
+
+    //The runs of each time series are stored in an array that starts small and is doubled when it is full, as most
+    // segments have far fewer runs than data points and a group can contain hundreds of time series
+    private static final int INITIAL_RUNS = 16;
+
+    private final int maxLength;
+    private final float[] dictionary;
+    private int dictionarySize;
+    private int currentSize;
+    private int width;
+    private int runCount;
+    private int longestRun;
+    private int[] rowIndices;
+    private int[][] runs;
+    private int[] runCounts;
+
+    /**
+     * Constructors
+     **/
+    RunLengthModelType(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+        super(mtid, errorBound, absoluteErrorBound, lengthBound);
+        this.maxLength = Math.min(lengthBound, MAX_LENGTH);
+        this.dictionary = new float[MAX_DICTIONARY_SIZE];
+        this.rowIndices = new int[0];
+        this.runs = new int[0][];
+        this.runCounts = new int[0];
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public boolean append(DataPointBuffer currentSegment, int row) {
+        if (this.currentSize == this.maxLength) {
+            return false;
+        }
+
+        //The levels are found before any runs are changed, so the row can be rejected if the dictionary is full
+        float[] values = currentSegment.getValues();
+        int offset = currentSegment.getOffset(row);
+        int dictionarySize = this.dictionarySize;
+        for (int column = 0; column < this.width; column++) {
+            float value = values[offset + column];
+            int index = this.currentSize == 0 ? -1 : this.runs[column][this.runCounts[column] - 1] >>> 16;
+            if (index == -1 || !matches(this.dictionary[index], value)) {
+                index = lookup(value);
+                if (index == -1) {
+                    if (this.dictionarySize == MAX_DICTIONARY_SIZE) {
+                        this.dictionarySize = dictionarySize;
+                        return false;
+                    }
+                    index = this.dictionarySize;
+                    this.dictionary[this.dictionarySize++] = value;
+                }
+            }
+            this.rowIndices[column] = index;
+        }
+
+        //Each run is stored as the index of its level in the upper bits and its length in the lower bits
+        for (int column = 0; column < this.width; column++) {
+            int[] runs = this.runs[column];
+            int lastRun = this.runCounts[column] - 1;
+            if (lastRun >= 0 && runs[lastRun] >>> 16 == this.rowIndices[column]) {
+                runs[lastRun]++;
+                this.longestRun = Math.max(this.longestRun, runs[lastRun] & 0xFFFF);
+            } else {
+                if (lastRun + 1 == runs.length) {
+                    runs = Arrays.copyOf(runs, Math.min(2 * runs.length, this.maxLength));
+                    this.runs[column] = runs;
+                }
+                runs[lastRun + 1] = (this.rowIndices[column] << 16) | 1;
+                this.runCounts[column]++;
+                this.runCount++;
+            }
+        }
+        this.currentSize += 1;
+        return true;
+    }
+
+    @Override
+    public void initialize(DataPointBuffer currentSegment) {
+        this.currentSize = 0;
+        this.dictionarySize = 0;
+        this.runCount = 0;
+        this.longestRun = 1;
+
+        //The arrays are only reallocated if the number of time series in the group changes, and the runs keep the
+        // capacity they have grown to as the next segments of the group most likely have a similar number of runs
+        this.width = currentSegment.width();
+        if (this.runs.length != this.width) {
+            this.rowIndices = new int[this.width];
+            this.runs = new int[this.width][Math.min(INITIAL_RUNS, this.maxLength)];
+            this.runCounts = new int[this.width];
+        }
+        Arrays.fill(this.runCounts, 0);
+
+        int rows = currentSegment.size();
+        for (int row = 0; row < rows; row++) {
+            if (!append(currentSegment, row)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        //The lengths are stored minus one, so runs of length one are stored using zero bits if all runs have length one
+        int indexBits = bitsFor(this.dictionarySize - 1);
+        int lengthBits = bitsFor(this.longestRun - 1);
+        BitBuffer model = new BitBuffer((int) this.unsafeSize());
+        model.writeBits(this.dictionarySize, 16);
+        model.writeBits(lengthBits, 5);
+        for (int index = 0; index < this.dictionarySize; index++) {
+            model.writeBits(Float.floatToIntBits(this.dictionary[index]), Integer.SIZE);
+        }
+        for (int column = 0; column < this.width; column++) {
+            int[] runs = this.runs[column];
+            int runCount = this.runCounts[column];
+            model.writeBits(runCount, 16);
+            for (int run = 0; run < runCount; run++) {
+                model.writeBits(runs[run] >>> 16, indexBits);
+                model.writeBits((runs[run] & 0xFFFF) - 1, lengthBits);
+            }
+        }
+        return model.array();
+    }
+
+    @Override
+    public Segment get(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
+        return new RunLengthSegment(tid, startTime, endTime, samplingInterval, model, offsets);
+    }
+
+    @Override
+    public int length() {
+        return this.currentSize;
+    }
+
+    @Override
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        if (this.currentSize == 0) {
+            return Float.NaN;
+        } else {
+            int runBits = bitsFor(this.dictionarySize - 1) + bitsFor(this.longestRun - 1);
+            long bits = 16 + 5 + 32L * this.dictionarySize + 16L * this.width + (long) runBits * this.runCount;
+            return (bits + 7) / 8;
+        }
+    }
+
+    /**
+     * Package-Private Methods
+     **/
+    static int bitsFor(int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Private Methods
+     **/
+    private boolean matches(float level, float value) {
+        return !Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, level, value);
+    }
+
+    private int lookup(float value) {
+        for (int index = 0; index < this.dictionarySize; index++) {
+            if (matches(this.dictionary[index], value)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
+
+
+class RunLengthSegment extends Segment {
+
+    /**
+     * Instance Variables
+     **/
+    //The runs of the time series are decoded as the level and the index of the first data point after each run
+    private final float[] levels;
+    private final int[] ends;
+
+    /**
+     * Constructors
+     **/
+    RunLengthSegment(int tid, long startTime, long endTime, int samplingInterval, byte[] model, byte[] offsets) {
+        super(tid, startTime, endTime, samplingInterval, offsets);
+        BitBuffer bitBuffer = new BitBuffer(model);
+        float[] dictionary = new float[(int) bitBuffer.readBits(16)];
+        int indexBits = RunLengthModelType.bitsFor(dictionary.length - 1);
+        int lengthBits = (int) bitBuffer.readBits(5);
+        for (int index = 0; index < dictionary.length; index++) {
+            dictionary[index] = Float.intBitsToFloat((int) bitBuffer.readBits(Integer.SIZE));
+        }
+
+        //The runs of the time series before this time series in the group are skipped
+        for (int column = 0; column < getGroupOffset(); column++) {
+            int runCount = (int) bitBuffer.readBits(16);
+            for (int run = 0; run < runCount; run++) {
+                bitBuffer.readBits(indexBits + lengthBits);
+            }
+        }
+
+        int runCount = (int) bitBuffer.readBits(16);
+        this.levels = new float[runCount];
+        this.ends = new int[runCount];
+        int end = 0;
+        for (int run = 0; run < runCount; run++) {
+            this.levels[run] = dictionary[(int) bitBuffer.readBits(indexBits)];
+            end += (int) bitBuffer.readBits(lengthBits) + 1;
+            this.ends[run] = end;
+        }
+    }
+
+    /**
+     * Public Methods
+     **/
+    @Override
+    public float min() {
+        float min = Float.MAX_VALUE;
+        int from = getTemporalOffset();
+        int to = from + this.length();
+        for (int run = findRun(from); run < this.ends.length && from < to; run++) {
+            min = Float.min(min, this.levels[run]);
+            from = this.ends[run];
+        }
+        return min;
+    }
+
+    @Override
+    public float max() {
+        float max = -Float.MAX_VALUE;
+        int from = getTemporalOffset();
+        int to = from + this.length();
+        for (int run = findRun(from); run < this.ends.length && from < to; run++) {
+            max = Float.max(max, this.levels[run]);
+            from = this.ends[run];
+        }
+        return max;
+    }
+
+    @Override
+    public double sum() {
+        //Each run adds its level multiplied by the number of its data points that are in the segment
+        double sum = 0.0;
+        int from = getTemporalOffset();
+        int to = from + this.length();
+        for (int run = findRun(from); run < this.ends.length && from < to; run++) {
+            int end = Math.min(this.ends[run], to);
+            sum += (double) this.levels[run] * (end - from);
+            from = end;
+        }
+        return sum;
+    }
+
+    /**
+     * Protected Methods
+     **/
+    @Override
+    protected float get(long timestamp, int index) {
+        return this.levels[findRun(index / getGroupSize())];
+    }
+
+    /**
+     * Private Methods
+     **/
+    private int findRun(int index) {
+        //The runs are searched using binary search as they are sorted by the index of the data point they end before
+        int low = 0;
+        int high = this.ends.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.ends[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -14,12 +14,11 @@
  */
 package dk.aau.modelardb.core.models;
 
-import dk.aau.modelardb.core.DataPoint;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
 import dk.aau.modelardb.core.utility.LinearFunction;
 import dk.aau.modelardb.core.utility.Static;
 
 import java.nio.ByteBuffer;
-import java.util.List;
 
 class SwingFilterModelType extends ModelType {
 
@@ -29,14 +28,15 @@ class SwingFilterModelType extends ModelType {
     private int currentSize;
     private LinearFunction upperBound;
     private LinearFunction lowerBound;
-    private DataPoint initialDataPoint;
+    private long initialTimestamp;
+    private float initialValue;
     private boolean withinErrorBound;
 
     /**
      * Constructors
      **/
-    SwingFilterModelType(int mtid, float errorBound, int lengthBound) {
-        super(mtid, errorBound, lengthBound);
+    SwingFilterModelType(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+        super(mtid, errorBound, absoluteErrorBound, lengthBound);
         if (errorBound < 0.0 || 100.0 < errorBound) {
             throw new IllegalArgumentException("CORE: for SwingFilterModelType modelardb.error_bound must be a percentage");
         }
@@ -46,7 +46,7 @@ class SwingFilterModelType extends ModelType {
      * Public Methods
      **/
     @Override
-    public boolean append(DataPoint[] currentDataPoints) {
+    public boolean append(DataPointBuffer currentSegment, int row) {
         if (!this.withinErrorBound) {
             return false;
         }
@@ -54,58 +54,61 @@ class SwingFilterModelType extends ModelType {
         //Allows the size to be updated after adding the second data point without the need of branches
         int currentSize = this.currentSize;
         int nextSize = this.currentSize + 1;
+        long timestamp = currentSegment.getTimestamp(row);
 
         if (this.currentSize == 0) {
             //An average data point must be constructed so all data points in the group are within the error bound
-            float min = Static.min(currentDataPoints);
-            float max = Static.max(currentDataPoints);
-            float avg = Static.avg(currentDataPoints);
-            if (Static.outsidePercentageErrorBound(this.errorBound, avg, min) ||
-                    Static.outsidePercentageErrorBound(this.errorBound, avg, max)) {
+            float min = Static.min(currentSegment, row);
+            float max = Static.max(currentSegment, row);
+            float avg = Static.avg(currentSegment, row);
+            if (Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, avg, min) ||
+                    Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, avg, max)) {
                 this.withinErrorBound = false;
                 return false;
             }
 
             // Line 1 - 2
-            this.initialDataPoint = new DataPoint(currentDataPoints[0].tid, currentDataPoints[0].timestamp, avg);
+            this.initialTimestamp = timestamp;
+            this.initialValue = avg;
         } else {
             //Expect for the first set of data point, all data points can be appended one at a time
-            for (DataPoint currentDataPoint : currentDataPoints) {
+            float[] values = currentSegment.getValues();
+            int from = currentSegment.getOffset(row);
+            int to = from + currentSegment.width();
+            for (int index = from; index < to; index++) {
+                float value = values[index];
+
                 //Calculates the absolute allowed deviation before the error bound is exceeded. In theory the deviation
-                // should be calculated as the Math.abs(currentDataPoint.value * (this.error / 100.0)). However, due to
+                // should be calculated as the Math.abs(value * (this.error / 100.0)). However, due to
                 // the calculation not being perfectly accurate, 100.0 allows data points slightly above the error bound
-                double deviation = Math.abs(currentDataPoint.value * (this.errorBound / 100.1));
+                double deviation = Math.max(Math.abs(value * (this.errorBound / 100.1)), this.absoluteErrorBound / 1.001);
 
                 if (this.currentSize == 1) {
                     // Line 3
                     this.upperBound = new LinearFunction(
-                            initialDataPoint.timestamp, initialDataPoint.value,
-                            currentDataPoint.timestamp, currentDataPoint.value + deviation);
+                            this.initialTimestamp, this.initialValue, timestamp, value + deviation);
                     this.lowerBound = new LinearFunction(
-                            initialDataPoint.timestamp, initialDataPoint.value,
-                            currentDataPoint.timestamp, currentDataPoint.value - deviation);
+                            this.initialTimestamp, this.initialValue, timestamp, value - deviation);
                     this.currentSize = nextSize;
                 } else {
                     //Line 6
-                    double uba = upperBound.get(currentDataPoint.timestamp);
-                    double lba = lowerBound.get(currentDataPoint.timestamp);
+                    double uba = upperBound.get(timestamp);
+                    double lba = lowerBound.get(timestamp);
 
-                    if (uba + deviation < currentDataPoint.value || lba - deviation > currentDataPoint.value) {
+                    if (uba + deviation < value || lba - deviation > value) {
                         this.withinErrorBound = false;
                         this.currentSize = currentSize;
                         return false;
                     } else {
                         //Line 16
-                        if (uba - deviation > currentDataPoint.value) {
+                        if (uba - deviation > value) {
                             this.upperBound = new LinearFunction(
-                                    initialDataPoint.timestamp, initialDataPoint.value,
-                                    currentDataPoint.timestamp, currentDataPoint.value + deviation);
+                                    this.initialTimestamp, this.initialValue, timestamp, value + deviation);
                         }
                         //Line 15
-                        if (lba + deviation < currentDataPoint.value) {
+                        if (lba + deviation < value) {
                             this.lowerBound = new LinearFunction(
-                                    initialDataPoint.timestamp, initialDataPoint.value,
-                                    currentDataPoint.timestamp, currentDataPoint.value - deviation);
+                                    this.initialTimestamp, this.initialValue, timestamp, value - deviation);
                         }
                     }
                 }
@@ -116,19 +119,20 @@ class SwingFilterModelType extends ModelType {
     }
 
     @Override
-    public void initialize(List<DataPoint[]> currentSegment) {
+    public void initialize(DataPointBuffer currentSegment) {
         this.currentSize = 0;
         this.withinErrorBound = true;
 
-        for (DataPoint[] dataPoints : currentSegment) {
-            if (!append(dataPoints)) {
+        int rows = currentSegment.size();
+        for (int row = 0; row < rows; row++) {
+            if (!append(currentSegment, row)) {
                 return;
             }
         }
     }
 
     @Override
-    public byte[] getModel(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
         //All lines within the two bounds are valid but always selecting one of the bounds add unnecessary error to sums
         double a = (this.lowerBound.a + this.upperBound.a) / 2.0;
         double b = (this.lowerBound.b + this.upperBound.b) / 2.0;
@@ -153,7 +157,7 @@ class SwingFilterModelType extends ModelType {
     }
 
     @Override
-    public float size(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
         //A linear function cannot be computed without at least two data points so we return NaN
         if (this.currentSize < 2) {
             return Float.NaN;
@@ -165,11 +169,13 @@ class SwingFilterModelType extends ModelType {
 
         //Verifies that the model has the necessary precession to be utilized, while the function computed in theory
         // should not exceed the error bound it can do so (especially with 0% error) due to floating-point imprecision
+        float[] values = dps.getValues();
+        int width = dps.width();
         for (int i = 0; startTime < endTime + samplingInterval; i++, startTime += samplingInterval) {
-            DataPoint[] dpa = dps.get(i);
-            float approximation = (float) (a * dpa[0].timestamp + b);
-            for (DataPoint dp : dpa) {
-                if (Static.outsidePercentageErrorBound(this.errorBound, approximation, dp.value)) {
+            float approximation = (float) (a * dps.getTimestamp(i) + b);
+            int from = dps.getOffset(i);
+            for (int index = from; index < from + width; index++) {
+                if (Static.outsideErrorBound(this.errorBound, this.absoluteErrorBound, approximation, values[index])) {
                     return Float.NaN;
                 }
             }
@@ -14,11 +14,10 @@
  */
 package dk.aau.modelardb.core.models;
 
-import dk.aau.modelardb.core.DataPoint;
+import dk.aau.modelardb.core.utility.DataPointBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.util.List;
 
 class UncompressedModelType extends ModelType {
 
@@ -30,31 +29,33 @@ class UncompressedModelType extends ModelType {
     /**
      * Constructors
      **/
-    UncompressedModelType(int mtid, float errorBound, int lengthBound) {
-        super(mtid, errorBound, lengthBound);
+    UncompressedModelType(int mtid, float errorBound, float absoluteErrorBound, int lengthBound) {
+        super(mtid, errorBound, absoluteErrorBound, lengthBound);
     }
 
     /**
      * Public Methods
      **/
     @Override
-    public boolean append(DataPoint[] currentDataPoints) {
+    public boolean append(DataPointBuffer currentSegment, int row) {
         //UncompressedModelType is a last resort fallback so it simply stores the current buffer in an array
         this.currentSize++;
         return true;
     }
 
     @Override
-    public void initialize(List<DataPoint[]> currentSegment) {
+    public void initialize(DataPointBuffer currentSegment) {
         this.currentSize = Integer.min(this.lengthBound, currentSegment.size());
     }
 
     @Override
-    public byte[] getModel(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
-        ByteBuffer values = ByteBuffer.allocate(4 * dps.get(0).length * dps.size());
-        for (DataPoint[] dpss : dps) {
-            for (DataPoint dp : dpss) {
-                values.putFloat(dp.value);
+    public byte[] getModel(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
+        int rows = dps.size();
+        int width = dps.width();
+        ByteBuffer values = ByteBuffer.allocate(4 * width * rows);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < width; column++) {
+                values.putFloat(dps.getValue(row, column));
             }
         }
         return values.array();
@@ -71,7 +72,7 @@ class UncompressedModelType extends ModelType {
     }
 
     @Override
-    public float size(long startTime, long endTime, int samplingInterval, List<DataPoint[]> dps) {
+    public float size(long startTime, long endTime, int samplingInterval, DataPointBuffer dps) {
         if (this.currentSize == 0) {
             return Float.NaN;
         } else {
@@ -0,0 +1,21 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries;
+
+//Time series read from columnar formats copy their data points directly from the decoded columns into the arrays, so
+// no data point is allocated for each row, and the data points are read from the same position as next()
+public interface BatchTimeSeries {
+    int nextBatch(long[] timestamps, float[] values);
+}
@@ -27,6 +27,8 @@ public abstract class TimeSeries implements Serializable, Iterator<DataPoint> {
     public final int tid;
     public final int samplingInterval;
     public float scalingFactor;
+    private long resumeTimestamp;
+    private long resumePosition;
     /**
      * Public Methods
      **/
@@ -35,6 +37,31 @@ public abstract class TimeSeries implements Serializable, Iterator<DataPoint> {
         this.tid = tid;
         this.samplingInterval = samplingInterval;
         this.scalingFactor = 1.0F;
+        this.resumeTimestamp = Long.MIN_VALUE;
+        this.resumePosition = 0L;
+    }
+
+    public void resumeAfter(long timestamp) {
+        //The data points up to and including the timestamp have already been ingested, e.g., before a restart
+        this.resumeTimestamp = timestamp;
+    }
+
+    public long getResumeTimestamp() {
+        return this.resumeTimestamp;
+    }
+
+    public void resumeAt(long position) {
+        //The source is read from the position when it is opened, e.g., the end of a file ingested by a previous run
+        this.resumePosition = position;
+    }
+
+    public long getResumePosition() {
+        return this.resumePosition;
+    }
+
+    public long getPosition() {
+        //Sources that cannot be resumed from a position, e.g., sockets, do not have a position
+        return -1L;
     }
 
     abstract public void open();
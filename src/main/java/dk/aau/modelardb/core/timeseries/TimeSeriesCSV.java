@@ -15,55 +15,76 @@
 package dk.aau.modelardb.core.timeseries;
 
 import dk.aau.modelardb.core.DataPoint;
+import dk.aau.modelardb.core.utility.Static;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.zip.GZIPInputStream;
 
 public class TimeSeriesCSV extends TimeSeries {
 
+    //A line break repeated in each byte of a word, and the powers of ten that are exactly represented by a double
+    private static final long NEW_LINE = 0x0A0A0A0A0A0A0A0AL;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
     private final boolean hasHeader;
     private final float scalingFactor;
     private final int bufferSize;
-    private final StringBuffer decodeBuffer;
+    private final int mappedWindowSize;
     private final String splitString;
+    private final byte separator;
+    private final long separatorPattern;
     private final int timestampColumnIndex;
     private final int dateParserType;
     private final int valueColumnIndex;
     private final NumberFormat valueParser;
+    private final boolean parseValuesAsBytes;
     /**
      * Instance Variables
      **/
     private String stringPath;
     private ByteBuffer byteBuffer;
-    private StringBuffer nextBuffer;
+    private byte[] decodeBuffer;
     private ReadableByteChannel channel;
+    private FileChannel mappedChannel;
+    private long mappedWindowStart;
     private SimpleDateFormat dateParser;
+    private boolean endOfChannel;
+    private int lineStart;
+    private int lineEnd;
+    private int scanned;
+    private long position;
     /**
      * Public Methods
      **/
     public TimeSeriesCSV(String stringPath, int tid, int samplingInterval,
                          String splitString, boolean hasHeader,
                          int timestampColumnIndex, String dateFormat, String timeZone,
-                         int valueColumnIndex, String localeString) {
+                         int valueColumnIndex, String localeString, int mappedWindowSize) {
         super(stringPath.substring(stringPath.lastIndexOf('/') + 1), tid, samplingInterval);
         this.stringPath = stringPath;
 
-        //A small buffer is used so more time series can be ingested in parallel
-        this.bufferSize = 1024;
+        //The buffer holds many lines so the channel is rarely read, and it is grown if a line is longer than it
+        this.bufferSize = 64 * 1024;
+        this.mappedWindowSize = mappedWindowSize;
         this.hasHeader = hasHeader;
         this.splitString = splitString;
+        this.separator = toSeparator(splitString);
+        this.separatorPattern = (this.separator & 0xFFL) * 0x0101010101010101L;
         this.scalingFactor = 1.0F;
 
 
@@ -83,11 +104,14 @@ public class TimeSeriesCSV extends TimeSeries {
                 break;
         }
 
+        //Values are parsed directly from the bytes if the locale writes them like the default locale, otherwise, they
+        // are decoded to a string and parsed using the locale's number format
         this.valueColumnIndex = valueColumnIndex;
         Locale locale = new Locale(localeString);
         this.valueParser = NumberFormat.getInstance(locale);
-        this.decodeBuffer = new StringBuffer();
-        this.nextBuffer = new StringBuffer();
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.parseValuesAsBytes = symbols.getDecimalSeparator() == '.' && symbols.getMinusSign() == '-'
+                && symbols.getZeroDigit() == '0';
     }
 
     public void open() throws RuntimeException {
@@ -102,17 +126,38 @@ public class TimeSeriesCSV extends TimeSeries {
             }
             stringPath = null;
 
+            //The position is the number of uncompressed bytes before the next line, so compressed files are skipped
+            // by decompressing the data before the position while uncompressed files are read from the position
+            long resumePosition = getResumePosition();
             if (".gz".equals(suffix)) {
+                //The compressed data is read in blocks as large as the buffer instead of the default 512 bytes
                 InputStream is = Channels.newInputStream(fc);
-                GZIPInputStream gis = new GZIPInputStream(is);
+                GZIPInputStream gis = new GZIPInputStream(is, this.bufferSize);
+                skip(gis, resumePosition);
                 this.channel = Channels.newChannel(gis);
             } else {
+                if (fc.size() < resumePosition) {
+                    throw new IllegalArgumentException("CORE: " + this.source + " is shorter than the position " + resumePosition);
+                }
+                fc.position(resumePosition);
                 this.channel = fc;
+
+                //Uncompressed files can be mapped into memory and parsed in place one window at a time
+                if (this.mappedWindowSize > 0) {
+                    this.mappedChannel = fc;
+                    this.mappedWindowStart = resumePosition;
+                }
             }
-            this.byteBuffer = ByteBuffer.allocate(this.bufferSize);
-            if (this.hasHeader) {
-                readLines();
-                this.nextBuffer.delete(0, this.nextBuffer.indexOf("\n") + 1);
+            this.position = resumePosition;
+
+            //The buffer is little-endian so the first byte of each word read during a scan is its least significant
+            int capacity = this.mappedChannel == null ? this.bufferSize : 0;
+            this.byteBuffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            this.byteBuffer.limit(0);
+            this.decodeBuffer = new byte[64];
+            this.lineEnd = -1;
+            if (this.hasHeader && resumePosition == 0 && hasLine()) {
+                nextLine();
             }
         } catch (IOException ioe) {
             //An unchecked exception is used so the function can be called in a lambda function
@@ -122,8 +167,8 @@ public class TimeSeriesCSV extends TimeSeries {
 
     public DataPoint next() {
         try {
-            if (this.nextBuffer.length() == 0) {
-                readLines();
+            if ( ! hasLine()) {
+                throw new NoSuchElementException("CORE: " + this.source + " contains no more data points");
             }
             return nextDataPoint();
         } catch (IOException ioe) {
@@ -134,10 +179,75 @@ public class TimeSeriesCSV extends TimeSeries {
 
     public boolean hasNext() {
         try {
-            if (this.nextBuffer.length() == 0) {
-                readLines();
+            return hasLine();
+        } catch (IOException ioe) {
+            close();
+            throw new java.lang.RuntimeException(ioe);
+        }
+    }
+
+    public long getPosition() {
+        return this.position;
+    }
+
+    long nextRow(int[] columnSlots, float[] values, boolean[] hasValues, int offset) {
+        //Each column is stored in the slot it maps to starting from the offset, and the columns without a slot or
+        // after the last slot are skipped, so the values of many time series are read from each line at once
+        try {
+            if ( ! hasLine()) {
+                throw new NoSuchElementException("CORE: " + this.source + " contains no more rows");
+            }
+            int start = this.lineStart;
+            int end = this.lineEnd;
+            nextLine();
+            if (end > start && this.byteBuffer.get(end - 1) == '\r') {
+                end--;
             }
-            return this.nextBuffer.length() != 0;
+
+            long timestamp = Long.MIN_VALUE;
+            if (this.separator == 0) {
+                //The separator is a regular expression so the line is split using it, and empty columns are kept
+                String[] split = decode(start, end).split(this.splitString, -1);
+                for (int columnIndex = 0; columnIndex < Math.min(split.length, columnSlots.length); columnIndex++) {
+                    if (columnIndex == this.timestampColumnIndex) {
+                        timestamp = parseTimestamp(split[columnIndex]);
+                    }
+                    int slot = columnSlots[columnIndex];
+                    if (slot != -1) {
+                        hasValues[offset + slot] = ! split[columnIndex].isEmpty();
+                        if (hasValues[offset + slot]) {
+                            values[offset + slot] = this.valueParser.parse(split[columnIndex]).floatValue();
+                        }
+                    }
+                }
+            } else {
+                //The columns are located by scanning the line for the separator without decoding it to a string
+                int columnStart = start;
+                for (int columnIndex = 0; columnIndex < columnSlots.length && columnStart <= end; columnIndex++) {
+                    int columnEnd = indexOf(this.byteBuffer, columnStart, end, this.separatorPattern, this.separator);
+                    columnEnd = columnEnd == -1 ? end : columnEnd;
+                    if (columnIndex == this.timestampColumnIndex) {
+                        timestamp = parseTimestamp(columnStart, columnEnd);
+                    }
+                    int slot = columnSlots[columnIndex];
+                    if (slot != -1) {
+                        hasValues[offset + slot] = columnEnd > columnStart;
+                        if (hasValues[offset + slot]) {
+                            values[offset + slot] = parseFloat(columnStart, columnEnd);
+                        }
+                    }
+                    columnStart = columnEnd + 1;
+                }
+            }
+
+            if (timestamp == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("CORE: a line in " + this.source + " does not contain a timestamp");
+            }
+            return timestamp;
+        } catch (ParseException pe) {
+            //If the input cannot be parsed the stream is considered empty
+            close();
+            throw new java.lang.RuntimeException(pe);
         } catch (IOException ioe) {
             close();
             throw new java.lang.RuntimeException(ioe);
@@ -156,9 +266,11 @@ public class TimeSeriesCSV extends TimeSeries {
 
         try {
             this.channel.close();
-            //Clears all references to channels and buffers to enable garbage collection
+            //Clears all references to channels and buffers to enable garbage collection, and unmaps the mapped window
+            Static.unmap(this.byteBuffer);
             this.byteBuffer = null;
-            this.nextBuffer = null;
+            this.mappedChannel = null;
+            this.decodeBuffer = null;
             this.channel = null;
         } catch (IOException ioe) {
             throw new java.lang.RuntimeException(ioe);
@@ -168,50 +280,124 @@ public class TimeSeriesCSV extends TimeSeries {
     /**
      * Private Methods
      **/
-    private void readLines() throws IOException {
-        //Reads until the channel no longer provides any bytes or at least one full data point have been read
+    private boolean hasLine() throws IOException {
+        //Reads until the channel no longer provides any bytes or at least one full data point have been read, so a
+        // line without a line break at the end of the file is not read until the rest of it is appended to the file
+        while (this.lineEnd == -1) {
+            this.lineEnd = indexOf(this.byteBuffer, this.scanned, this.byteBuffer.limit(), NEW_LINE, (byte) '\n');
+            if (this.lineEnd != -1) {
+                break;
+            }
+            this.scanned = this.byteBuffer.limit();
+            if (this.endOfChannel) {
+                return false;
+            }
+            readBytes();
+        }
+        return true;
+    }
+
+    private void readBytes() throws IOException {
+        if (this.mappedChannel != null) {
+            mapBytes();
+            return;
+        }
+
+        //The incomplete line is moved to the start of the buffer which is doubled in size if the line fills it
+        int remaining = this.byteBuffer.limit() - this.lineStart;
+        if (remaining == this.byteBuffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(2 * this.byteBuffer.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(this.byteBuffer.array(), 0, remaining);
+            this.byteBuffer = larger;
+        } else {
+            this.byteBuffer.position(this.lineStart);
+            this.byteBuffer.compact();
+        }
+        this.scanned -= this.lineStart;
+        this.lineStart = 0;
+
+        //The buffer is filled as a channel for a compressed file only decompresses a few KiB for each read
         int bytesRead;
         do {
-            this.byteBuffer.clear();
             bytesRead = this.channel.read(this.byteBuffer);
-            this.byteBuffer.flip();
-            this.decodeBuffer.append(StandardCharsets.UTF_8.decode(this.byteBuffer));
-        } while (bytesRead != -1 && this.decodeBuffer.indexOf("\n") == -1);
+        } while (bytesRead != -1 && this.byteBuffer.hasRemaining());
+        this.endOfChannel = bytesRead == -1;
+        this.byteBuffer.flip();
+    }
 
-        //Transfer all fully read data points into a new buffer to simplify the remaining implementation
-        int lastFullyParsedDataPoint = this.decodeBuffer.lastIndexOf("\n") + 1;
-        this.nextBuffer.append(this.decodeBuffer, 0, lastFullyParsedDataPoint);
-        this.decodeBuffer.delete(0, lastFullyParsedDataPoint);
+    private void mapBytes() throws IOException {
+        //The window is moved to the start of the incomplete line, and doubled in size if the line fills it, while the
+        // previous window is unmapped so only one window of the file is mapped into memory for each time series
+        int remaining = this.byteBuffer.limit() - this.lineStart;
+        int windowSize = Math.max(this.mappedWindowSize, this.byteBuffer.capacity());
+        if (remaining == windowSize) {
+            windowSize = (int) Math.min(2L * windowSize, Integer.MAX_VALUE);
+        }
+        long start = this.mappedWindowStart + this.lineStart;
+        long size = this.mappedChannel.size();
+        long length = Math.min(windowSize, size - start);
+        ByteBuffer window = this.mappedChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        Static.unmap(this.byteBuffer);
+        this.byteBuffer = window.order(ByteOrder.LITTLE_ENDIAN);
+        this.mappedWindowStart = start;
+        this.scanned -= this.lineStart;
+        this.lineStart = 0;
+        this.endOfChannel = start + length == size;
+    }
+
+    private void nextLine() {
+        this.position += this.lineEnd + 1 - this.lineStart;
+        this.lineStart = this.lineEnd + 1;
+        this.scanned = this.lineStart;
+        this.lineEnd = -1;
     }
 
     private DataPoint nextDataPoint() throws IOException {
-        try {
-            int nextDataPointIndex = this.nextBuffer.indexOf("\n") + 1;
-            String[] split;
+        int start = this.lineStart;
+        int end = this.lineEnd;
+        nextLine();
+        if (this.separator == 0) {
+            return nextDataPoint(decode(start, end + 1));
+        }
 
-            if (nextDataPointIndex == 0) {
-                split = this.nextBuffer.toString().split(splitString);
-            } else {
-                split = this.nextBuffer.substring(0, nextDataPointIndex).split(splitString);
-                this.nextBuffer.delete(0, nextDataPointIndex);
-            }
-
-            //Parses the timestamp column as either Unix time, Java time, or a human readable timestamp
-            long timestamp = 0;
-            switch (this.dateParserType) {
-                case 1:
-                    //Unix time
-                    timestamp = new Date(Long.parseLong(split[timestampColumnIndex]) * 1000).getTime();
-                    break;
-                case 2:
-                    //Java time
-                    timestamp = new Date(Long.parseLong(split[timestampColumnIndex])).getTime();
-                    break;
-                case 3:
-                    //Human readable timestamp
-                    timestamp = dateParser.parse(split[timestampColumnIndex]).getTime();
-                    break;
+        //The columns are located by scanning the line for the separator without decoding it to a string
+        int timestampStart = -1, timestampEnd = -1, valueStart = -1, valueEnd = -1;
+        int lastColumnIndex = Math.max(this.timestampColumnIndex, this.valueColumnIndex);
+        int columnStart = start;
+        for (int columnIndex = 0; columnIndex <= lastColumnIndex && columnStart <= end; columnIndex++) {
+            int columnEnd = indexOf(this.byteBuffer, columnStart, end, this.separatorPattern, this.separator);
+            columnEnd = columnEnd == -1 ? end : columnEnd;
+            if (columnIndex == this.timestampColumnIndex) {
+                timestampStart = columnStart;
+                timestampEnd = columnEnd;
+            }
+            if (columnIndex == this.valueColumnIndex) {
+                valueStart = columnStart;
+                valueEnd = columnEnd;
             }
+            columnStart = columnEnd + 1;
+        }
+        if (timestampStart == -1 || valueStart == -1) {
+            //The line is decoded and split so a line without the columns fails as it did before it was parsed as bytes
+            return nextDataPoint(decode(start, end + 1));
+        }
+
+        try {
+            long timestamp = parseTimestamp(timestampStart, timestampEnd);
+            float value = parseFloat(valueStart, valueEnd);
+            return new DataPoint(this.tid, timestamp, this.scalingFactor * value);
+        } catch (ParseException pe) {
+            //If the input cannot be parsed the stream is considered empty
+            this.channel.close();
+            throw new java.lang.RuntimeException(pe);
+        }
+    }
+
+    private DataPoint nextDataPoint(String line) throws IOException {
+        try {
+            //The separator is a regular expression so the line is split using it
+            String[] split = line.split(splitString);
+            long timestamp = parseTimestamp(split[timestampColumnIndex]);
             float value = valueParser.parse(split[valueColumnIndex]).floatValue();
             return new DataPoint(this.tid, timestamp, this.scalingFactor * value);
         } catch (ParseException pe) {
@@ -220,4 +406,148 @@ public class TimeSeriesCSV extends TimeSeries {
             throw new java.lang.RuntimeException(pe);
         }
     }
+
+    private long parseTimestamp(int start, int end) throws ParseException {
+        //Parses the timestamp column as either Unix time, Java time, or a human readable timestamp
+        switch (this.dateParserType) {
+            case 1:
+                //Unix time
+                return parseLong(start, end) * 1000;
+            case 2:
+                //Java time
+                return parseLong(start, end);
+            default:
+                //Human readable timestamp
+                return dateParser.parse(decode(start, end)).getTime();
+        }
+    }
+
+    private long parseTimestamp(String column) throws ParseException {
+        //Parses the timestamp column as either Unix time, Java time, or a human readable timestamp
+        switch (this.dateParserType) {
+            case 1:
+                //Unix time
+                return new Date(Long.parseLong(column) * 1000).getTime();
+            case 2:
+                //Java time
+                return new Date(Long.parseLong(column)).getTime();
+            default:
+                //Human readable timestamp
+                return dateParser.parse(column).getTime();
+        }
+    }
+
+    private long parseLong(int start, int end) {
+        //Only integers with at most 18 digits are parsed from the bytes as they cannot overflow a long
+        boolean negative = start < end && this.byteBuffer.get(start) == '-';
+        int digitsStart = negative ? start + 1 : start;
+        if (digitsStart == end || end - digitsStart > 18) {
+            return Long.parseLong(decode(start, end));
+        }
+
+        long result = 0;
+        for (int i = digitsStart; i < end; i++) {
+            int digit = this.byteBuffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(decode(start, end));
+            }
+            result = 10 * result + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    private float parseFloat(int start, int end) throws ParseException {
+        if ( ! this.parseValuesAsBytes) {
+            return this.valueParser.parse(decode(start, end)).floatValue();
+        }
+
+        //Values with at most 15 digits can be parsed exactly from the bytes as the digits are exactly represented by
+        // a double and dividing it by a power of ten is correctly rounded, other values are parsed by NumberFormat
+        boolean negative = start < end && this.byteBuffer.get(start) == '-';
+        int digitsStart = negative ? start + 1 : start;
+        long digits = 0;
+        int digitCount = 0;
+        int decimalSeparator = -1;
+        for (int i = digitsStart; i < end; i++) {
+            byte b = this.byteBuffer.get(i);
+            int digit = b - '0';
+            if (digit >= 0 && digit <= 9) {
+                digits = 10 * digits + digit;
+                digitCount++;
+            } else if (b == '.' && decimalSeparator == -1) {
+                decimalSeparator = i;
+            } else {
+                return this.valueParser.parse(decode(start, end)).floatValue();
+            }
+        }
+        if (digitCount == 0 || digitCount > 15) {
+            return this.valueParser.parse(decode(start, end)).floatValue();
+        }
+        double value = decimalSeparator == -1 ? digits : digits / POWERS_OF_TEN[end - decimalSeparator - 1];
+        return (float) (negative ? -value : value);
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (this.decodeBuffer.length < length) {
+            this.decodeBuffer = new byte[Math.max(length, 2 * this.decodeBuffer.length)];
+        }
+        //An absolute bulk get is not available before JDK 13, so a duplicate is positioned at the start of the bytes
+        ByteBuffer bytes = this.byteBuffer.duplicate();
+        bytes.position(start);
+        bytes.get(this.decodeBuffer, 0, length);
+        return new String(this.decodeBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void skip(InputStream is, long bytes) throws IOException {
+        //InputStream.skip may skip fewer bytes than requested so it is called until all of the bytes are skipped
+        long skipped = 0;
+        while (skipped < bytes) {
+            long skippedNow = is.skip(bytes - skipped);
+            if (skippedNow <= 0) {
+                if (is.read() == -1) {
+                    throw new IllegalArgumentException("CORE: " + this.source + " is shorter than the position " + bytes);
+                }
+                skippedNow = 1;
+            }
+            skipped += skippedNow;
+        }
+    }
+
+    private static byte toSeparator(String splitString) {
+        //The separator is a regular expression, so only a single ASCII character that matches itself, possibly
+        // escaped, is used to scan the bytes while all other separators are used to split the decoded line
+        String metaCharacters = "\\^$.|?*+()[]{}";
+        char separator;
+        if (splitString.length() == 1 && metaCharacters.indexOf(splitString.charAt(0)) == -1) {
+            separator = splitString.charAt(0);
+        } else if (splitString.length() == 2 && splitString.charAt(0) == '\\'
+                && metaCharacters.indexOf(splitString.charAt(1)) != -1) {
+            separator = splitString.charAt(1);
+        } else if (splitString.equals("\\t")) {
+            separator = '\t';
+        } else {
+            return 0;
+        }
+        return separator > 0 && separator < 0x80 && separator != '\n' ? (byte) separator : 0;
+    }
+
+    static int indexOf(ByteBuffer buffer, int from, int to, long pattern, byte b) {
+        //Eight bytes are compared at a time by XORing them with the pattern, so a matching byte becomes zero and the
+        // lowest zero byte is found by subtracting one from each byte and keeping the borrows that set the high bits
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = buffer.getLong(i) ^ pattern;
+            long zeros = (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+            if (zeros != 0) {
+                return i + (Long.numberOfTrailingZeros(zeros) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,100 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries;
+
+import dk.aau.modelardb.core.DataPoint;
+
+import java.util.NoSuchElementException;
+
+public class TimeSeriesCSVColumn extends TimeSeries implements BatchTimeSeries {
+
+    /**
+     * Instance Variables
+     **/
+    public final WideCSVReader reader;
+    public final int valueColumnIndex;
+    private final int slot;
+    private long row;
+
+    /**
+     * Public Methods
+     **/
+    public TimeSeriesCSVColumn(String source, int tid, int samplingInterval, WideCSVReader reader, int valueColumnIndex) {
+        super(source.substring(source.lastIndexOf('/') + 1), tid, samplingInterval);
+        this.reader = reader;
+        this.valueColumnIndex = valueColumnIndex;
+        this.slot = reader.register(this);
+    }
+
+    public void open() {
+        this.row = 0;
+        this.reader.open(getResumePosition());
+    }
+
+    public boolean hasNext() {
+        //Every row is returned and rows without a value in this column are returned as NaN, so the columns are read
+        // at the same pace and the rows are only kept until the time series that are split from the others read them
+        if (this.row == Long.MAX_VALUE) {
+            return false;
+        }
+        if ( ! this.reader.hasRow(this.row)) {
+            this.row = Long.MAX_VALUE;
+            return false;
+        }
+        return true;
+    }
+
+    public DataPoint next() {
+        if ( ! hasNext()) {
+            throw new NoSuchElementException("CORE: " + this.source + " contains no more data points");
+        }
+        DataPoint dataPoint = new DataPoint(this.tid, this.reader.getTimestamp(this.row),
+                this.reader.getValue(this.slot, this.row));
+        this.row++;
+        return dataPoint;
+    }
+
+    public int nextBatch(long[] timestamps, float[] values) {
+        int count = 0;
+        while (count < timestamps.length && hasNext()) {
+            timestamps[count] = this.reader.getTimestamp(this.row);
+            values[count] = this.reader.getValue(this.slot, this.row);
+            this.row++;
+            count++;
+        }
+        return count;
+    }
+
+    public long getPosition() {
+        return this.reader.getPosition();
+    }
+
+    public String toString() {
+        return "Time Series: [" + this.tid + " | " + this.source + " | " + this.samplingInterval + "]";
+    }
+
+    public void close() {
+        //The row is set after the last row so the rows are not kept for a closed time series
+        this.row = Long.MAX_VALUE;
+        this.reader.close();
+    }
+
+    /**
+     * Package Methods
+     **/
+    long getRow() {
+        return this.row;
+    }
+}
@@ -26,7 +26,7 @@ import org.apache.orc.RecordReader;
 
 import java.io.IOException;
 
-public class TimeSeriesORC extends TimeSeries {
+public class TimeSeriesORC extends TimeSeries implements BatchTimeSeries {
     /**
      * Instance Variables
      **/
@@ -34,6 +34,7 @@ public class TimeSeriesORC extends TimeSeries {
     private final int timestampColumnIndex;
     private final int valueColumnIndex;
     private int rowIndex;
+    private long position;
     private Reader reader;
     private RecordReader recordReader;
     private VectorizedRowBatch rowBatch;
@@ -64,6 +65,19 @@ public class TimeSeriesORC extends TimeSeries {
             include[this.valueColumnIndex + 1] = true;
             this.recordReader = this.reader.rows(this.reader.options().include(include));
             this.rowBatch = this.reader.getSchema().createRowBatch();
+
+            //The position is the index of the next row, so the rows before it are skipped using the row indexes
+            long resumePosition = getResumePosition();
+            if (this.reader.getNumberOfRows() < resumePosition) {
+                throw new IllegalArgumentException("CORE: " + this.source + " is shorter than the position " + resumePosition);
+            }
+            if (resumePosition > 0) {
+                //ORC cannot seek to the end of a file so the row before the position is read and skipped instead
+                this.recordReader.seekToRow(resumePosition - 1);
+                hasNext();
+                this.rowIndex = 1;
+            }
+            this.position = resumePosition;
         } catch (IOException ioe) {
             close();
             throw new java.lang.RuntimeException(ioe);
@@ -71,12 +85,37 @@ public class TimeSeriesORC extends TimeSeries {
     }
 
     public DataPoint next() {
-        long timestamp = this.timestampColumn.asScratchTimestamp(this.rowIndex).getTime();
-        float value = (float) this.valueColumn.vector[this.rowIndex];
+        long timestamp = this.timestampColumn.getTime(this.timestampColumn.isRepeating ? 0 : this.rowIndex);
+        float value = (float) this.valueColumn.vector[this.valueColumn.isRepeating ? 0 : this.rowIndex];
         this.rowIndex++;
+        this.position++;
         return new DataPoint(this.tid, timestamp, this.scalingFactor * value);
     }
 
+    @Override
+    public int nextBatch(long[] timestamps, float[] values) {
+        if ( ! hasNext()) {
+            return 0;
+        }
+
+        //The data points are copied from the column vectors, which only store the first value if all are the same
+        int count = Math.min(timestamps.length, this.rowBatch.size - this.rowIndex);
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = this.timestampColumn.getTime(this.timestampColumn.isRepeating ? 0 : this.rowIndex + i);
+        }
+        if (this.valueColumn.isRepeating) {
+            java.util.Arrays.fill(values, 0, count, this.scalingFactor * (float) this.valueColumn.vector[0]);
+        } else {
+            double[] vector = this.valueColumn.vector;
+            for (int i = 0; i < count; i++) {
+                values[i] = this.scalingFactor * (float) vector[this.rowIndex + i];
+            }
+        }
+        this.rowIndex += count;
+        this.position += count;
+        return count;
+    }
+
     public boolean hasNext() {
         try {
             if (this.rowIndex != this.rowBatch.size && this.rowBatch.size != 0) {
@@ -97,6 +136,10 @@ public class TimeSeriesORC extends TimeSeries {
         }
     }
 
+    public long getPosition() {
+        return this.position;
+    }
+
     public String toString() {
         return "Time Series: [" + this.tid + " | " + this.source + " | " + this.samplingInterval + "]";
     }
@@ -18,20 +18,20 @@ import dk.aau.modelardb.core.DataPoint;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
 import org.apache.parquet.column.page.PageReadStore;
-import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
-import org.apache.parquet.io.ColumnIOFactory;
 import org.apache.parquet.io.InputFile;
-import org.apache.parquet.io.MessageColumnIO;
-import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.api.GroupConverter;
 import org.apache.parquet.schema.MessageType;
 
 import java.io.IOException;
 
-public class TimeSeriesParquet extends TimeSeries {
+public class TimeSeriesParquet extends TimeSeries implements BatchTimeSeries {
     /**
      * Instance Variables
      **/
@@ -40,9 +40,13 @@ public class TimeSeriesParquet extends TimeSeries {
     private final int valueColumnIndex;
     private int rowIndex;
     private long rowCount;
+    private long position;
+    private long rowsToSkip;
     private ParquetFileReader fileReader;
     private MessageType schema;
-    private RecordReader<Group> recordReader;
+    private String createdBy;
+    private ColumnReader timestampReader;
+    private ColumnReader valueReader;
     /**
      * Public Methods
      **/
@@ -64,12 +68,30 @@ public class TimeSeriesParquet extends TimeSeries {
             MessageType schema = this.fileReader.getFooter().getFileMetaData().getSchema();
             this.schema = new MessageType("schema",
                     schema.getFields().get(this.timestampColumnIndex), schema.getFields().get(this.valueColumnIndex));
+            this.fileReader.setRequestedSchema(this.schema);
+            this.createdBy = this.fileReader.getFooter().getFileMetaData().getCreatedBy();
 
             //next() assumes timestamps are stored as int64 with the TIMESTAMP_MICROS logical type annotation
             String[] typeComponents = schema.getColumns().get(this.timestampColumnIndex).getPrimitiveType().toString().split(" ");
             if (!typeComponents[1].equals("int64") || !typeComponents[3].equals("(TIMESTAMP_MICROS)")) {
                 throw new UnsupportedOperationException("CORE: Parquet files must store timestamps as int64 (TIMESTAMP_MICROS)");
             }
+
+            //The position is the index of the next row, so the row groups before it are skipped without being read
+            // and the rows before it in its row group are skipped when the row group is read
+            long resumePosition = getResumePosition();
+            if (this.fileReader.getRecordCount() < resumePosition) {
+                throw new IllegalArgumentException("CORE: " + this.source + " is shorter than the position " + resumePosition);
+            }
+            this.rowsToSkip = resumePosition;
+            for (BlockMetaData rowGroup : this.fileReader.getRowGroups()) {
+                if (this.rowsToSkip < rowGroup.getRowCount()) {
+                    break;
+                }
+                this.fileReader.skipNextRowGroup();
+                this.rowsToSkip -= rowGroup.getRowCount();
+            }
+            this.position = resumePosition;
         } catch (IOException ioe) {
             close();
             throw new RuntimeException(ioe);
@@ -77,26 +99,54 @@ public class TimeSeriesParquet extends TimeSeries {
     }
 
     public DataPoint next() {
-        Group rowGroup = this.recordReader.read();
-        long timestamp = rowGroup.getLong(0, 0) / 1000;
-        float value = rowGroup.getFloat(1, 0);
+        long timestamp = nextTimestamp();
+        float value = nextValue();
         this.rowIndex++;
+        this.position++;
         return new DataPoint(this.tid, timestamp, this.scalingFactor * value);
     }
 
+    @Override
+    public int nextBatch(long[] timestamps, float[] values) {
+        if ( ! hasNext()) {
+            return 0;
+        }
+
+        //The data points are read directly from the column readers of the row group without assembling records
+        int count = (int) Math.min(timestamps.length, this.rowCount - this.rowIndex);
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = nextTimestamp();
+        }
+        for (int i = 0; i < count; i++) {
+            values[i] = this.scalingFactor * nextValue();
+        }
+        this.rowIndex += count;
+        this.position += count;
+        return count;
+    }
+
     public boolean hasNext() {
         try {
             if (this.rowIndex != this.rowCount && this.rowCount != 0) {
                 return true;
             }
 
+            //Only the two columns are read from each row group and they are read as columns instead of as records
             PageReadStore readStore = this.fileReader.readNextRowGroup();
             if (readStore != null) {
-                GroupRecordConverter grc = new GroupRecordConverter(this.schema);
-                MessageColumnIO columnIO = new ColumnIOFactory().getColumnIO(this.schema);
-                this.recordReader = columnIO.getRecordReader(readStore, grc);
+                GroupConverter converter = new GroupRecordConverter(this.schema).getRootConverter();
+                ColumnReadStoreImpl columnReadStore = new ColumnReadStoreImpl(readStore, converter, this.schema, this.createdBy);
+                this.timestampReader = columnReadStore.getColumnReader(this.schema.getColumns().get(0));
+                this.valueReader = columnReadStore.getColumnReader(this.schema.getColumns().get(1));
                 this.rowIndex = 0;
                 this.rowCount = readStore.getRowCount();
+                for (; this.rowsToSkip > 0; this.rowsToSkip--) {
+                    this.timestampReader.skip();
+                    this.timestampReader.consume();
+                    this.valueReader.skip();
+                    this.valueReader.consume();
+                    this.rowIndex++;
+                }
                 return true;
             } else {
                 return false;
@@ -107,6 +157,28 @@ public class TimeSeriesParquet extends TimeSeries {
         }
     }
 
+    private long nextTimestamp() {
+        if (this.timestampReader.getCurrentDefinitionLevel() != this.timestampReader.getDescriptor().getMaxDefinitionLevel()) {
+            throw new UnsupportedOperationException("CORE: " + this.source + " contains a row without a timestamp");
+        }
+        long timestamp = this.timestampReader.getLong() / 1000;
+        this.timestampReader.consume();
+        return timestamp;
+    }
+
+    private float nextValue() {
+        if (this.valueReader.getCurrentDefinitionLevel() != this.valueReader.getDescriptor().getMaxDefinitionLevel()) {
+            throw new UnsupportedOperationException("CORE: " + this.source + " contains a row without a value");
+        }
+        float value = this.valueReader.getFloat();
+        this.valueReader.consume();
+        return value;
+    }
+
+    public long getPosition() {
+        return this.position;
+    }
+
     public String toString() {
         return "Time Series: [" + this.tid + " | " + this.source + " | " + this.samplingInterval + "]";
     }
@@ -0,0 +1,175 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//Reads each row of a CSV file with a value column per time series once and stores the rows until all of the time series
+// have read them, so the columns are only parsed once no matter how many time series are read from the file. An empty
+// cell is returned as NaN so a time series is in a gap for that row. The time series must all be ingested by the same
+// thread, so they are always placed in the same group by the Partitioner
+public class WideCSVReader implements Serializable {
+
+    /**
+     * Instance Variables
+     **/
+    public final String path;
+    private final int timestampColumnIndex;
+    private final TimeSeriesCSV reader;
+    private final ArrayList<TimeSeriesCSVColumn> columns;
+    private int[] columnSlots;
+    private long[] timestamps;
+    private float[] values;
+    private boolean[] hasValues;
+    private long firstRow;
+    private int rows;
+    private int opened;
+
+    /**
+     * Constructors
+     **/
+    public WideCSVReader(String path, String splitString, boolean hasHeader, int timestampColumnIndex,
+                         String dateFormat, String timeZone, String localeString, int mappedWindowSize) {
+        this.path = path;
+        this.timestampColumnIndex = timestampColumnIndex;
+        this.reader = new TimeSeriesCSV(path, 0, 0, splitString, hasHeader, timestampColumnIndex, dateFormat,
+                timeZone, timestampColumnIndex, localeString, mappedWindowSize);
+        this.columns = new ArrayList<>();
+    }
+
+    /**
+     * Public Methods
+     **/
+    public int size() {
+        return this.columns.size();
+    }
+
+    /**
+     * Package Methods
+     **/
+    int register(TimeSeriesCSVColumn column) {
+        if (this.opened > 0) {
+            throw new IllegalStateException("CORE: columns cannot be added to " + this.path + " after it is opened");
+        }
+        this.columns.add(column);
+        return this.columns.size() - 1;
+    }
+
+    void open(long resumePosition) {
+        //The file is opened when the first time series is opened and all of them are resumed from the same position
+        this.opened++;
+        if (this.opened > 1) {
+            return;
+        }
+
+        int lastColumnIndex = this.timestampColumnIndex;
+        for (TimeSeriesCSVColumn column : this.columns) {
+            lastColumnIndex = Math.max(lastColumnIndex, column.valueColumnIndex);
+        }
+        this.columnSlots = new int[lastColumnIndex + 1];
+        Arrays.fill(this.columnSlots, -1);
+        for (int slot = 0; slot < this.columns.size(); slot++) {
+            int valueColumnIndex = this.columns.get(slot).valueColumnIndex;
+            if (this.columnSlots[valueColumnIndex] != -1) {
+                throw new IllegalArgumentException("CORE: column " + valueColumnIndex + " in " + this.path + " is read by multiple time series");
+            }
+            this.columnSlots[valueColumnIndex] = slot;
+        }
+
+        int capacity = 1024;
+        this.timestamps = new long[capacity];
+        this.values = new float[capacity * this.columns.size()];
+        this.hasValues = new boolean[capacity * this.columns.size()];
+        this.firstRow = 0;
+        this.rows = 0;
+        this.reader.resumeAt(resumePosition);
+        this.reader.open();
+    }
+
+    boolean hasRow(long row) {
+        return row < this.firstRow + this.rows || readRow();
+    }
+
+    long getTimestamp(long row) {
+        return this.timestamps[(int) (row - this.firstRow)];
+    }
+
+    float getValue(int slot, long row) {
+        int index = (int) (row - this.firstRow) * this.columns.size() + slot;
+        return this.hasValues[index] ? this.values[index] : Float.NaN;
+    }
+
+    long getPosition() {
+        return this.reader.getPosition();
+    }
+
+    int getCapacity() {
+        return this.timestamps.length;
+    }
+
+    void close() {
+        //The file is closed when the last time series is closed
+        if (this.opened == 0) {
+            return;
+        }
+        this.opened--;
+        if (this.opened == 0) {
+            this.reader.close();
+            this.timestamps = null;
+            this.values = null;
+            this.hasValues = null;
+        }
+    }
+
+    /**
+     * Private Methods
+     **/
+    private boolean readRow() {
+        if ( ! this.reader.hasNext()) {
+            return false;
+        }
+
+        //The rows read by all of the time series are removed, and the buffer is doubled if a time series still
+        // needs the first row, e.g., as the group has been split and the other groups are ahead of it
+        int width = this.columns.size();
+        if (this.rows == this.timestamps.length) {
+            long minimumRow = this.firstRow + this.rows;
+            for (TimeSeriesCSVColumn column : this.columns) {
+                minimumRow = Math.min(minimumRow, column.getRow());
+            }
+            int read = (int) (minimumRow - this.firstRow);
+            if (read == 0) {
+                this.timestamps = Arrays.copyOf(this.timestamps, 2 * this.timestamps.length);
+                this.values = Arrays.copyOf(this.values, 2 * this.values.length);
+                this.hasValues = Arrays.copyOf(this.hasValues, 2 * this.hasValues.length);
+            } else {
+                System.arraycopy(this.timestamps, read, this.timestamps, 0, this.rows - read);
+                System.arraycopy(this.values, read * width, this.values, 0, (this.rows - read) * width);
+                System.arraycopy(this.hasValues, read * width, this.hasValues, 0, (this.rows - read) * width);
+                this.firstRow += read;
+                this.rows -= read;
+            }
+        }
+
+        //The slots are cleared first as a line may not contain all of the columns
+        int offset = this.rows * width;
+        Arrays.fill(this.hasValues, offset, offset + width, false);
+        this.timestamps[this.rows] = this.reader.nextRow(this.columnSlots, this.values, this.hasValues, offset);
+        this.rows++;
+        return true;
+    }
+}
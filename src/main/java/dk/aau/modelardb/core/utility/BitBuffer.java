@@ -14,9 +14,11 @@
  */
 
 //This class is intended to store single bits and must be used only for reading
-// or writing, not both concurrently. The implementation of this buffer is based
-// on code published by Michael Burman under the Apache2 license.
-// LINK: https://github.com/burmanm/gorilla-tsc
+// or writing, not both concurrently. Bits are written to and read from a 64-bit
+// accumulator that is stored or loaded as a word when it is full or empty, so
+// multiple bits can be written and read at once instead of one byte at a time.
+// The implementation of this buffer is based on code published by Michael
+// Burman under the Apache2 license. LINK: https://github.com/burmanm/gorilla-tsc
 package dk.aau.modelardb.core.utility;
 
 import java.nio.ByteBuffer;
@@ -27,142 +29,140 @@ public class BitBuffer {
     /**
      * Instance Variables
      **/
-    private int bitsLeft;
-    private byte currentByte;
     private ByteBuffer byteBuffer;
+    private long accumulator;
+    private int bitsLeft;
+    private long bitIndex;
 
     /**
      * Constructors
      **/
     public BitBuffer(int size) {
-        this.byteBuffer = ByteBuffer.allocate(size);
-        this.currentByte = this.byteBuffer.get(this.byteBuffer.position());
-        this.bitsLeft = Byte.SIZE;
+        //The buffer always has room for a word so the accumulator can be stored without checking the capacity
+        this.byteBuffer = ByteBuffer.allocate(Math.max(size, Long.BYTES));
+        this.accumulator = 0L;
+        this.bitsLeft = Long.SIZE;
     }
 
     public BitBuffer(byte[] in) {
         this.byteBuffer = ByteBuffer.wrap(in);
-        readNextByte();
+        this.accumulator = 0L;
+        this.bitsLeft = 0;
+        this.bitIndex = 0L;
     }
 
     /**
      * Public Methods
      **/
     public void writeBit(boolean bit) {
+        this.bitsLeft--;
         if (bit) {
-            this.currentByte |= (1 << (this.bitsLeft - 1));
+            this.accumulator |= 1L << this.bitsLeft;
         }
-        this.bitsLeft--;
 
-        //If we reached the last bit a new byte is allocated
+        //If we reached the last bit the accumulator is stored
         if (this.bitsLeft == 0) {
-            allocateNewByte();
+            storeAccumulator(0L, Long.SIZE);
         }
     }
 
-    public void writeBits(int value, int bits) {
-        while (bits > 0) {
-            int bitsToWrite;
-            if (bits > this.bitsLeft) {
-                bitsToWrite = this.bitsLeft;
-                int shift = bits - this.bitsLeft;
-                this.currentByte |= (byte) ((value >> shift) & ((1 << this.bitsLeft) - 1));
-            } else {
-                bitsToWrite = bits;
-                int shift = this.bitsLeft - bits;
-                this.currentByte |= (byte) (value << shift);
-            }
-            bits -= bitsToWrite;
-            this.bitsLeft -= bitsToWrite;
+    public void writeBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
 
-            //If we reached the last bit a new byte is allocated
-            if (this.bitsLeft == 0) {
-                allocateNewByte();
-            }
+        //Only the least significant bits of value are written
+        value &= -1L >>> (Long.SIZE - bits);
+        if (bits < this.bitsLeft) {
+            this.bitsLeft -= bits;
+            this.accumulator |= value << this.bitsLeft;
+        } else {
+            //The bits that do not fit in the accumulator are moved to the next accumulator
+            int remainingBits = bits - this.bitsLeft;
+            this.accumulator |= value >>> remainingBits;
+            storeAccumulator(remainingBits == 0 ? 0L : value << (Long.SIZE - remainingBits), Long.SIZE - remainingBits);
         }
     }
 
     public boolean readBit() {
-        boolean bit = ((this.currentByte >> (this.bitsLeft - 1)) & 1) == 1;
-        this.bitsLeft--;
-
-        //If we reached the last bit the next byte is read
-        if (this.bitsLeft == 0 && this.byteBuffer.hasRemaining()) {
-            readNextByte();
+        if (this.bitsLeft == 0) {
+            readNextWord();
         }
+        boolean bit = this.accumulator < 0;
+        this.accumulator <<= 1;
+        this.bitsLeft--;
+        this.bitIndex++;
         return bit;
     }
 
-    public int getInt(int bits) {
-        int value = 0;
-        while (bits > 0) {
-            if (bits > this.bitsLeft || bits == Byte.SIZE) {
-                //Reads only the bitsLeft least significant bits
-                byte d = (byte) (this.currentByte & ((1 << this.bitsLeft) - 1));
-                value = (value << this.bitsLeft) + (d & 0xFF);
-                bits -= this.bitsLeft;
-                this.bitsLeft = 0;
-            } else {
-                //Shifts to correct position and read only least significant bits
-                byte d = (byte) ((this.currentByte >>> (this.bitsLeft - bits)) & ((1 << bits) - 1));
-                value = (value << bits) + (d & 0xFF);
-                this.bitsLeft -= bits;
-                bits = 0;
-            }
+    public long readBits(int bits) {
+        if (bits == 0) {
+            return 0L;
+        }
 
-            //The current byte has been exhausted and we move to the next
-            if (this.bitsLeft == 0 && this.byteBuffer.hasRemaining()) {
-                readNextByte();
-            }
+        //A word contains at least 57 bits after the next bit, so values with more bits are read using two words
+        if (bits > Long.SIZE - Byte.SIZE + 1) {
+            long high = readBits(bits - Integer.SIZE);
+            return (high << Integer.SIZE) | readBits(Integer.SIZE);
+        }
+
+        if (bits > this.bitsLeft) {
+            readNextWord();
         }
+        long value = this.accumulator >>> (Long.SIZE - bits);
+        this.accumulator <<= bits;
+        this.bitsLeft -= bits;
+        this.bitIndex += bits;
         return value;
     }
 
     public byte[] array() {
-        byte[] result;
-
-        if (Byte.SIZE != this.bitsLeft) {
-            int resultSize = this.byteBuffer.position() + 1;
-            result = Arrays.copyOf(this.byteBuffer.array(), resultSize);
-            result[resultSize - 1] = this.currentByte;
-        } else {
-            result = Arrays.copyOf(this.byteBuffer.array(), this.byteBuffer.position());
-        }
-        return result;
+        //The accumulator is stored without being cleared as the buffer always has room for a word
+        int position = this.byteBuffer.position();
+        this.byteBuffer.putLong(position, this.accumulator);
+        return Arrays.copyOf(this.byteBuffer.array(), size());
     }
 
     public int size() {
-        if (Byte.SIZE != this.bitsLeft) {
-            return this.byteBuffer.position() + 1;
-        } else {
-            return this.byteBuffer.position();
-        }
+        return this.byteBuffer.position() + (Long.SIZE - this.bitsLeft + Byte.SIZE - 1) / Byte.SIZE;
     }
 
     /**
      * Private Methods
      **/
-    private void allocateNewByte() {
-        this.byteBuffer.put(this.currentByte);
-        if (!this.byteBuffer.hasRemaining()) {
+    private void storeAccumulator(long accumulator, int bitsLeft) {
+        this.byteBuffer.putLong(this.accumulator);
+        if (this.byteBuffer.remaining() < Long.BYTES) {
             expandAllocation();
         }
-        this.currentByte = this.byteBuffer.get(this.byteBuffer.position());
-        bitsLeft = Byte.SIZE;
+        this.accumulator = accumulator;
+        this.bitsLeft = bitsLeft;
     }
 
-    private void readNextByte() {
-        this.currentByte = this.byteBuffer.get();
-        this.bitsLeft = Byte.SIZE;
+    private void readNextWord() {
+        //The word starts at the byte containing the next bit, and the last bytes are padded with zeros if necessary
+        int index = (int) (this.bitIndex >>> 3);
+        int limit = this.byteBuffer.limit();
+        long word = 0L;
+        if (index + Long.BYTES <= limit) {
+            word = this.byteBuffer.getLong(index);
+        } else {
+            for (int i = 0; i < Long.BYTES; i++) {
+                word <<= Byte.SIZE;
+                if (index + i < limit) {
+                    word |= this.byteBuffer.get(index + i) & 0xFF;
+                }
+            }
+        }
+        int bitOffset = (int) (this.bitIndex & 7);
+        this.accumulator = word << bitOffset;
+        this.bitsLeft = Long.SIZE - bitOffset;
     }
 
     private void expandAllocation() {
-        ByteBuffer expandedByteBuffer =
-                ByteBuffer.allocate(this.byteBuffer.capacity() * 2);
-
+        ByteBuffer expandedByteBuffer = ByteBuffer.allocate(this.byteBuffer.capacity() * 2);
         this.byteBuffer.flip();
         expandedByteBuffer.put(this.byteBuffer);
-        expandedByteBuffer.position(this.byteBuffer.capacity());
         this.byteBuffer = expandedByteBuffer;
     }
 }
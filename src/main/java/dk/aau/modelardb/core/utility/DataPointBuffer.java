@@ -0,0 +1,173 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+//This class buffers data points for a group of time series in primitive arrays
+// without allocating an object per data point. The timestamps are stored in a
+// ring, the values are stored in a plane with the values of each timestamp next
+// to each other, and the time series currently in a gap are tracked in a bitmap.
+// As all data points in the buffer must be for the same set of time series, gaps
+// can only change when it is empty so the number of values per row is fixed.
+package dk.aau.modelardb.core.utility;
+
+import java.util.BitSet;
+
+public class DataPointBuffer {
+
+    /**
+     * Instance Variables
+     **/
+    private final int[] tids;
+    private final BitSet gaps;
+    private int[] columns;
+    private long[] timestamps;
+    private float[] values;
+    private int width;
+    private int mask;
+    private int head;
+    private int size;
+
+    /**
+     * Constructors
+     **/
+    public DataPointBuffer(int[] tids, int capacity) {
+        //The capacity of the ring is a power of two so the index of a row can be computed with a mask
+        int ringCapacity = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1);
+        this.tids = tids;
+        this.gaps = new BitSet(tids.length);
+        this.timestamps = new long[ringCapacity];
+        this.values = new float[tids.length * ringCapacity];
+        this.mask = ringCapacity - 1;
+        this.head = 0;
+        this.size = 0;
+        updateColumns();
+    }
+
+    /**
+     * Public Methods
+     **/
+    public void append(long timestamp, float[] values) {
+        //The values are indexed by the time series' index in the group so values for time series in a gap are ignored
+        if (this.size == this.timestamps.length) {
+            expandAllocation();
+        }
+        int index = (this.head + this.size) & this.mask;
+        this.timestamps[index] = timestamp;
+        int offset = index * this.width;
+        for (int column = 0; column < this.width; column++) {
+            this.values[offset + column] = values[this.columns[column]];
+        }
+        this.size++;
+    }
+
+    public long getTimestamp(int row) {
+        return this.timestamps[(this.head + row) & this.mask];
+    }
+
+    public float getValue(int row, int column) {
+        return this.values[((this.head + row) & this.mask) * this.width + column];
+    }
+
+    public float[] getValues() {
+        //The values of a row are stored from getOffset(row) to getOffset(row) + width() so they can be processed at once
+        return this.values;
+    }
+
+    public int getOffset(int row) {
+        return ((this.head + row) & this.mask) * this.width;
+    }
+
+    public int getTid(int column) {
+        return this.tids[this.columns[column]];
+    }
+
+    public boolean isGap(int timeSeries) {
+        return this.gaps.get(timeSeries);
+    }
+
+    public void setGap(int timeSeries, boolean isGap) {
+        if (this.gaps.get(timeSeries) == isGap) {
+            return;
+        }
+
+        //The buffered data points would be assigned to the wrong time series if the columns change while buffered
+        if (this.size != 0) {
+            throw new UnsupportedOperationException("CORE: gaps can only be changed when the buffer is empty");
+        }
+        this.gaps.set(timeSeries, isGap);
+        updateColumns();
+    }
+
+    public void removeFirst(int rows) {
+        this.head = (this.head + rows) & this.mask;
+        this.size -= rows;
+    }
+
+    public void removeLast(int rows) {
+        this.size -= rows;
+    }
+
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int width() {
+        return this.width;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Private Methods
+     **/
+    private void updateColumns() {
+        //The columns are the indexes of the time series in the group that currently are not in a gap
+        int[] columns = new int[this.tids.length - this.gaps.cardinality()];
+        for (int i = 0, j = 0; i < this.tids.length; i++) {
+            if (!this.gaps.get(i)) {
+                columns[j] = i;
+                j++;
+            }
+        }
+        this.columns = columns;
+        this.width = columns.length;
+    }
+
+    private void expandAllocation() {
+        //The rows are copied so the first row is at the start of the expanded ring, the plane is allocated for all time
+        // series in the group so it does not have to be reallocated when a gap ends and the number of values per row grows
+        int capacity = this.timestamps.length;
+        long[] timestamps = new long[2 * capacity];
+        copyRing(this.timestamps, timestamps, capacity, 1);
+        this.timestamps = timestamps;
+        float[] values = new float[2 * capacity * this.tids.length];
+        copyRing(this.values, values, capacity, this.width);
+        this.values = values;
+        this.mask = 2 * capacity - 1;
+        this.head = 0;
+    }
+
+    private void copyRing(Object from, Object to, int capacity, int width) {
+        int firstPart = (capacity - this.head) * width;
+        System.arraycopy(from, this.head * width, to, 0, firstPart);
+        System.arraycopy(from, 0, to, firstPart, this.head * width);
+    }
+}
@@ -14,9 +14,9 @@
  */
 package dk.aau.modelardb.core.utility;
 
-import dk.aau.modelardb.core.DataPoint;
 import dk.aau.modelardb.core.TimeSeriesGroup;
 import dk.aau.modelardb.core.models.ModelType;
+import dk.aau.modelardb.core.timeseries.TimeSeries;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -70,18 +70,18 @@ public class Logger implements Serializable {
         return java.time.Duration.ofMillis(this.processingTime - oldTime).toString();
     }
 
-    public void pauseAndPrint(DataPoint[] dataPoints) {
+    public void pauseAndPrint(TimeSeriesGroup tsg) {
         try {
-            print(dataPoints);
+            print(tsg);
             System.in.read();
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
     }
 
-    public void sleepAndPrint(DataPoint[] dataPoints, long sleepTime) {
+    public void sleepAndPrint(TimeSeriesGroup tsg, long sleepTime) {
         try {
-            print(dataPoints);
+            print(tsg);
             Thread.sleep(sleepTime);
         } catch (InterruptedException ie) {
             throw new RuntimeException(ie);
@@ -173,9 +173,13 @@ public class Logger implements Serializable {
                 sizeInBytes / 1024.0F / 1024.0F);
     }
 
-    private void print(DataPoint[] dataPoints) {
-        for (DataPoint dp : dataPoints) {
-            System.out.println(dp);
+    private void print(TimeSeriesGroup tsg) {
+        //The current values are printed in the same format as DataPoint.toString() with NaN for gaps
+        TimeSeries[] timeSeries = tsg.getTimeSeries();
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(tsg.getTimestamp());
+        for (int i = 0; i < timeSeries.length; i++) {
+            float value = tsg.isGap(i) ? Float.NaN : tsg.getValue(i);
+            System.out.println("DataPoint: [" + timeSeries[i].tid + " | " + timestamp + " | " + value + "]");
         }
         System.out.println("------------------------------------------");
     }
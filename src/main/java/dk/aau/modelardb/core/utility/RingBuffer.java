@@ -0,0 +1,115 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//A bounded lock-free queue for exactly one producer thread and one consumer thread. The producer only writes the tail
+// and the consumer only writes the head, so the positions are published with ordered stores instead of CAS operations
+public class RingBuffer<E> {
+
+    /**
+     * Instance Variables
+     **/
+    private final Object[] elements;
+    private final int mask;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+    private volatile boolean closed;
+
+    //The positions last read from the other thread are cached so the shared positions are only read when needed
+    private long producerCachedHead;
+    private long consumerCachedTail;
+
+    /**
+     * Constructors
+     **/
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("CORE: the capacity of a ring buffer must be a positive integer");
+        }
+        //The capacity is rounded up to a power of two so the index of a position can be computed using a mask
+        int powerOfTwo = Integer.highestOneBit(capacity);
+        this.elements = new Object[powerOfTwo == capacity ? capacity : powerOfTwo << 1];
+        this.mask = this.elements.length - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Public Methods
+     **/
+    public boolean offer(E element) {
+        long tail = this.tail.get();
+        if (tail - this.producerCachedHead == this.elements.length) {
+            this.producerCachedHead = this.head.get();
+            if (tail - this.producerCachedHead == this.elements.length) {
+                return false;
+            }
+        }
+        this.elements[(int) tail & this.mask] = element;
+        this.tail.lazySet(tail + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long head = this.head.get();
+        if (head == this.consumerCachedTail) {
+            this.consumerCachedTail = this.tail.get();
+            if (head == this.consumerCachedTail) {
+                return null;
+            }
+        }
+        int index = (int) head & this.mask;
+        E element = (E) this.elements[index];
+        this.elements[index] = null;
+        this.head.lazySet(head + 1);
+        return element;
+    }
+
+    public void close() {
+        //Called by the producer after its last element has been offered
+        this.closed = true;
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    public boolean isEmpty() {
+        return this.head.get() == this.tail.get();
+    }
+
+    public int size() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    public int capacity() {
+        return this.elements.length;
+    }
+
+    public static void idle(int attempt) {
+        //A thread waiting for a ring buffer spins briefly, then yields, and then parks so idle stages use little CPU
+        if (attempt < 64) {
+            Thread.onSpinWait();
+        } else if (attempt < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000L);
+        }
+    }
+}
@@ -14,9 +14,9 @@
  */
 package dk.aau.modelardb.core.utility;
 
-import dk.aau.modelardb.core.DataPoint;
 import dk.aau.modelardb.core.timeseries.TimeSeries;
 
+import java.lang.reflect.Field;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
@@ -24,9 +24,15 @@ import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.time.LocalDateTime;
 import java.util.Enumeration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Static {
 
+    //Rows at least this wide are scanned using comparisons as the minimum and maximum rarely change after the first
+    // values, while narrower rows use Math.min() and Math.max() which do not branch on values that are not ordered
+    public static final int BRANCHING_SCAN_WIDTH = 32;
+
     /**
      * Public Methods
      **/
@@ -74,38 +80,67 @@ public class Static {
         return tss;
     }
 
-    public static float min(DataPoint[] dps) {
-        float min = dps[0].value;
-        for (DataPoint dp : dps) {
-            if (dp.value < min) {
-                min = dp.value;
+    public static float min(DataPointBuffer dps, int row) {
+        //The values of a row are contiguous so they can be scanned without computing the position of each value
+        float[] values = dps.getValues();
+        int from = dps.getOffset(row);
+        int to = from + dps.width();
+        float min = values[from];
+        if (dps.width() < BRANCHING_SCAN_WIDTH) {
+            for (int index = from + 1; index < to; index++) {
+                min = Math.min(min, values[index]);
+            }
+            return min;
+        }
+        for (int index = from + 1; index < to; index++) {
+            float value = values[index];
+            if (value < min) {
+                min = value;
             }
         }
         return min;
     }
 
-    public static float max(DataPoint[] dps) {
-        float max = dps[0].value;
-        for (DataPoint dp : dps) {
-            if (max < dp.value) {
-                max = dp.value;
+    public static float max(DataPointBuffer dps, int row) {
+        float[] values = dps.getValues();
+        int from = dps.getOffset(row);
+        int to = from + dps.width();
+        float max = values[from];
+        if (dps.width() < BRANCHING_SCAN_WIDTH) {
+            for (int index = from + 1; index < to; index++) {
+                max = Math.max(max, values[index]);
+            }
+            return max;
+        }
+        for (int index = from + 1; index < to; index++) {
+            float value = values[index];
+            if (max < value) {
+                max = value;
             }
         }
         return max;
     }
 
-    public static float avg(DataPoint[] dps) {
+    public static float avg(DataPointBuffer dps, int row) {
+        float[] values = dps.getValues();
+        int from = dps.getOffset(row);
+        int to = from + dps.width();
         double sum = 0.0;
-        for (DataPoint dp : dps) {
-            sum += dp.value;
+        for (int index = from; index < to; index++) {
+            sum += values[index];
         }
-        return (float) (sum / dps.length);
+        return (float) (sum / dps.width());
     }
 
     public static boolean outsidePercentageErrorBound(float error, double approximation, double real) {
         return Static.percentageError(approximation, real) > error;
     }
 
+    public static boolean outsideErrorBound(float error, float absoluteError, double approximation, double real) {
+        //The absolute error bound ensures values close to zero can be approximated as the percentage error explodes
+        return Math.abs(real - approximation) > absoluteError && Static.outsidePercentageErrorBound(error, approximation, real);
+    }
+
     public static double percentageError(double approximation, double real) {
         //Necessary as the method would return NaN if approximation and real are both zero otherwise
         if (approximation == real) {
@@ -163,6 +198,40 @@ public class Static {
         }
     }
 
+    public static boolean supportsVirtualThreads() {
+        //Virtual threads are only a preview feature in JDK 19 and 20 so they are not used before JDK 21
+        return Runtime.version().feature() >= 21;
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!supportsVirtualThreads()) {
+            throw new UnsupportedOperationException("CORE: virtual threads require JDK 21 or newer");
+        }
+
+        //The executor is created using reflection so the core can still be compiled for and executed on JDK 11
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException roe) {
+            throw new UnsupportedOperationException("CORE: unable to create virtual threads", roe);
+        }
+    }
+
+    public static void unmap(ByteBuffer buffer) {
+        //A mapped buffer is otherwise only unmapped when it is garbage collected, so the cleaner is invoked through
+        // Unsafe using reflection as no public method exists, and the buffer is left to the garbage collector if it fails
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+        }
+    }
+
     public static String getIPs() {
         StringBuilder result = new StringBuilder();
         try {
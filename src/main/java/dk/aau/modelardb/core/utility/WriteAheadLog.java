@@ -0,0 +1,403 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility;
+
+import dk.aau.modelardb.core.SegmentGroup;
+import dk.aau.modelardb.core.TimeSeriesGroup;
+import dk.aau.modelardb.core.timeseries.TimeSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//The log stores the finalized segments that have not yet been written to storage and the timestamp of the last data
+// point that has been written to storage for each time series, so after a restart the segments can be recovered and
+// each time series resumed after the last data point it has stored instead of from the start. The log is written to
+// memory-mapped files that are forced to disk by commit so multiple segments are made durable together, each file
+// starts with a checkpoint of all time series, and a file is deleted when all of its segments have been stored
+public class WriteAheadLog {
+
+    /**
+     * Instance Variables
+     **/
+    private final Path directory;
+    private final int fileSize;
+    private final CRC32 checksum;
+
+    //The time series of the ingestion the log is written for and the last stored timestamp of each time series
+    private final HashMap<Integer, String> sources;
+    private final HashMap<Integer, Integer> gids;
+    private final HashMap<Integer, int[]> groups;
+    private final HashMap<Integer, Long> offsets;
+
+    //The segments read from the log and the last end time of the segments in each file for each time series
+    private final List<SegmentGroup> recoveredSegments;
+    private final TreeMap<Long, HashMap<Integer, Long>> coverage;
+    private long sequence;
+    private MappedByteBuffer file;
+    private ByteBuffer writer;
+    private boolean dirty;
+
+    private static final byte SEGMENT = 1;
+    private static final byte OFFSETS = 2;
+    private static final byte CHECKPOINT = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * Constructors
+     **/
+    public WriteAheadLog(String directory, int fileSize) {
+        this.directory = Paths.get(directory);
+        this.fileSize = fileSize;
+        this.checksum = new CRC32();
+        this.sources = new HashMap<>();
+        this.gids = new HashMap<>();
+        this.groups = new HashMap<>();
+        this.offsets = new HashMap<>();
+        this.recoveredSegments = new ArrayList<>();
+        this.coverage = new TreeMap<>();
+
+        //The files are read in the order they were written so later offsets overwrite earlier offsets
+        try {
+            Files.createDirectories(this.directory);
+            for (Path path : getFiles()) {
+                String name = path.getFileName().toString();
+                this.sequence = Long.parseLong(name.substring(0, name.length() - 4));
+                read(path, this.sequence);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("CORE: unable to read the write-ahead log in " + directory, ioe);
+        }
+
+        //Only the segments that contain data points after the last stored data point of a time series must be recovered
+        this.recoveredSegments.removeIf(segment -> !isAfterOffsets(segment));
+    }
+
+    /**
+     * Public Methods
+     **/
+    public boolean isEmpty() {
+        return this.sources.isEmpty();
+    }
+
+    public int getMinimumTid() {
+        return this.sources.keySet().stream().mapToInt(Integer::intValue).min().orElse(0);
+    }
+
+    public int getMinimumGid() {
+        return this.gids.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+    }
+
+    public SegmentGroup[] getRecoveredSegments() {
+        return this.recoveredSegments.toArray(new SegmentGroup[0]);
+    }
+
+    public synchronized void start(TimeSeriesGroup[] timeSeriesGroups) {
+        if (this.sources.isEmpty()) {
+            for (TimeSeriesGroup tsg : timeSeriesGroups) {
+                for (TimeSeries ts : tsg.getTimeSeries()) {
+                    this.sources.put(ts.tid, ts.source);
+                    this.gids.put(ts.tid, tsg.gid);
+                }
+                this.groups.put(tsg.gid, Arrays.stream(tsg.getTimeSeries()).mapToInt(ts -> ts.tid).sorted().toArray());
+            }
+        } else {
+            //The time series must be the same as when the log was written as the segments and offsets use their tids
+            int timeSeriesInGroups = 0;
+            for (TimeSeriesGroup tsg : timeSeriesGroups) {
+                for (TimeSeries ts : tsg.getTimeSeries()) {
+                    if (!ts.source.equals(this.sources.get(ts.tid)) || tsg.gid != this.gids.get(ts.tid)) {
+                        throw new IllegalArgumentException("CORE: the sources in the configuration file do not match " +
+                                "the write-ahead log in " + this.directory);
+                    }
+                    timeSeriesInGroups++;
+                }
+            }
+            if (timeSeriesInGroups != this.sources.size()) {
+                throw new IllegalArgumentException("CORE: the sources in the configuration file do not match " +
+                        "the write-ahead log in " + this.directory);
+            }
+
+            //The time series are resumed after the data points stored or recovered from the log
+            HashMap<Integer, Long> resumeTimestamps = new HashMap<>(this.offsets);
+            for (SegmentGroup segment : this.recoveredSegments) {
+                for (int tid : getTids(segment)) {
+                    resumeTimestamps.merge(tid, segment.endTime, Math::max);
+                }
+            }
+            for (TimeSeriesGroup tsg : timeSeriesGroups) {
+                for (TimeSeries ts : tsg.getTimeSeries()) {
+                    ts.resumeAfter(resumeTimestamps.getOrDefault(ts.tid, Long.MIN_VALUE));
+                }
+            }
+        }
+        roll();
+    }
+
+    public synchronized void append(SegmentGroup segment) {
+        int size = 1 + 4 + 8 + 8 + 4 + 4 + segment.model.length + 4 + segment.offsets.length;
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(SEGMENT).putInt(segment.gid).putLong(segment.startTime).putLong(segment.endTime).putInt(segment.mtid);
+        record.putInt(segment.model.length).put(segment.model);
+        record.putInt(segment.offsets.length).put(segment.offsets);
+        write(record.array());
+
+        HashMap<Integer, Long> fileCoverage = this.coverage.get(this.sequence);
+        for (int tid : getTids(segment)) {
+            fileCoverage.merge(tid, segment.endTime, Math::max);
+        }
+    }
+
+    public void stored(SegmentGroup[] segments, int length) {
+        synchronized (this) {
+            //The offsets are only logged for the time series with segments in the batch
+            HashMap<Integer, Long> changed = new HashMap<>();
+            for (int i = 0; i < length; i++) {
+                for (int tid : getTids(segments[i])) {
+                    changed.merge(tid, segments[i].endTime, Math::max);
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            changed.forEach((tid, timestamp) -> this.offsets.merge(tid, timestamp, Math::max));
+            write(offsetsRecord(changed));
+            deleteStoredFiles();
+        }
+        //The offsets are forced to disk immediately as the segments would otherwise be recovered twice
+        commit();
+    }
+
+    public void commit() {
+        //The file is forced outside the lock so segments can be appended while the previous segments are forced
+        MappedByteBuffer file;
+        synchronized (this) {
+            if (!this.dirty) {
+                return;
+            }
+            this.dirty = false;
+            file = this.file;
+        }
+        file.force();
+    }
+
+    public synchronized void close(boolean delete) {
+        if (this.file != null) {
+            this.file.force();
+        }
+        this.file = null;
+        this.writer = null;
+        this.dirty = false;
+        if (delete) {
+            try {
+                for (Path path : getFiles()) {
+                    Files.delete(path);
+                }
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("CORE: unable to delete the write-ahead log in " + this.directory, ioe);
+            }
+        }
+    }
+
+    /**
+     * Private Methods
+     **/
+    private List<Path> getFiles() throws IOException {
+        //The files are named by their zero padded sequence number so they are sorted in the order they were written
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(".wal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private void read(Path path, long sequence) throws IOException {
+        HashMap<Integer, Long> fileCoverage = new HashMap<>();
+        this.coverage.put(sequence, fileCoverage);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                //A record that is empty, truncated, or has an invalid checksum marks the end of the file
+                int length = buffer.getInt();
+                int expectedChecksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return;
+                }
+                ByteBuffer record = buffer.slice();
+                record.limit(length);
+                this.checksum.reset();
+                this.checksum.update(record.duplicate());
+                if ((int) this.checksum.getValue() != expectedChecksum) {
+                    return;
+                }
+                buffer.position(buffer.position() + length);
+                apply(record, fileCoverage);
+            }
+        }
+    }
+
+    private void apply(ByteBuffer record, HashMap<Integer, Long> fileCoverage) {
+        byte type = record.get();
+        switch (type) {
+            case SEGMENT:
+                int gid = record.getInt();
+                long startTime = record.getLong();
+                long endTime = record.getLong();
+                int mtid = record.getInt();
+                byte[] model = new byte[record.getInt()];
+                record.get(model);
+                byte[] gaps = new byte[record.getInt()];
+                record.get(gaps);
+                SegmentGroup segment = new SegmentGroup(gid, startTime, endTime, mtid, model, gaps);
+                this.recoveredSegments.add(segment);
+                for (int tid : getTids(segment)) {
+                    fileCoverage.merge(tid, endTime, Math::max);
+                }
+                break;
+            case CHECKPOINT:
+                int timeSeries = record.getInt();
+                HashMap<Integer, ArrayList<Integer>> members = new HashMap<>();
+                for (int i = 0; i < timeSeries; i++) {
+                    int tid = record.getInt();
+                    int tsGid = record.getInt();
+                    long offset = record.getLong();
+                    byte[] source = new byte[record.getInt()];
+                    record.get(source);
+                    this.sources.put(tid, new String(source, StandardCharsets.UTF_8));
+                    this.gids.put(tid, tsGid);
+                    this.offsets.merge(tid, offset, Math::max);
+                    members.computeIfAbsent(tsGid, k -> new ArrayList<>()).add(tid);
+                }
+                members.forEach((k, v) -> this.groups.put(k, v.stream().mapToInt(Integer::intValue).sorted().toArray()));
+                break;
+            case OFFSETS:
+                int changed = record.getInt();
+                for (int i = 0; i < changed; i++) {
+                    this.offsets.merge(record.getInt(), record.getLong(), Math::max);
+                }
+                break;
+            default:
+                throw new IllegalStateException("CORE: unknown record type " + type + " in the write-ahead log");
+        }
+    }
+
+    private void write(byte[] record) {
+        if (RECORD_HEADER_SIZE + record.length > this.writer.remaining()) {
+            roll();
+            if (RECORD_HEADER_SIZE + record.length > this.writer.remaining()) {
+                throw new IllegalArgumentException("CORE: a record of " + record.length + " bytes is larger than " +
+                        "the files in the write-ahead log");
+            }
+        }
+        this.checksum.reset();
+        this.checksum.update(record);
+        this.writer.putInt(record.length);
+        this.writer.putInt((int) this.checksum.getValue());
+        this.writer.put(record);
+        this.dirty = true;
+    }
+
+    private void roll() {
+        //The current file is forced before a new file is created so the files are always durable in order
+        if (this.file != null) {
+            this.file.force();
+        }
+        this.sequence++;
+        Path path = this.directory.resolve(String.format("%020d.wal", this.sequence));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            this.file = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.fileSize);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("CORE: unable to create " + path, ioe);
+        }
+        this.writer = this.file.duplicate();
+        this.coverage.put(this.sequence, new HashMap<>());
+        write(checkpointRecord());
+    }
+
+    private byte[] checkpointRecord() {
+        //The checkpoint contains all time series and their offsets so the previous files are not needed when stored
+        HashMap<Integer, byte[]> sources = new HashMap<>();
+        int size = 1 + 4;
+        for (Map.Entry<Integer, String> tidAndSource : this.sources.entrySet()) {
+            byte[] source = tidAndSource.getValue().getBytes(StandardCharsets.UTF_8);
+            sources.put(tidAndSource.getKey(), source);
+            size += 4 + 4 + 8 + 4 + source.length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(CHECKPOINT).putInt(sources.size());
+        sources.forEach((tid, source) -> {
+            record.putInt(tid).putInt(this.gids.get(tid)).putLong(this.offsets.getOrDefault(tid, Long.MIN_VALUE));
+            record.putInt(source.length).put(source);
+        });
+        return record.array();
+    }
+
+    private byte[] offsetsRecord(Map<Integer, Long> offsets) {
+        ByteBuffer record = ByteBuffer.allocate(1 + 4 + offsets.size() * (4 + 8));
+        record.put(OFFSETS).putInt(offsets.size());
+        offsets.forEach((tid, timestamp) -> record.putInt(tid).putLong(timestamp));
+        return record.array();
+    }
+
+    private void deleteStoredFiles() {
+        //A file can be deleted when the segments in it have been stored as the current file starts with a checkpoint
+        while (this.coverage.size() > 1) {
+            Map.Entry<Long, HashMap<Integer, Long>> oldest = this.coverage.firstEntry();
+            boolean stored = oldest.getValue().entrySet().stream().allMatch(
+                    tidAndEndTime -> this.offsets.getOrDefault(tidAndEndTime.getKey(), Long.MIN_VALUE) >= tidAndEndTime.getValue());
+            if (!stored) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(this.directory.resolve(String.format("%020d.wal", oldest.getKey())));
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("CORE: unable to delete a file in the write-ahead log", ioe);
+            }
+            this.coverage.remove(oldest.getKey());
+        }
+    }
+
+    private boolean isAfterOffsets(SegmentGroup segment) {
+        //A segment has been stored if the offsets of all of the time series it represents are at or after its end time
+        for (int tid : getTids(segment)) {
+            if (this.offsets.getOrDefault(tid, Long.MIN_VALUE) < segment.endTime) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] getTids(SegmentGroup segment) {
+        //The time series represented by a segment are the time series in its group that are not in a gap
+        int[] tids = this.groups.get(segment.gid);
+        int[] gaps = Static.bytesToInts(segment.offsets);
+        return Arrays.stream(tids).filter(tid -> !Static.contains(tid, gaps)).toArray();
+    }
+}
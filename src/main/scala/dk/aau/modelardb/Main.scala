@@ -62,13 +62,16 @@ object Main {
   }
 
   /** Private Methods * */
-  private def readConfigurationFile(configPath: String): Configuration = {
+  private[modelardb] def readConfigurationFile(configPath: String): Configuration = {
     Static.info(s"ModelarDB: $configPath")
     val configuration = new Configuration()
     val models = ArrayBuffer[String]()
     val sources = ArrayBuffer[String]()
     val derivedSources = new util.HashMap[String, ArrayBuffer[Pair[String, ValueFunction]]]()
+    val wideSources = new util.HashMap[String, Pair[String, Integer]]()
     val correlations = ArrayBuffer[Correlation]()
+    val portfolios = ArrayBuffer[ModelTypePortfolio]()
+    val absoluteErrorBounds = new util.HashMap[String, Float]()
 
 
     //The information about dimensions are extracted first so correlation objects can depends on it being available
@@ -90,7 +93,36 @@ object Main {
       val lineSplit = line.trim().split(" ", 2)
       lineSplit(0) match {
         case "modelardb.model_type" => models.append(lineSplit(1))
+        case "modelardb.portfolio" => portfolios.append(parsePortfolio(lineSplit(1), dimensions))
         case "modelardb.source" => appendSources(lineSplit(1), sources)
+        case "modelardb.source.wide" =>
+          //Each value column of the files is a time series named file#column, and the columns are read together
+          val wide = lineSplit(1).trim.split(' ').map(_.trim).filter(_.nonEmpty)
+          val columns = wide.drop(1).flatMap(column => column.split('-') match {
+            case Array(first, last) if Static.isInteger(first) && Static.isInteger(last) => first.toInt to last.toInt
+            case Array(single) if Static.isInteger(single) => Seq(single.toInt)
+            case _ => throw new IllegalArgumentException("ModelarDB: \"" + column + "\" in modelardb.source.wide is not a column or a range of columns")
+          })
+          if (columns.isEmpty) {
+            throw new IllegalArgumentException("ModelarDB: modelardb.source.wide must be followed by the value columns of the files")
+          }
+          val files = ArrayBuffer[String]()
+          appendSources(wide(0), files)
+          for (file <- files; column <- columns) {
+            sources.append(file + "#" + column)
+            wideSources.put(file + "#" + column, new Pair(file, column))
+          }
+        case "modelardb.absolute_error_bound" =>
+          //The absolute error bound is used for all time series unless it is followed by the sources it is used for
+          val bound = lineSplit(1).trim.split(' ').map(_.trim).filter(_.nonEmpty)
+          if (bound.length == 1) {
+            configuration.add(lineSplit(0), bound(0))
+          } else {
+            if (!Static.isFloat(bound(0)) || bound(0).toFloat < 0.0F) {
+              throw new IllegalArgumentException("ModelarDB: modelardb.absolute_error_bound must be zero or a positive integer or float")
+            }
+            bound.drop(1).foreach(source => absoluteErrorBounds.put(source, bound(0).toFloat))
+          }
         case "modelardb.source.derived" =>
           //Store a mapping from the original source to the derived source and the function to map over its values
           val derived = lineSplit(1).split(' ').map(_.trim)
@@ -115,8 +147,10 @@ object Main {
         case "modelardb.engine" | "modelardb.storage" | "modelardb.interface" | "modelardb.time_zone" |
              "modelardb.ingestors" | "modelardb.timestamp_column" | "modelardb.value_column" |
              "modelardb.error_bound" | "modelardb.length_bound" | "modelardb.maximum_latency" |
-             "modelardb.sampling_interval" | "modelardb.batch_size" | "modelardb.dynamic_split_fraction" |
-             "modelardb.csv.separator" | "modelardb.csv.header" | "modelardb.csv.date_format" | "modelardb.csv.locale" |
+             "modelardb.parallel_model_types_threshold" | "modelardb.selection_policy" |
+             "modelardb.pipeline_capacity" | "modelardb.prefetch_depth" | "modelardb.unbounded_ingestion" |
+             "modelardb.sampling_interval" | "modelardb.batch_size" | "modelardb.batch_interval" | "modelardb.wal" | "modelardb.wal_interval" | "modelardb.dynamic_split_fraction" |
+             "modelardb.csv.separator" | "modelardb.csv.header" | "modelardb.csv.date_format" | "modelardb.csv.locale" | "modelardb.csv.mapped_window" |
              "modelardb.spark.streaming" =>
           configuration.add(lineSplit(0), lineSplit(1).stripPrefix("'").stripSuffix("'"))
         case _ =>
@@ -128,6 +162,8 @@ object Main {
     configFullSource.close()
 
     configuration.add("modelardb.model_types", models.toArray)
+    configuration.add("modelardb.portfolios", portfolios.toArray)
+    configuration.add("modelardb.absolute_error_bounds", absoluteErrorBounds)
     configuration.add("modelardb.sources", sources.toArray)
     val finalDerivedSources = new util.HashMap[String, Array[Pair[String, ValueFunction]]]()
     val dsIter = derivedSources.entrySet().iterator()
@@ -136,6 +172,7 @@ object Main {
       finalDerivedSources.put(entry.getKey, entry.getValue.toArray)
     }
     configuration.add("modelardb.sources.derived", finalDerivedSources)
+    configuration.add("modelardb.sources.wide", wideSources)
     configuration.add("modelardb.correlations", correlations.toArray)
     configuration.add("modelardb.executor_service", Executors.newCachedThreadPool())
     validate(configuration)
@@ -150,7 +187,8 @@ object Main {
     file match {
       case _ if file.isFile => sources.append(pathName)
       case _ if file.isDirectory =>
-        val files = file.listFiles.filterNot(_.isHidden).map(file => file.getAbsolutePath)
+        //The files are sorted so the same sources are created in the same order when the folder is ingested again
+        val files = file.listFiles.filterNot(_.isHidden).map(file => file.getAbsolutePath).sorted
         sources.appendAll(files)
       case _ if file.getName.contains("*") =>
         //This is a simple glob-based filter that allows users to only ingest specific files, e.g., based on their suffix
@@ -251,6 +289,27 @@ object Main {
     correlation
   }
 
+  private def parsePortfolio(line: String, dimensions: Dimensions): ModelTypePortfolio = {
+    //The line is split into the time series to select and the model types to use for them
+    val split = line.split('*')
+    if (split.length != 2) {
+      throw new IllegalArgumentException("ModelarDB: unable to parse portfolio \"" + line + "\"")
+    }
+    val modelTypeNames = split(1).split(',').map(_.trim).filter(_.nonEmpty)
+
+    //The time series are either specified as a set of sources or as a set of members like for correlation
+    val selector = new Correlation()
+    for (elem <- split(0).split(',').map(_.trim)) {
+      val elemSplit = elem.split(' ').map(_.trim)
+      if (elemSplit.length >= 3 && Static.isInteger(elemSplit(1))) {
+        selector.addDimensionAndMembers(elemSplit(0), elemSplit(1).toInt, elemSplit.drop(2), dimensions)
+      } else {
+        selector.addSources(elemSplit)
+      }
+    }
+    new ModelTypePortfolio(selector, modelTypeNames)
+  }
+
   private def validate(configuration: Configuration): Configuration = {
     //Settings used outside core are validated to ensure their values are within the expected range
     if (configuration.getInteger("modelardb.spark.streaming", 0) <= 0) {
@@ -258,7 +317,7 @@ object Main {
     }
 
     //Ensure both included and user-defined model types all can be constructed without errors
-    val mtn = configuration.getModelTypeNames
+    val mtn = configuration.getAllModelTypeNames
     val mtids = Range(1, mtn.length + 1).toArray
     ModelTypeFactory.getModelTypes(mtn, mtids, configuration.getErrorBound, configuration.getLengthBound)
     configuration
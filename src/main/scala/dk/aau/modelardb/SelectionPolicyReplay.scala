@@ -0,0 +1,187 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb
+
+import java.util.TimeZone
+
+import dk.aau.modelardb.core.models.{ModelType, ModelTypeFactory, Segment}
+import dk.aau.modelardb.core.utility.{SegmentFunction, Static}
+import dk.aau.modelardb.core.{Configuration, ModelTypePortfolio, Partitioner, SegmentGroup, SelectionPolicies, TimeSeriesGroup}
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+
+//Replays the sources in a configuration file through the segment generators once for each selection policy and
+// reports the bytes stored and the CPU time used to decode the segments for scans and to compute aggregates from them,
+// so a selection policy can be chosen for a deployment before any data is ingested. With --decode-costs the sources are
+// instead replayed once for each model type on its own to measure the CPU time used to decode a data point relative to
+// PMC-Mean, which is the decode cost hint used by the weighted selection policy. The tool is executed with:
+// sbt "runMain dk.aau.modelardb.SelectionPolicyReplay path/to/modelardb.conf [--decode-costs | 'selection policy'...]"
+object SelectionPolicyReplay {
+
+  /** Instance Variables * */
+  private val defaultSelectionPolicies = Array("compression_ratio", "weighted 1 1 0.5", "weighted 1 4 0.9")
+  private val iterations = 5
+  private val pmcMean = "dk.aau.modelardb.core.models.PMC_MeanModelType"
+
+  /** Public Methods * */
+  def main(args: Array[String]): Unit = {
+    if (args.isEmpty) {
+      println("usage: SelectionPolicyReplay path/to/modelardb.conf [--decode-costs | 'selection policy'...]")
+      System.exit(-1)
+    }
+    val configuration = Main.readConfigurationFile(args(0))
+    TimeZone.setDefault(configuration.getTimeZone)
+    val decodeCosts = args.length == 2 && args(1) == "--decode-costs"
+    val selectionPolicies = if (decodeCosts || args.length == 1) defaultSelectionPolicies else args.drop(1)
+    selectionPolicies.foreach(SelectionPolicies.parse) //Invalid selection policies are rejected before replaying
+
+    //The mtids are assigned like in Storage so the fallback model type's mtid is one, and PMC-Mean is always included
+    // as the decode costs are relative to it
+    val modelTypeNames = ("dk.aau.modelardb.core.models.UncompressedModelType" +: configuration.getAllModelTypeNames :+
+      pmcMean).distinct
+    val mtidCache = modelTypeNames.zipWithIndex.map { case (name, index) => name -> Integer.valueOf(index + 1) }.toMap
+    val modelTypes = modelTypeNames.map(name => ModelTypeFactory.getModel(name, mtidCache(name), 0.0F, 0))
+    if (decodeCosts) {
+      measureDecodeCosts(configuration, mtidCache, modelTypes)
+    } else {
+      compareSelectionPolicies(configuration, mtidCache, modelTypes, selectionPolicies)
+    }
+  }
+
+  /** Private Methods * */
+  private def compareSelectionPolicies(configuration: Configuration, mtidCache: Map[String, Integer],
+                                       modelTypes: Array[ModelType], selectionPolicies: Array[String]): Unit = {
+    //The sums of the values are reported so the error of lossy model types is visible and the queries are not removed
+    // as dead code, and the sums computed by scans and aggregates must match up to the floating-point rounding
+    println(f"${"Selection Policy"}%-32s | ${"Segments"}%10s | ${"Stored Bytes"}%14s | ${"Scan (ms)"}%10s | ${"Aggregate (ms)"}%14s | ${"Sum"}%16s | Model Types")
+    for (selectionPolicy <- selectionPolicies) {
+      configuration.remove("modelardb.selection_policy")
+      configuration.add("modelardb.selection_policy", selectionPolicy)
+      val (groups, segmentGroups) = replay(configuration, mtidCache)
+      val segments = toSegments(groups, segmentGroups, modelTypes)
+
+      //Each segment group is stored as gid, start time, end time, and mtid followed by the model and the gaps
+      val storedBytes = segmentGroups.map(sg => 24L + sg.model.length + sg.offsets.length).sum
+      val (scanTime, sum) = measure(segments, scan)
+      val (aggregateTime, _) = measure(segments, _.sum())
+      println(f"$selectionPolicy%-32s | ${segmentGroups.length}%10d | $storedBytes%14d | ${scanTime / 1e6}%10.1f |" +
+        f" ${aggregateTime / 1e6}%14.1f | $sum%16.6e | ${modelTypeMix(segments)}")
+    }
+  }
+
+  private def measureDecodeCosts(configuration: Configuration, mtidCache: Map[String, Integer],
+                                 modelTypes: Array[ModelType]): Unit = {
+    //Each model type is used on its own without portfolios, so the segments of each model type are only stored by its
+    // own replay and the fallback model type, which cannot be used on its own, is measured if it is used by any replay
+    val names = pmcMean +: configuration.getAllModelTypeNames.filterNot(_ == pmcMean)
+    configuration.remove("modelardb.portfolios")
+    configuration.remove("modelardb.selection_policy")
+    configuration.add("modelardb.portfolios", Array[ModelTypePortfolio]())
+    configuration.add("modelardb.selection_policy", "compression_ratio")
+    val replays = names.map(name => {
+      configuration.remove("modelardb.model_types")
+      configuration.add("modelardb.model_types", Array(name))
+      replay(configuration, mtidCache)
+    })
+    val segmentsByModelType = (names.map(mtidCache(_).intValue()) :+ 1).map(mtid => replays.flatMap {
+      case (groups, segmentGroups) => toSegments(groups, segmentGroups.filter(_.mtid == mtid), modelTypes)
+    }).filter(_.nonEmpty)
+
+    //The model types are measured in turns as the JVM otherwise compiles the scan for the first model type measured
+    val scanTimes = Array.fill(segmentsByModelType.length)(Long.MaxValue)
+    val sums = Array.fill(segmentsByModelType.length)(0.0)
+    for (_ <- 1 to iterations; index <- segmentsByModelType.indices) {
+      val (scanTime, sum) = measure(segmentsByModelType(index), scan)
+      scanTimes(index) = Math.min(scanTimes(index), scanTime)
+      sums(index) = sum
+    }
+
+    println(f"${"Model Type"}%-32s | ${"Data Points"}%12s | ${"Scan (ns/data point)"}%20s | ${"Decode Cost Hint"}%16s | ${"Sum"}%16s")
+    val dataPoints = segmentsByModelType.map(_.map(_.length().toLong).sum)
+    val scanTimesPerDataPoint = scanTimes.indices.map(index => scanTimes(index).toDouble / dataPoints(index))
+    for (index <- segmentsByModelType.indices) {
+      val name = segmentsByModelType(index).head.getClass.getSimpleName.stripSuffix("Segment")
+      println(f"$name%-32s | ${dataPoints(index)}%12d | ${scanTimesPerDataPoint(index)}%20.2f |" +
+        f" ${scanTimesPerDataPoint(index) / scanTimesPerDataPoint(0)}%16.2f | ${sums(index)}%16.6e")
+    }
+  }
+
+  private def replay(configuration: Configuration, mtidCache: Map[String, Integer]): (Array[TimeSeriesGroup], Array[SegmentGroup]) = {
+    //The sources are read again for each selection policy and ingested by a single working set
+    val timeSeries = Partitioner.initializeTimeSeries(configuration, 0)
+    val timeSeriesGroups = Partitioner.groupTimeSeries(configuration, timeSeries, 0)
+    val workingSets = Partitioner.partitionTimeSeries(configuration, timeSeriesGroups, mtidCache.asJava, 1)
+
+    val segmentGroups = mutable.ArrayBuffer[SegmentGroup]()
+    val consumeTemporary = new SegmentFunction {
+      override def emit(gid: Int, startTime: Long, endTime: Long, mtid: Int, model: Array[Byte], gaps: Array[Byte]): Unit = ()
+    }
+    val consumeFinalized = new SegmentFunction {
+      override def emit(gid: Int, startTime: Long, endTime: Long, mtid: Int, model: Array[Byte], gaps: Array[Byte]): Unit = {
+        segmentGroups.append(new SegmentGroup(gid, startTime, endTime, mtid, model, gaps))
+      }
+    }
+    workingSets.foreach(_.process(consumeTemporary, consumeFinalized, () => false))
+    (timeSeriesGroups, segmentGroups.toArray)
+  }
+
+  private def toSegments(groups: Array[TimeSeriesGroup], segmentGroups: Array[SegmentGroup],
+                         modelTypes: Array[ModelType]): Array[Segment] = {
+    //A segment is created for each time series in a segment group that is not in a gap like SegmentGroup.explode
+    val groupsByGid = groups.map(tsg => tsg.gid -> tsg).toMap
+    segmentGroups.flatMap(sg => {
+      val group = groupsByGid(sg.gid)
+      val gaps = Static.bytesToInts(sg.offsets)
+      val tids = group.getTimeSeries.map(_.tid).filterNot(tid => gaps.contains(tid))
+      val modelType = modelTypes(sg.mtid - 1)
+      tids.zipWithIndex.map { case (tid, index) =>
+        val offsets = Static.intToBytes(Array(index + 1, tids.length, 0))
+        modelType.get(tid, sg.startTime, sg.endTime, group.samplingInterval, sg.model, offsets)
+      }
+    })
+  }
+
+  private def scan(segment: Segment): Double = {
+    var sum = 0.0
+    val dataPoints = segment.grid().iterator()
+    while (dataPoints.hasNext) {
+      sum += dataPoints.next().value
+    }
+    sum
+  }
+
+  private def measure(segments: Array[Segment], query: Segment => Double): (Long, Double) = {
+    //The fastest iteration is reported so the JVM has time to compile the methods, and the result of the last iteration
+    // is returned so it can be reported and the queries are not removed as dead code
+    var fastest = Long.MaxValue
+    var result = 0.0
+    for (_ <- 1 to iterations) {
+      val startTime = System.nanoTime()
+      result = segments.map(query).sum
+      fastest = Math.min(fastest, System.nanoTime() - startTime)
+    }
+    (fastest, result)
+  }
+
+  private def modelTypeMix(segments: Array[Segment]): String = {
+    //The model types are weighted by the number of data points they represent
+    val dataPoints = segments.groupBy(_.getClass.getSimpleName).mapValues(_.map(_.length().toLong).sum)
+    val total = dataPoints.values.sum.toDouble
+    dataPoints.toSeq.sortBy(-_._2).map { case (name, count) =>
+      f"${name.stripSuffix("Segment")} ${100 * count / total}%.1f%%"
+    }.mkString(", ")
+  }
+}
@@ -17,7 +17,8 @@ package dk.aau.modelardb.engines.h2
 import dk.aau.modelardb.Interface
 import dk.aau.modelardb.core.Dimensions.Types
 import dk.aau.modelardb.core._
-import dk.aau.modelardb.core.utility.{Logger, SegmentFunction, Static}
+import dk.aau.modelardb.core.timeseries.TimeSeries
+import dk.aau.modelardb.core.utility.{Logger, SegmentFunction, Static, WriteAheadLog}
 import dk.aau.modelardb.engines.EngineUtilities
 import org.h2.expression.condition.{Comparison, ConditionAndOr, ConditionInConstantSet}
 import org.h2.expression.{Expression, ExpressionColumn, ValueExpression}
@@ -25,20 +26,29 @@ import org.h2.table.TableFilter
 import org.h2.value.{ValueInt, ValueTimestamp}
 
 import java.sql.DriverManager
-import java.util.concurrent.CountDownLatch
 import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.concurrent.{CopyOnWriteArrayList, CountDownLatch, Executors, TimeUnit}
 import java.util.function.BooleanSupplier
 import java.util.{Base64, TimeZone}
 import scala.collection.JavaConverters._
 import scala.collection.mutable
 
 class H2(configuration: Configuration, h2storage: H2Storage) {
-  private val finalizedSegments: Array[SegmentGroup] = new Array[SegmentGroup](configuration.getBatchSize)
-  private val cacheLock = new ReentrantReadWriteLock()
-  private val temporarySegments = mutable.HashMap[Int, Array[SegmentGroup]]()
+  //The temporary and finalized segments are cached per ingestor in a batch that is read by queries without a lock, and
+  // the finalized segments are stored by the flusher while holding the storage lock so it is not used concurrently by
+  // the flusher and the last ingestor storing the positions of the sources, or by queries if the storage requires it
+  private val segmentBatches = new CopyOnWriteArrayList[H2SegmentBatch]()
+  private val storageLock = new ReentrantReadWriteLock()
+  private val flusher = Executors.newSingleThreadScheduledExecutor(runnable => {
+    val thread = new Thread(runnable, "modelardb-flusher")
+    thread.setDaemon(true)
+    thread
+  })
   private val base64Encoder = Base64.getEncoder
   /** Instance Variables * */
-  private var finalizedSegmentsIndex = 0
+  @volatile private var flushFailure: Throwable = _
+  private var writeAheadLog: WriteAheadLog = _
+  private var timeSeries: Array[TimeSeries] = _
   private var workingSets: Array[WorkingSet] = _
   private var numberOfRunningIngestors: CountDownLatch = _
 
@@ -80,16 +90,64 @@ class H2(configuration: Configuration, h2storage: H2Storage) {
       return
     }
 
-    //Initialize Ingestion
-    val timeSeries = Partitioner.initializeTimeSeries(configuration, h2storage.getMaxTid)
-    val timeSeriesGroups = Partitioner.groupTimeSeries(configuration, timeSeries, h2storage.getMaxGid)
-    h2storage.storeMetadataAndInitializeCaches(configuration, timeSeriesGroups)
+    //Initialize Ingestion, if the write-ahead log contains an interrupted ingestion it is resumed with the same tids
+    // and gids, so the metadata stored before the ingestion was interrupted is used, and if the sources have been
+    // ingested before they are ingested with the same tids and gids from the position their last ingestion ended at
+    val writeAheadLogDirectory = configuration.getWriteAheadLogDirectory
+    val writeAheadLog = if (writeAheadLogDirectory == null) null else new WriteAheadLog(writeAheadLogDirectory, H2.writeAheadLogFileSize)
+    val resume = writeAheadLog != null && !writeAheadLog.isEmpty
+    val sources = configuration.getSources
+    val ingested = if (resume) None else h2storage.getIngestedSources(sources)
+    val currentMaximumTid = if (resume) writeAheadLog.getMinimumTid - 1 else ingested.getOrElse(h2storage.getMaxTid)
+    val timeSeries = Partitioner.initializeTimeSeries(configuration, currentMaximumTid)
+    val timeSeriesGroups = if (resume || ingested.isDefined) {
+      //The metadata has already been stored so the caches are initialized first and the gids are read from them
+      h2storage.storeMetadataAndInitializeCaches(configuration, Array())
+      val currentMaximumGid = if (resume) {
+        writeAheadLog.getMinimumGid - 1
+      } else {
+        timeSeries.map(ts => h2storage.timeSeriesGroupCache(ts.tid)).min - 1
+      }
+      val timeSeriesGroups = Partitioner.groupTimeSeries(configuration, timeSeries, currentMaximumGid)
+      if (timeSeriesGroups.exists(tsg => tsg.getTimeSeries.exists(ts => h2storage.timeSeriesGroupCache(ts.tid) != tsg.gid))) {
+        throw new IllegalArgumentException("ModelarDB: the groups in the configuration file do not match the groups the sources were ingested in")
+      }
+      resumeAtSourcePositions(timeSeries, sources)
+      timeSeriesGroups
+    } else {
+      val timeSeriesGroups = Partitioner.groupTimeSeries(configuration, timeSeries, h2storage.getMaxGid)
+      h2storage.storeMetadataAndInitializeCaches(configuration, timeSeriesGroups)
+      timeSeriesGroups
+    }
+    this.timeSeries = timeSeries
+    if (writeAheadLog != null) {
+      //The segments that were not stored before the ingestion was interrupted are stored before it is resumed
+      writeAheadLog.start(timeSeriesGroups)
+      val recoveredSegments = writeAheadLog.getRecoveredSegments
+      h2storage.storeSegmentGroups(recoveredSegments, recoveredSegments.length)
+      writeAheadLog.stored(recoveredSegments, recoveredSegments.length)
+      if (resume) {
+        Static.info(s"ModelarDB: recovered ${recoveredSegments.length} segment(s) from the write-ahead log")
+      }
+      this.writeAheadLog = writeAheadLog
+    }
 
     val mtidCache = h2storage.mtidCache.asJava
     val ingestors = configuration.getIngestors
     val executor = configuration.getExecutorService
     this.numberOfRunningIngestors = new CountDownLatch(ingestors)
     this.workingSets = Partitioner.partitionTimeSeries(configuration, timeSeriesGroups, mtidCache, ingestors)
+    val batchInterval = configuration.getBatchInterval
+    if (batchInterval > 0) {
+      //Batches are checked multiple times per interval so segments are stored shortly after the interval has passed
+      val period = Math.max(batchInterval / 4, 1)
+      this.flusher.scheduleWithFixedDelay(() => flushBatchesOlderThan(batchInterval), period, period, TimeUnit.MILLISECONDS)
+    }
+    if (this.writeAheadLog != null && configuration.getWriteAheadLogInterval > 0) {
+      //The segments logged during the interval are forced to disk together
+      val interval = configuration.getWriteAheadLogInterval
+      this.flusher.scheduleWithFixedDelay(() => this.writeAheadLog.commit(), interval, interval, TimeUnit.MILLISECONDS)
+    }
 
     //Start Ingestion
     Static.info("ModelarDB: waiting for all ingestors to finnish")
@@ -100,58 +158,158 @@ class H2(configuration: Configuration, h2storage: H2Storage) {
   }
 
   private def ingest(workingSet: WorkingSet): Unit = {
-    //Creates a method that stores temporary segments in memory and finalized segments in batches to be written to disk
+    val batch = newSegmentBatch()
+    val (consumeTemporary, consumeFinalized) = newSegmentFunctions(batch)
+
+    //Start Ingestion
+    workingSet.process(consumeTemporary, consumeFinalized,() => false)
+
+    //Write remaining finalized segments and wait until they have been stored
+    flush(batch)
+    batch.awaitFlushed()
+    batch.release()
+    throwIfFlushFailed()
+
+    //The CountDownLatch is decremented in the lock to ensure getCount and countDown is atomic, and the last ingestor
+    // stores the positions of the sources before counting down so they are stored before the storage is closed
+    storageLock.writeLock().lock()
+    try {
+      if (this.numberOfRunningIngestors.getCount == 1) {
+        val logger = new Logger()
+        this.workingSets.foreach(ws => logger.add(ws.logger))
+        logger.printWorkingSetResult()
+        this.flusher.shutdown()
+        storeSourcePositions()
+
+        //All of the segments have been stored so the write-ahead log is no longer needed
+        if (this.writeAheadLog != null) {
+          this.writeAheadLog.close(true)
+        }
+      }
+    } finally {
+      this.numberOfRunningIngestors.countDown()
+      storageLock.writeLock().unlock()
+    }
+  }
+
+  private[h2] def newSegmentBatch(): H2SegmentBatch = {
+    val batch = new H2SegmentBatch(configuration.getBatchSize)
+    this.segmentBatches.add(batch)
+    batch
+  }
+
+  private[h2] def newSegmentFunctions(batch: H2SegmentBatch): (SegmentFunction, SegmentFunction) = {
+    //Creates a method that stores temporary segments in memory and finalized segments in batches to be written to disk,
+    // a group is only ingested by one ingestor so its temporary segments are only updated through that ingestor's batch
     val consumeTemporary = new SegmentFunction {
       override def emit(gid: Int, startTime: Long, endTime: Long, mtid: Int, model: Array[Byte], gaps: Array[Byte]): Unit = {
-        cacheLock.writeLock().lock()
         val newTemporarySegment = new SegmentGroup(gid, startTime, endTime, mtid, model, gaps)
-        val currentTemporarySegments = temporarySegments.getOrElse(gid, Array())
-        temporarySegments(gid) = updateTemporarySegment(currentTemporarySegments, newTemporarySegment, isTemporary = true)
-        cacheLock.writeLock().unlock()
+        batch.updateTemporarySegments(gid, currentTemporarySegments =>
+          updateTemporarySegment(currentTemporarySegments, newTemporarySegment, isTemporary = true))
       }
     }
 
     val consumeFinalized = new SegmentFunction {
       override def emit(gid: Int, startTime: Long, endTime: Long, mtid: Int, model: Array[Byte], gaps: Array[Byte]): Unit = {
-        cacheLock.writeLock().lock()
-        //Update the current temporary segments
         val newFinalizedSegment = new SegmentGroup(gid, startTime, endTime, mtid, model, gaps)
-        val currentTemporarySegments = temporarySegments.getOrElse(gid, Array())
-        temporarySegments(gid) = updateTemporarySegment(currentTemporarySegments, newFinalizedSegment, isTemporary = false)
-
-        //Batch the finalized segment
-        finalizedSegments(finalizedSegmentsIndex) = newFinalizedSegment
-        finalizedSegmentsIndex += 1
-        if (finalizedSegmentsIndex == configuration.getBatchSize) {
-          h2storage.storeSegmentGroups(finalizedSegments, finalizedSegmentsIndex)
-          finalizedSegmentsIndex = 0
+        if (writeAheadLog != null) {
+          writeAheadLog.append(newFinalizedSegment)
+          if (configuration.getWriteAheadLogInterval == 0) {
+            writeAheadLog.commit()
+          }
+        }
+
+        //Batch the finalized segment, a full batch is stored by the flusher while the next batch is being filled
+        val isFull = batch.append(newFinalizedSegment, currentTemporarySegments =>
+          updateTemporarySegment(currentTemporarySegments, newFinalizedSegment, isTemporary = false))
+        if (isFull) {
+          flush(batch)
         }
-        cacheLock.writeLock().unlock()
       }
     }
+    (consumeTemporary, consumeFinalized)
+  }
 
-    //Start Ingestion
-    workingSet.process(consumeTemporary, consumeFinalized,() => false)
+  private def resumeAtSourcePositions(timeSeries: Array[TimeSeries], sources: Array[String]): Unit = {
+    //The time series are created in the order the sources are specified in so a position is only used for its source
+    val sourcePositions = h2storage.getSourcePositions
+    var resumed = 0
+    for ((ts, source) <- timeSeries.zip(sources)) {
+      val sourcePosition = sourcePositions.get(ts.tid)
+      if (sourcePosition.exists(_._1 == source)) {
+        ts.resumeAt(sourcePosition.get._2)
+        resumed += 1
+      }
+    }
+    Static.info(s"ModelarDB: resuming $resumed time series from the position their last ingestion ended at")
+  }
+
+  private def storeSourcePositions(): Unit = {
+    //The positions are stored when all of the segments have been stored so the next ingestion only reads new data,
+    // and the storage lock must be held by the caller as the flusher may use the storage concurrently
+    val sourcePositions = mutable.HashMap[Integer, (String, Long)]()
+    for ((ts, source) <- this.timeSeries.zip(configuration.getSources) if ts.getPosition >= 0) {
+      sourcePositions.put(ts.tid, (source, ts.getPosition))
+    }
+    h2storage.storeSourcePositions(sourcePositions)
+  }
+
+  private[h2] def flush(batch: H2SegmentBatch): Unit = {
+    //Waits until the previous batch from this ingestor has been stored so only one batch is flushing at a time
+    throwIfFlushFailed()
+    batch.awaitFlushed()
+    val (segments, size) = batch.swap()
+    if (size == 0) {
+      batch.release()
+    } else {
+      this.flusher.execute(() => store(batch, segments, size))
+    }
+  }
+
+  private def flushBatchesOlderThan(milliseconds: Long): Unit = {
+    //Batches that are being stored are skipped as the flusher only stores one batch at a time
+    val now = System.currentTimeMillis()
+    for (batch <- this.segmentBatches.asScala) {
+      if (batch.isOlderThan(milliseconds, now) && batch.tryAwaitFlushed()) {
+        //The batch might have been flushed by its ingestor after it was checked and before the permit was acquired
+        val (segments, size) = batch.swap()
+        if (size == 0) {
+          batch.release()
+        } else {
+          store(batch, segments, size)
+        }
+      }
+    }
+  }
 
-    //Write remaining finalized segments
-    cacheLock.writeLock().lock()
-    h2storage.storeSegmentGroups(finalizedSegments, finalizedSegmentsIndex)
-    finalizedSegmentsIndex = 0
-
-    //The CountDownLatch is decremented in the lock to ensure countDown and getCount is atomic
-    this.numberOfRunningIngestors.countDown()
-    if (this.numberOfRunningIngestors.getCount == 0) {
-      val logger = new Logger()
-      this.workingSets.foreach(ws => logger.add(ws.logger))
-      logger.printWorkingSetResult()
-      if (this.numberOfRunningIngestors != null) {
+  private def store(batch: H2SegmentBatch, segments: Array[SegmentGroup], size: Int): Unit = {
+    //The segments are only removed from the batch after they have been stored so queries always see them in one place
+    storageLock.writeLock().lock()
+    try {
+      h2storage.storeSegmentGroups(segments, size)
+      if (this.writeAheadLog != null) {
+        this.writeAheadLog.stored(segments, size)
       }
+      batch.stored()
+    } catch {
+      case throwable: Throwable => this.flushFailure = throwable
+    } finally {
+      storageLock.writeLock().unlock()
+      batch.release()
+    }
+  }
+
+  private def throwIfFlushFailed(): Unit = {
+    if (this.flushFailure != null) {
+      throw new RuntimeException("ModelarDB: unable to store the finalized segments", this.flushFailure)
     }
-    cacheLock.writeLock().unlock()
   }
 
-  private def updateTemporarySegment(cache: Array[SegmentGroup], inputSegmentGroup: SegmentGroup,
+  private def updateTemporarySegment(currentCache: Array[SegmentGroup], inputSegmentGroup: SegmentGroup,
                                      isTemporary: Boolean): Array[SegmentGroup] = {
+    //The cache is copied so the array read by queries is never changed
+    val cache = if (currentCache == null) Array[SegmentGroup]() else currentCache.clone()
+
     //The gaps are extracted from the new finalized or temporary segment
     val inputGaps = Static.bytesToInts(inputSegmentGroup.offsets)
 
@@ -258,17 +416,31 @@ class H2(configuration: Configuration, h2storage: H2Storage) {
   }
 
   def getSegmentGroups(filter: TableFilter): Iterator[SegmentGroup] = {
-    this.cacheLock.readLock().lock()
-    val cachedTemporarySegments = this.temporarySegments.values.flatten.toArray
-    val cachedFinalizedSegments = this.finalizedSegments.take(this.finalizedSegmentsIndex)
-    val persistedFinalizedSegments = this.h2storage.getSegmentGroups(filter)
-    this.cacheLock.readLock().unlock()
-    cachedTemporarySegments.iterator ++ cachedFinalizedSegments.iterator ++ persistedFinalizedSegments
+    //The snapshots of the batches are read before the storage, so a segment that is removed from a batch after it has
+    // been stored is read from either, and a segment read from the storage is skipped if it is also in a snapshot of a
+    // batch that has started storing since, so queries see each segment exactly once and only wait for the flusher if
+    // the storage cannot be read while a batch is being stored
+    val snapshots = this.segmentBatches.asScala.map(_.getSnapshot).toArray
+    val cachedTemporarySegments = snapshots.iterator.flatMap(_.temporarySegments.valuesIterator.flatten)
+    val cachedFinalizedSegments = snapshots.iterator.flatMap(_.finalizedSegments)
+    val storedFinalizedSegments = if (this.h2storage.supportsConcurrentQueries) {
+      this.h2storage.getSegmentGroups(filter)
+    } else {
+      this.storageLock.readLock().lock()
+      try {
+        this.h2storage.getSegmentGroups(filter)
+      } finally {
+        this.storageLock.readLock().unlock()
+      }
+    }
+    val persistedFinalizedSegments = storedFinalizedSegments.filterNot(sg => snapshots.exists(_.mightBeStored(sg)))
+    cachedTemporarySegments ++ cachedFinalizedSegments ++ persistedFinalizedSegments
   }
 }
 
 object H2 {
   private val h2ConnectionString: String = "jdbc:h2:mem:modelardb"
+  private val writeAheadLogFileSize = 64 * 1024 * 1024
   private val compareTypeField = classOf[Comparison].getDeclaredField("compareType")
   private val compareTypeMethod = classOf[Comparison].getDeclaredMethod("getCompareOperator", classOf[Int])
   private val andOrTypeField = classOf[ConditionAndOr].getDeclaredField("andOrType")
@@ -0,0 +1,147 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.engines.h2
+
+import dk.aau.modelardb.core.SegmentGroup
+
+import java.util.concurrent.Semaphore
+import java.util.concurrent.locks.ReentrantLock
+
+//Each ingestor publishes its temporary and finalized segments through its own batch, so ingestors never share a lock
+// when they emit segments. The batch is only changed by its ingestor and the flusher under the lock of the batch, and
+// each change publishes an immutable snapshot that queries read without taking any lock. The finalized segments are
+// appended to the active array while the flushing array is written to storage, a new active array is allocated when
+// they are swapped as snapshots still read by queries may refer to the previous arrays, and the permit ensures the
+// flushing array has been stored before the next array is flushed
+class H2SegmentBatch(batchSize: Int) {
+  /** Instance Variables * */
+  private val lock = new ReentrantLock()
+  private val flushed = new Semaphore(1)
+  private var activeSince = 0L
+  @volatile private var storing = 0L
+  @volatile private var snapshot = new H2SegmentBatch.Snapshot(this, Map(), new Array[SegmentGroup](batchSize), 0,
+    Array(), 0, 0L)
+
+  /** Public Methods * */
+  def getSnapshot: H2SegmentBatch.Snapshot = {
+    this.snapshot
+  }
+
+  def updateTemporarySegments(gid: Int, update: Array[SegmentGroup] => Array[SegmentGroup]): Unit = {
+    this.lock.lock()
+    try {
+      val current = this.snapshot
+      this.snapshot = current.copy(temporarySegments = updated(current.temporarySegments, gid, update))
+    } finally {
+      this.lock.unlock()
+    }
+  }
+
+  def append(segmentGroup: SegmentGroup, update: Array[SegmentGroup] => Array[SegmentGroup]): Boolean = {
+    //The updated temporary segments and the finalized segment are published together so queries see both or none,
+    // and the segment is written to the array before the snapshot that includes it is published
+    this.lock.lock()
+    try {
+      val current = this.snapshot
+      if (current.activeSize == 0) {
+        this.activeSince = System.currentTimeMillis()
+      }
+      current.active(current.activeSize) = segmentGroup
+      this.snapshot = current.copy(temporarySegments = updated(current.temporarySegments, segmentGroup.gid, update),
+        activeSize = current.activeSize + 1)
+      current.activeSize + 1 == this.batchSize
+    } finally {
+      this.lock.unlock()
+    }
+  }
+
+  def isOlderThan(milliseconds: Long, now: Long): Boolean = {
+    this.lock.lock()
+    try {
+      this.snapshot.activeSize > 0 && now - this.activeSince >= milliseconds
+    } finally {
+      this.lock.unlock()
+    }
+  }
+
+  def awaitFlushed(): Unit = {
+    this.flushed.acquire()
+  }
+
+  def tryAwaitFlushed(): Boolean = {
+    this.flushed.tryAcquire()
+  }
+
+  def swap(): (Array[SegmentGroup], Int) = {
+    //The active segments become the flushing segments which are visible to queries until they have been stored, and
+    // the sequence of the stores that have started is incremented before the segments can be written to storage
+    this.lock.lock()
+    try {
+      val current = this.snapshot
+      if (current.activeSize > 0) {
+        this.storing += 1
+        this.snapshot = current.copy(active = new Array[SegmentGroup](this.batchSize), activeSize = 0,
+          flushing = current.active, flushingSize = current.activeSize)
+      }
+      (current.active, current.activeSize)
+    } finally {
+      this.lock.unlock()
+    }
+  }
+
+  def stored(): Unit = {
+    this.lock.lock()
+    try {
+      this.snapshot = this.snapshot.copy(flushing = Array(), flushingSize = 0, stored = this.storing)
+    } finally {
+      this.lock.unlock()
+    }
+  }
+
+  def release(): Unit = {
+    this.flushed.release()
+  }
+
+  /** Private Methods * */
+  private def updated(temporarySegments: Map[Int, Array[SegmentGroup]], gid: Int,
+                      update: Array[SegmentGroup] => Array[SegmentGroup]): Map[Int, Array[SegmentGroup]] = {
+    val updatedTemporarySegments = update(temporarySegments.getOrElse(gid, null))
+    if (updatedTemporarySegments.isEmpty) temporarySegments - gid else temporarySegments.updated(gid, updatedTemporarySegments)
+  }
+}
+
+object H2SegmentBatch {
+
+  /** Inner Classes * */
+  //The segments in a snapshot are never changed, and the number of stores that had completed when it was published is
+  // used to detect if the cached finalized segments might also be read from the storage as a store has started since
+  case class Snapshot(batch: H2SegmentBatch, temporarySegments: Map[Int, Array[SegmentGroup]],
+                      active: Array[SegmentGroup], activeSize: Int, flushing: Array[SegmentGroup], flushingSize: Int,
+                      stored: Long) {
+    private lazy val finalizedSegmentKeys = finalizedSegments.map(key).toSet
+
+    def finalizedSegments: Iterator[SegmentGroup] = {
+      this.active.iterator.take(this.activeSize) ++ this.flushing.iterator.take(this.flushingSize)
+    }
+
+    def mightBeStored(segmentGroup: SegmentGroup): Boolean = {
+      this.batch.storing != this.stored && this.finalizedSegmentKeys.contains(key(segmentGroup))
+    }
+
+    private def key(sg: SegmentGroup): (Int, Long, Long, Int, Seq[Byte]) = {
+      (sg.gid, sg.startTime, sg.endTime, sg.mtid, sg.offsets.toSeq)
+    }
+  }
+}
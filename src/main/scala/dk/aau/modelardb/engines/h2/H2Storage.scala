@@ -22,4 +22,8 @@ trait H2Storage extends Storage {
   def storeSegmentGroups(segments: Array[SegmentGroup], length: Int): Unit
 
   def getSegmentGroups(filter: TableFilter): Iterator[SegmentGroup]
+
+  //Storages that cannot read segments while segments are being stored, e.g., as all statements are executed through
+  // one connection, are not queried by the engine while a batch is being stored
+  def supportsConcurrentQueries: Boolean = false
 }
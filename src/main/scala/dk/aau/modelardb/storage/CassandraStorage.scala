@@ -81,6 +81,9 @@ class CassandraStorage(connectionString: String) extends Storage with H2Storage
     createTable = SimpleStatement.newInstance(s"CREATE TABLE IF NOT EXISTS ${this.keyspace}.model_type(mtid INT, name TEXT, PRIMARY KEY (mtid));")
     session.execute(createTable)
 
+    createTable = SimpleStatement.newInstance(s"CREATE TABLE IF NOT EXISTS ${this.keyspace}.source_position(tid INT, source TEXT, position BIGINT, PRIMARY KEY (tid));")
+    session.execute(createTable)
+
     createTable = SimpleStatement.newInstance(s"CREATE TABLE IF NOT EXISTS ${this.keyspace}.time_series(tid INT, scaling_factor FLOAT, sampling_interval INT, gid INT${getDimensionsSQL(dimensions, "TEXT")}, PRIMARY KEY (tid));")
     session.execute(createTable)
 
@@ -164,6 +167,31 @@ class CassandraStorage(connectionString: String) extends Storage with H2Storage
     modelsInStorage
   }
 
+  override def storeSourcePositions(positions: mutable.HashMap[Integer, (String, Long)]): Unit = {
+    //The tid is the primary key so the previous position of each source is replaced
+    val session = this.connector.openSession()
+    val insertStmt = session.prepare(s"INSERT INTO ${this.keyspace}.source_position(tid, source, position) VALUES(?, ?, ?)")
+    for ((tid, (source, position)) <- positions) {
+      session.execute(insertStmt.bind().setInt(0, tid).setString(1, source).setLong(2, position))
+    }
+    session.close()
+  }
+
+  override def getSourcePositions: mutable.HashMap[Integer, (String, Long)] = {
+    val session = this.connector.openSession()
+    val stmt = SimpleStatement.newInstance(s"SELECT * FROM ${this.keyspace}.source_position")
+    val results = session.execute(stmt)
+    val positionsInStorage = mutable.HashMap[Integer, (String, Long)]()
+
+    val rows = results.iterator()
+    while (rows.hasNext) {
+      val row = rows.next
+      positionsInStorage.put(row.getInt("tid"), (row.getString("source"), row.getLong("position")))
+    }
+    session.close()
+    positionsInStorage
+  }
+
   override def getMaxTid: Int = {
     getMaxID(s"SELECT DISTINCT tid FROM ${this.keyspace}.time_series")
   }
@@ -221,6 +249,9 @@ class CassandraStorage(connectionString: String) extends Storage with H2Storage
     batch.clear()
   }
 
+  //A session is opened by each method so segments can be read while segments are being stored
+  override def supportsConcurrentQueries: Boolean = true
+
   def getSegmentGroups(filter: TableFilter): Iterator[SegmentGroup] = {
     val predicates = H2.expressionToSQLPredicates(filter.getSelect.getCondition,
       this.timeSeriesGroupCache, this.memberTimeSeriesCache, supportsOr = false)
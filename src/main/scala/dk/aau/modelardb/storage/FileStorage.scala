@@ -87,6 +87,24 @@ abstract class FileStorage(rootFolder: String) extends Storage with H2Storage wi
     this.mergeAndDeleteInputFiles(outputFilePath, outputFilePath, newFilePath)
   }
 
+  override final def storeSourcePositions(positions: mutable.HashMap[Integer, (String, Long)]): Unit = {
+    //The file is replaced by a file with all of the positions as the new position of a source replaces its previous
+    val sourcePositions = this.getSourcePositions ++= positions
+    val outputFilePath = new Path(this.rootFolder + "source_position" + this.getFileSuffix)
+    val newFilePath = new Path(this.rootFolder + "source_position" + this.getFileSuffix + "_new")
+    this.writeSourcePositionFile(sourcePositions, newFilePath)
+    this.mergeAndDeleteInputFiles(outputFilePath, newFilePath)
+  }
+
+  override final def getSourcePositions: mutable.HashMap[Integer, (String, Long)] = {
+    val sourcePositionFile = new Path(this.rootFolder + "source_position" + this.getFileSuffix)
+    if (this.fileSystem.exists(sourcePositionFile)) {
+      this.readSourcePositionFile(sourcePositionFile)
+    } else {
+      mutable.HashMap[Integer, (String, Long)]()
+    }
+  }
+
   private def mergeAndDeleteInputFiles(outputFilePath: Path, inputFilesPaths: Path*): Unit = {
     //Check the input files exists and merge them
     val inputFilePathsThatExists = mutable.ArrayBuffer[Path]()
@@ -129,11 +147,31 @@ abstract class FileStorage(rootFolder: String) extends Storage with H2Storage wi
     this.fileSystem.rename(this.segmentNewPath, new Path(this.getSegmentGroupPath))
 
     if (shouldMerge()) {
+      //The files are selected while holding the lock so files being listed by a query are not merged, and the merge is
+      // abandoned if a query has started reading any of the merged files since, as they cannot be deleted until it ends
       this.unlockSegmentGroupFilesFolders()
-      val allFiles = this.listFiles(this.segmentFolderPath)
-      val filesToMerge = allFiles.filter(ff => !this.segmentGroupFilesInQuery.contains(ff))
-      this.mergeFiles(this.segmentNewPath, filesToMerge)
-      this.replaceSegmentFilesAndFolders(filesToMerge)
+      this.fileStorageLock.writeLock().lock()
+      val filesToMerge = try {
+        this.listFiles(this.segmentFolderPath).filter(ff => !this.segmentGroupFilesInQuery.contains(ff))
+      } finally {
+        this.fileStorageLock.writeLock().unlock()
+      }
+
+      //The merge is skipped if queries are reading all but one of the files as there is nothing to merge them with
+      if (filesToMerge.length > 1) {
+        this.mergeFiles(this.segmentNewPath, filesToMerge)
+
+        this.fileStorageLock.writeLock().lock()
+        try {
+          if (filesToMerge.exists(ff => this.segmentGroupFilesInQuery.contains(ff))) {
+            this.fileSystem.delete(this.segmentNewPath, false)
+          } else {
+            this.replaceSegmentFilesAndFolders(filesToMerge)
+          }
+        } finally {
+          this.fileStorageLock.writeLock().unlock()
+        }
+      }
     }
   }
 
@@ -194,16 +232,25 @@ abstract class FileStorage(rootFolder: String) extends Storage with H2Storage wi
   }
 
   override final def getSegmentGroups(filter: TableFilter): Iterator[SegmentGroup] = {
-    val segmentGroupFiles = this.listFiles(this.segmentFolderPath)
-    if (segmentGroupFiles.isEmpty) {
-      Array[SegmentGroup]().iterator
-    } else {
-      val iterator = this.readSegmentGroupsFiles(filter, segmentGroupFiles)
-      this.lockSegmentGroupFilesAndFolders(segmentGroupFiles.asInstanceOf[mutable.ArrayBuffer[Object]], iterator)
-      iterator
+    //The files are listed, opened, and registered as being read while holding the lock, so a merge running concurrently
+    // in the flusher cannot delete them in between
+    this.fileStorageLock.writeLock().lock()
+    try {
+      val segmentGroupFiles = this.listFiles(this.segmentFolderPath)
+      if (segmentGroupFiles.isEmpty) {
+        Array[SegmentGroup]().iterator
+      } else {
+        val iterator = this.readSegmentGroupsFiles(filter, segmentGroupFiles)
+        this.lockSegmentGroupFilesAndFolders(segmentGroupFiles.asInstanceOf[mutable.ArrayBuffer[Object]], iterator)
+        iterator
+      }
+    } finally {
+      this.fileStorageLock.writeLock().unlock()
     }
   }
 
+  override final def supportsConcurrentQueries: Boolean = true
+
   protected final def lockSegmentGroupFilesAndFolders(segmentGroupFiles: mutable.ArrayBuffer[Object], iterator: Object): Unit = {
     this.fileStorageLock.writeLock().lock()
     segmentGroupFiles.foreach(sgf => this.segmentGroupFilesInQuery(sgf) += 1)
@@ -238,6 +285,7 @@ abstract class FileStorage(rootFolder: String) extends Storage with H2Storage wi
     //Deletes files leftover if the system terminates abnormally before ingestion begins
     this.deleteNewMergeAndBackup("time_series")
     this.deleteNewMergeAndBackup("model_type")
+    this.deleteNewMergeAndBackup("source_position")
 
     //Recover from system terminating abnormally while writing or merging segment files
     if (this.fileSystem.exists(this.segmentLogPath)) {
@@ -347,6 +395,10 @@ abstract class FileStorage(rootFolder: String) extends Storage with H2Storage wi
 
   protected def readModelTypeFile(modelTypeFilePath: Path): mutable.HashMap[String, Integer]
 
+  protected def writeSourcePositionFile(positions: mutable.HashMap[Integer, (String, Long)], sourcePositionFilePath: Path): Unit
+
+  protected def readSourcePositionFile(sourcePositionFilePath: Path): mutable.HashMap[Integer, (String, Long)]
+
   protected def writeSegmentGroupFile(segmentGroups: Array[SegmentGroup], size: Int, segmentGroupFilePath: Path): Unit
 
   protected def readSegmentGroupsFiles(filter: TableFilter, segmentGroupFiles: mutable.ArrayBuffer[Path]): Iterator[SegmentGroup]
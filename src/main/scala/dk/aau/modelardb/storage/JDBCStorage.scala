@@ -56,6 +56,12 @@ class JDBCStorage(connectionStringAndTypes: String) extends Storage with H2Stora
       stmt.executeUpdate("CREATE INDEX segment_end_time ON segment(end_time)")
     }
 
+    //The positions of the sources are created separately so databases created before they were stored can be used
+    if ( ! metadata.getTables(null, null, "SOURCE_POSITION", tableType).next()) {
+      val stmt = this.connection.createStatement()
+      stmt.executeUpdate(s"CREATE TABLE source_position(tid INTEGER, source ${this.textType}, position BIGINT)")
+    }
+
     //Prepares the necessary statements
     this.insertStmt = this.connection.prepareStatement("INSERT INTO segment VALUES(?, ?, ?, ?, ?, ?)")
     this.getMaxTidStmt = this.connection.prepareStatement("SELECT MAX(tid) FROM time_series")
@@ -142,6 +148,32 @@ class JDBCStorage(connectionStringAndTypes: String) extends Storage with H2Stora
     modelsInStorage
   }
 
+  override def storeSourcePositions(positions: mutable.HashMap[Integer, (String, Long)]): Unit = {
+    //The previous position of each source is replaced so only the position of its last ingestion is stored
+    val deletePositionStmt = connection.prepareStatement("DELETE FROM source_position WHERE tid = ?")
+    val insertPositionStmt = connection.prepareStatement("INSERT INTO source_position VALUES(?, ?, ?)")
+    for ((tid, (source, position)) <- positions) {
+      deletePositionStmt.setInt(1, tid)
+      deletePositionStmt.executeUpdate()
+      insertPositionStmt.clearParameters()
+      insertPositionStmt.setInt(1, tid)
+      insertPositionStmt.setString(2, source)
+      insertPositionStmt.setLong(3, position)
+      insertPositionStmt.executeUpdate()
+    }
+    this.connection.commit()
+  }
+
+  override def getSourcePositions: mutable.HashMap[Integer, (String, Long)] = {
+    val stmt = this.connection.createStatement()
+    val results = stmt.executeQuery("SELECT * FROM source_position")
+    val positionsInStorage = mutable.HashMap[Integer, (String, Long)]()
+    while (results.next) {
+      positionsInStorage.put(results.getInt(1), (results.getString(2), results.getLong(3)))
+    }
+    positionsInStorage
+  }
+
   override def getMaxTid: Int = {
     getFirstInteger(this.getMaxTidStmt)
   }
@@ -236,6 +236,50 @@ class ORCStorage(rootFolder: String) extends FileStorage(rootFolder) {
     modelsInStorage
   }
 
+  override protected def writeSourcePositionFile(positions: mutable.HashMap[Integer, (String, Long)],
+                                                sourcePositionFilePath: Path): Unit = {
+    val schema = TypeDescription.createStruct()
+      .addField("tid", TypeDescription.createInt())
+      .addField("source", TypeDescription.createString())
+      .addField("position", TypeDescription.createLong())
+    val sourcePositions = getWriter(sourcePositionFilePath, schema)
+    val batch = sourcePositions.getSchema.createRowBatch()
+
+    for ((tid, (source, position)) <- positions) {
+      val row = {
+        batch.size += 1; batch.size - 1
+      } //batch++
+      batch.cols(0).asInstanceOf[LongColumnVector].vector(row) = tid.intValue()
+      batch.cols(1).asInstanceOf[BytesColumnVector].setVal(row, source.getBytes)
+      batch.cols(2).asInstanceOf[LongColumnVector].vector(row) = position
+      flushIfNecessary(sourcePositions, batch)
+    }
+    flush(sourcePositions, batch)
+    sourcePositions.close()
+  }
+
+  override protected def readSourcePositionFile(sourcePositionFilePath: Path): mutable.HashMap[Integer, (String, Long)] = {
+    val positionsInStorage = mutable.HashMap[Integer, (String, Long)]()
+    val sourcePositions = try {
+      getReader(sourcePositionFilePath)
+    } catch {
+      case _: FileNotFoundException => return positionsInStorage
+    }
+
+    val rows = sourcePositions.rows()
+    val batch = sourcePositions.getSchema.createRowBatch()
+    while (rows.nextBatch(batch)) {
+      for (row <- 0 until batch.size) {
+        val tid = batch.cols(0).asInstanceOf[LongColumnVector].vector(row).toInt
+        val source = batch.cols(1).asInstanceOf[BytesColumnVector].toString(row)
+        val position = batch.cols(2).asInstanceOf[LongColumnVector].vector(row)
+        positionsInStorage.put(tid, (source, position))
+      }
+    }
+    rows.close()
+    positionsInStorage
+  }
+
   //FileStorage - H2Storage
   override protected def writeSegmentGroupFile(segmentGroups: Array[SegmentGroup], size: Int, segmentGroupFilePath: Path): Unit = {
     val segments = getWriter(segmentGroupFilePath, this.segmentGroupSchema)
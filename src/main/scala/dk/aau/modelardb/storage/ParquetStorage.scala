@@ -231,6 +231,42 @@ class ParquetStorage(rootFolder: String) extends FileStorage(rootFolder) {
     modelsInStorage
   }
 
+  override protected def writeSourcePositionFile(positions: mutable.HashMap[Integer, (String, Long)],
+                                                sourcePositionFilePath: Path): Unit = {
+    val schema = new MessageType("source_position",
+      new PrimitiveType(Type.Repetition.REQUIRED, PrimitiveType.PrimitiveTypeName.INT32, "tid"),
+      new PrimitiveType(Type.Repetition.REQUIRED, PrimitiveType.PrimitiveTypeName.BINARY, "source"),
+      new PrimitiveType(Type.Repetition.REQUIRED, PrimitiveType.PrimitiveTypeName.INT64, "position"))
+
+    val writer = getWriter(sourcePositionFilePath, schema)
+    for ((tid, (source, position)) <- positions) {
+      val group = new SimpleGroup(schema)
+      group.add(0, tid.intValue())
+      group.add(1, source)
+      group.add(2, position)
+      writer.write(group)
+    }
+    writer.close()
+  }
+
+  override protected def readSourcePositionFile(sourcePositionFilePath: Path): mutable.HashMap[Integer, (String, Long)] = {
+    val positionsInStorage = new mutable.HashMap[Integer, (String, Long)]()
+    val sourcePositions = getReader(sourcePositionFilePath)
+    var pages = sourcePositions.readNextRowGroup()
+    val schema = sourcePositions.getFooter.getFileMetaData.getSchema
+    val columnIO = new ColumnIOFactory().getColumnIO(schema)
+    while (pages != null) {
+      val recordReader = columnIO.getRecordReader(pages, new GroupRecordConverter(schema))
+      for (_ <- 0 until pages.getRowCount.toInt) {
+        val group = recordReader.read()
+        positionsInStorage.put(group.getInteger(0, 0), (group.getString(1, 0), group.getLong(2, 0)))
+      }
+      pages = sourcePositions.readNextRowGroup()
+    }
+    sourcePositions.close()
+    positionsInStorage
+  }
+
   //FileStorage - H2Storage
   override protected def writeSegmentGroupFile(segmentGroups: Array[SegmentGroup], size: Int, segmentGroupFile: Path): Unit = {
     val writer = getWriter(segmentGroupFile, this.segmentGroupSchema)
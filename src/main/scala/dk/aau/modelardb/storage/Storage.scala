@@ -54,6 +54,24 @@ abstract class Storage {
 
   def close(): Unit
 
+  //Maps the tid of a time series to its source and the position in the source that has been ingested
+  def storeSourcePositions(positions: mutable.HashMap[Integer, (String, Long)]): Unit
+
+  def getSourcePositions: mutable.HashMap[Integer, (String, Long)]
+
+  def getIngestedSources(sources: Array[String]): Option[Int] = {
+    //The sources have been ingested before if they have consecutive tids in the order they are specified in, if they
+    // have been ingested multiple times the most recent ingestion is used, and the tid before them is returned
+    val positions = this.getSourcePositions
+    val firstTids = positions.keys.map(_.intValue).filter(tid =>
+      sources.indices.forall(i => positions.get(tid + i).exists(_._1 == sources(i))))
+    if (sources.isEmpty || firstTids.isEmpty) {
+      None
+    } else {
+      Some(firstTids.max - 1)
+    }
+  }
+
   def storeMetadataAndInitializeCaches(configuration: Configuration, timeSeriesGroups: Array[TimeSeriesGroup]): Unit = {
 
     //The Dimensions object is stored so the schema can be retrieved later
@@ -66,7 +84,7 @@ abstract class Storage {
     //Computes the set of model types that must be inserted for the system to
     // function, per definition the mtid of the fallback model type is one
     val modelTypesToBeInserted = mutable.HashMap[String, Integer]()
-    val modelsWithFallback = mutable.ArrayBuffer[String](configuration.getModelTypeNames: _*)
+    val modelsWithFallback = mutable.ArrayBuffer[String](configuration.getAllModelTypeNames: _*)
     modelsWithFallback.prepend("dk.aau.modelardb.core.models.UncompressedModelType")
     val modelTypesInStorage = this.getModelTypes
     var mtid: Integer = modelTypesInStorage.values.reduceOption(_ max _).getOrElse(0)
@@ -49,7 +49,7 @@ class DimensionsTest extends AnyWordSpec {
     }
 
     val timeSeries: Array[TimeSeries] = dimensions.getSources.map(source => new TimeSeriesCSV(source, 1, 1000, " ", false,
-      0, "unix", "UTC", 1, "en"))
+      0, "unix", "UTC", 1, "en", 0))
 
     "create nine time series groups based on correlation by source" in {
       val configuration = new Configuration()
@@ -0,0 +1,87 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.timeseries.{TimeSeries, TimeSeriesCSV}
+
+import java.io.{File, PrintWriter}
+import java.nio.file.Files
+import scala.util.Random
+
+//Compares the time used to ingest a group from CSV files with and without the ingestion pipeline while the finalized
+// segments are written in batches to a simulated storage that blocks for a fixed time per batch like H2 does when it
+// calls storeSegmentGroups. The benchmark is executed with the command:
+// sbt "Test/runMain dk.aau.modelardb.core.IngestionPipelineBenchmark [dataPoints] [batchSize] [flushMillis]"
+object IngestionPipelineBenchmark {
+
+  /** Public Methods **/
+  def main(args: Array[String]): Unit = {
+    val dataPoints = if (args.length > 0) args(0).toInt else 1000000
+    val batchSize = if (args.length > 1) args(1).toInt else 1000
+    val flushMillis = if (args.length > 2) args(2).toInt else 50
+    val directory = Files.createTempDirectory("modelardb-pipeline").toFile
+    val paths = (1 to 4).map(tid => generate(new File(directory, s"$tid.csv"), dataPoints))
+
+    //The fastest of the iterations is reported so the JVM has time to compile the methods
+    for (capacity <- Array(0, 4096)) {
+      var fastest = Long.MaxValue
+      var statistics = ""
+      for (_ <- 1 to 3) {
+        val (time, pipeline) = ingest(paths, capacity, batchSize, flushMillis)
+        fastest = Math.min(fastest, time)
+        statistics = if (pipeline == null) "" else pipeline.toString
+      }
+      println(f"Capacity $capacity%5d | ${fastest / 1000000}%6d ms | $statistics")
+    }
+    directory.listFiles().foreach(_.delete())
+    directory.delete()
+  }
+
+  /** Private Methods **/
+  private def generate(file: File, dataPoints: Int): String = {
+    val random = new Random(file.getName.hashCode)
+    val writer = new PrintWriter(file)
+    var level = 100.0
+    for (row <- 0 until dataPoints) {
+      level += random.nextGaussian()
+      writer.println(f"${row * 100L},${level}%.2f")
+    }
+    writer.close()
+    file.getAbsolutePath
+  }
+
+  private def ingest(paths: Seq[String], capacity: Int, batchSize: Int, flushMillis: Int): (Long, IngestionPipeline) = {
+    val timeSeries: Array[TimeSeries] = paths.zipWithIndex.map { case (path, index) =>
+      new TimeSeriesCSV(path, index + 1, 100, ",", false, 0, "java", "UTC", 1, "en", 0)
+    }.toArray
+    val groups = Array(new TimeSeriesGroup(1, timeSeries))
+    val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType",
+      "dk.aau.modelardb.core.models.SwingFilterModelType", "dk.aau.modelardb.core.models.FacebookGorillaModelType")
+    val workingSet = new WorkingSet(groups, 0.0F, Array(mtn), Array(Array(2, 3, 4)), 5.0F, Array(0.0F),
+      new SelectionPolicies.CompressionRatio(), 50, 0, 0, capacity, 0, false)
+
+    var batched = 0
+    val startTime = System.nanoTime()
+    workingSet.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+      (_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => {
+        batched += 1
+        if (batched == batchSize) {
+          Thread.sleep(flushMillis)
+          batched = 0
+        }
+      }, () => false)
+    (System.nanoTime() - startTime, workingSet.getIngestionPipeline)
+  }
+}
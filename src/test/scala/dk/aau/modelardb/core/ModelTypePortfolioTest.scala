@@ -0,0 +1,63 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.timeseries.TimeSeries
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class ModelTypePortfolioTest extends AnyFlatSpec with Matchers {
+
+  private val modelTypeNames = Array("dk.aau.modelardb.core.models.PMC_MeanModelType",
+    "dk.aau.modelardb.core.models.FacebookGorillaModelType")
+
+  private def newTimeSeries(source: String): TimeSeries = {
+    new TimeSeries(source, 1, 100) {
+      override def open(): Unit = ()
+
+      override def close(): Unit = ()
+
+      override def hasNext: Boolean = false
+
+      override def next(): DataPoint = null
+    }
+  }
+
+  private def newPortfolio(sources: Array[String], modelTypeNames: Array[String]): ModelTypePortfolio = {
+    val selector = new Correlation()
+    selector.addSources(sources)
+    new ModelTypePortfolio(selector, modelTypeNames)
+  }
+
+  it should "select the first portfolio that contains all time series in a group" in {
+    val dimensions = new Dimensions(Array())
+    val portfolios = Array(newPortfolio(Array("flat"), modelTypeNames.take(1)),
+      newPortfolio(Array("flat", "noisy"), modelTypeNames.drop(1)))
+    val default = Array("dk.aau.modelardb.core.models.SwingFilterModelType")
+
+    ModelTypePortfolio.select(portfolios, default, Array(newTimeSeries("flat")), dimensions) should equal(modelTypeNames.take(1))
+    ModelTypePortfolio.select(portfolios, default, Array(newTimeSeries("flat"), newTimeSeries("noisy")),
+      dimensions) should equal(modelTypeNames.drop(1))
+    ModelTypePortfolio.select(portfolios, default, Array(newTimeSeries("flat"), newTimeSeries("other")),
+      dimensions) should equal(default)
+    ModelTypePortfolio.getAllModelTypeNames(portfolios, default) should equal(default ++ modelTypeNames)
+  }
+
+  it should "only allow time series to be selected by sources and members" in {
+    val selector = new Correlation()
+    selector.setDistance(0.5F)
+    an[IllegalArgumentException] should be thrownBy new ModelTypePortfolio(selector, modelTypeNames)
+  }
+}
@@ -0,0 +1,138 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.timeseries.TimeSeries
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.collection.mutable
+import scala.util.Random
+
+class SegmentGeneratorTest extends AnyFlatSpec with Matchers {
+
+  behavior of "SegmentGenerator"
+
+  it should "emit the same segments when the model types are fitted in parallel" in {
+    //Both with and without dynamic splitting so the model types are also fitted in parallel by split generators
+    for (dynamicSplitFraction <- Seq(0.0F, 10.0F)) {
+      val sequential = ingest(0, dynamicSplitFraction)
+      val parallel = ingest(1, dynamicSplitFraction)
+      sequential.length should be > 100
+      parallel should equal(sequential)
+    }
+  }
+
+  it should "join split time series close to zero when they are within the absolute error bound" in {
+    //The time series diverge so the group is split, and then both fluctuate around zero where only the absolute error
+    // bound can make them correlated, so the group is only joined again when the bound is used by the heuristics
+    joinedSegments(0.0F) should equal(0)
+    joinedSegments(0.5F) should be > 0
+  }
+
+  /** Private Methods * */
+  private def joinedSegments(absoluteErrorBound: Float): Int = {
+    def newZeroCentredTimeSeries(tid: Int): TimeSeries = {
+      val noise = new Random(tid)
+      val values = (0 until 8000).map(index =>
+        if (index < 1000) 50.0F
+        else if (index < 3000) (if (tid == 2) 50.0F * (1.0F + 0.015F * (index % 3)) else 50.0F)
+        else if (index < 4000 && tid == 2) 50.0F
+        else 0.8F * noise.nextFloat() - 0.4F).toArray
+      newTimeSeries(tid, values)
+    }
+    val groups = Array(new TimeSeriesGroup(1, Array(newZeroCentredTimeSeries(1), newZeroCentredTimeSeries(2))))
+    val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType")
+    val workingSet = new WorkingSet(groups, 10.0F, Array(mtn), Array(Array(2)), 1.0F, Array(absoluteErrorBound),
+      new SelectionPolicies.CompressionRatio(), 50, 0, 0, 0, 0, false)
+
+    //A finalized segment without gaps after the time series have converged is emitted by the joined group
+    var joined = 0
+    workingSet.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+      (_: Int, startTime: Long, _: Long, _: Int, _: Array[Byte], gaps: Array[Byte]) =>
+        if (startTime >= 400000L && gaps.isEmpty) joined += 1, () => false)
+    joined
+  }
+
+  private def ingest(parallelModelTypesThreshold: Int, dynamicSplitFraction: Float): Seq[String] = {
+    val groups = Array(new TimeSeriesGroup(1, (1 to 4).map(newTimeSeries).toArray),
+      new TimeSeriesGroup(2, (5 to 6).map(newTimeSeries).toArray))
+    val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType",
+      "dk.aau.modelardb.core.models.SwingFilterModelType", "dk.aau.modelardb.core.models.PolynomialModelType",
+      "dk.aau.modelardb.core.models.FacebookGorillaModelType")
+    val workingSet = new WorkingSet(groups, dynamicSplitFraction, Array.fill(groups.length)(mtn),
+      Array.fill(groups.length)(Array(2, 3, 4, 5)), 5.0F, Array.fill(groups.length)(0.0F),
+      new SelectionPolicies.CompressionRatio(), 50, 7, parallelModelTypesThreshold, 0, 0, false)
+
+    //The temporary and finalized segments are compared in the order they are emitted
+    val segments = mutable.ArrayBuffer[String]()
+    def segmentToString(kind: String)(gid: Int, startTime: Long, endTime: Long, mtid: Int, model: Array[Byte],
+                                      gaps: Array[Byte]): Unit = {
+      segments.append(s"$kind $gid $startTime $endTime $mtid ${model.mkString(",")} ${gaps.mkString(",")}")
+    }
+    workingSet.process(segmentToString("T"), segmentToString("F"), () => false)
+    segments
+  }
+
+  private def newTimeSeries(tid: Int, values: Array[Float]): TimeSeries = {
+    new TimeSeries("memory", tid, 100) {
+      private var index = 0
+
+      override def open(): Unit = ()
+
+      override def close(): Unit = ()
+
+      override def hasNext: Boolean = this.index < values.length
+
+      override def next(): DataPoint = {
+        val dataPoint = new DataPoint(tid, this.index * 100L, values(this.index))
+        this.index += 1
+        dataPoint
+      }
+    }
+  }
+
+  private def newTimeSeries(tid: Int): TimeSeries = {
+    //The values alternate between stretches that each of the model types can represent and a few gaps
+    val random = new Random(tid / 5)
+    val noise = new Random(tid)
+    val values = (0 until 3000).map(index => (index / 200) % 4 match {
+      case 0 => 100.0F
+      case 1 => 100.0F + index % 200
+      case 2 => 100.0F + 50 * random.nextFloat() + noise.nextFloat()
+      case _ => if (index % 97 < 3) Float.NaN else 100.0F + (index % 200) * (index % 200) / 100.0F
+    }).toArray
+
+    new TimeSeries("memory", tid, 100) {
+      private var index = 0
+
+      override def open(): Unit = ()
+
+      override def close(): Unit = ()
+
+      override def hasNext: Boolean = this.index < values.length
+
+      override def next(): DataPoint = {
+        //Missing rows in one time series makes the group emit segments with gaps
+        if (tid == 2 && this.index == 1500) {
+          this.index += 30
+        }
+        val dataPoint = new DataPoint(tid, this.index * 100L, values(this.index))
+        this.index += 1
+        dataPoint
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.models.ModelTypeFactory
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class SelectionPoliciesTest extends AnyFlatSpec with Matchers {
+
+  behavior of "SelectionPolicies"
+
+  private val pmc = ModelTypeFactory.getProvider("dk.aau.modelardb.core.models.PMC_MeanModelType")
+  private val gorilla = ModelTypeFactory.getProvider("dk.aau.modelardb.core.models.FacebookGorillaModelType")
+
+  it should "parse the included selection policies" in {
+    SelectionPolicies.parse("compression_ratio") shouldBe a[SelectionPolicies.CompressionRatio]
+    SelectionPolicies.parse(" weighted 1 2.5 0.5 ") shouldBe a[SelectionPolicies.Weighted]
+    SelectionPolicies.parse("dk.aau.modelardb.core.SelectionPolicies$CompressionRatio") shouldBe a[SelectionPolicies.CompressionRatio]
+  }
+
+  it should "reject malformed selection policies" in {
+    for (selectionPolicy <- Array("compression_ratio 1", "weighted 1 1", "weighted 1 one 0.5", "weighted 1 1 2",
+      "weighted -1 1 0.5", "dk.aau.modelardb.core.NoSuchSelectionPolicy")) {
+      an[IllegalArgumentException] should be thrownBy SelectionPolicies.parse(selectionPolicy)
+    }
+  }
+
+  it should "rank model types by compression ratio when only the size is weighted" in {
+    val policy = SelectionPolicies.parse("weighted 1 0 0")
+    policy.score(pmc, null, 8.0F) should be > policy.score(gorilla, null, 4.0F)
+    policy.score(gorilla, null, 8.0F) should be > policy.score(pmc, null, 4.0F)
+  }
+
+  it should "prefer model types with aggregate pushdown when queries are aggregates" in {
+    //With the same compression ratio Gorilla is more expensive to decode and PMC-Mean's aggregates do not decode
+    val policy = SelectionPolicies.parse("weighted 1 1 1")
+    policy.score(pmc, null, 4.0F) should be(-4.0F)
+    policy.score(gorilla, null, 4.0F) should be(-4.0F - gorilla.getDecodeCostHint)
+  }
+
+  it should "propagate NaN so model types that cannot represent any data points are not selected" in {
+    SelectionPolicies.parse("weighted 1 1 0.5").score(pmc, null, Float.NaN).isNaN should be(true)
+  }
+}
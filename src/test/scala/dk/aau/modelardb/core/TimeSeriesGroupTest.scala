@@ -0,0 +1,164 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.timeseries.{BatchTimeSeries, TimeSeries}
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class TimeSeriesGroupTest extends AnyFlatSpec with Matchers {
+
+  private def newTimeSeries(tid: Int, timestamps: Array[Long]): TimeSeries = {
+    new TimeSeries("memory", tid, 100) {
+      private var index = 0
+
+      override def open(): Unit = ()
+
+      override def close(): Unit = ()
+
+      override def hasNext: Boolean = this.index < timestamps.length
+
+      override def next(): DataPoint = {
+        val dataPoint = new DataPoint(tid, timestamps(this.index), timestamps(this.index) / 10)
+        this.index += 1
+        dataPoint
+      }
+    }
+  }
+
+  private def newBatchTimeSeries(tid: Int, timestamps: Array[Long]): TimeSeries = {
+    new TimeSeries("memory", tid, 100) with BatchTimeSeries {
+      private var index = 0
+
+      override def open(): Unit = ()
+
+      override def close(): Unit = ()
+
+      override def hasNext: Boolean = this.index < timestamps.length
+
+      override def next(): DataPoint = throw new UnsupportedOperationException()
+
+      override def nextBatch(batchTimestamps: Array[Long], batchValues: Array[Float]): Int = {
+        //Two data points are returned at a time so the batches are refilled while the group is read
+        val count = Math.min(2, timestamps.length - this.index)
+        for (i <- 0 until count) {
+          batchTimestamps(i) = timestamps(this.index + i)
+          batchValues(i) = timestamps(this.index + i) / 10
+        }
+        this.index += count
+        count
+      }
+    }
+  }
+
+  it should "report time series without a value for a timestamp as gaps" in {
+    val tsg = new TimeSeriesGroup(1, Array(newTimeSeries(1, Array(100, 200, 300)), newTimeSeries(2, Array(100, 300))))
+    tsg.initialize()
+
+    tsg.next()
+    tsg.getTimestamp should equal (100)
+    tsg.getActiveTimeSeries should equal (2)
+    tsg.getGaps.isEmpty should be (true)
+    tsg.getValue(0) should equal (10.0F)
+    tsg.getValue(1) should equal (10.0F)
+
+    tsg.next()
+    tsg.getTimestamp should equal (200)
+    tsg.getActiveTimeSeries should equal (1)
+    tsg.isGap(0) should be (false)
+    tsg.isGap(1) should be (true)
+    tsg.getValue(0) should equal (20.0F)
+
+    tsg.next()
+    tsg.getTimestamp should equal (300)
+    tsg.getActiveTimeSeries should equal (2)
+    tsg.getGaps.isEmpty should be (true)
+    tsg.getValue(1) should equal (30.0F)
+    tsg.hasNext should be (false)
+  }
+
+  it should "keep the current values and gaps when groups are split and joined" in {
+    val tsg = new TimeSeriesGroup(1, Array(newTimeSeries(1, Array(100, 200)), newTimeSeries(2, Array(100, 300))))
+    tsg.initialize()
+    tsg.next()
+    tsg.next()
+
+    val tsgA = new TimeSeriesGroup(tsg, Array(0))
+    val tsgB = new TimeSeriesGroup(tsg, Array(1))
+    tsgA.getValue(0) should equal (20.0F)
+    tsgB.isGap(0) should be (true)
+
+    val joined = new TimeSeriesGroup(new java.util.HashSet(java.util.Arrays.asList(tsgA, tsgB)), Array(1, 2))
+    joined.getValue(0) should equal (20.0F)
+    joined.isGap(0) should be (false)
+    joined.isGap(1) should be (true)
+  }
+
+  it should "skip the data points up to the resume timestamp of each time series" in {
+    val tsA = newTimeSeries(1, Array(100, 200, 300))
+    val tsB = newTimeSeries(2, Array(100, 200))
+    tsA.resumeAfter(100)
+    tsB.resumeAfter(200)
+    val tsg = new TimeSeriesGroup(1, Array(tsA, tsB))
+    tsg.initialize()
+
+    tsg.next()
+    tsg.getTimestamp should equal (200)
+    tsg.getValue(0) should equal (20.0F)
+    tsg.isGap(1) should be (true)
+
+    tsg.next()
+    tsg.getTimestamp should equal (300)
+    tsg.getValue(0) should equal (30.0F)
+    tsg.isGap(1) should be (true)
+    tsg.hasNext should be (false)
+  }
+
+  it should "report a time series without data points as a gap" in {
+    val tsg = new TimeSeriesGroup(1, Array(newTimeSeries(1, Array(100, 200)), newTimeSeries(2, Array())))
+    tsg.initialize()
+
+    tsg.next()
+    tsg.getTimestamp should equal (100)
+    tsg.getValue(0) should equal (10.0F)
+    tsg.isGap(1) should be (true)
+
+    tsg.next()
+    tsg.getTimestamp should equal (200)
+    tsg.isGap(1) should be (true)
+    tsg.hasNext should be (false)
+  }
+
+  it should "read time series in batches and move the remaining batch when groups are split" in {
+    val tsg = new TimeSeriesGroup(1, Array(newBatchTimeSeries(1, Array(100, 200, 300, 400, 500)),
+      newBatchTimeSeries(2, Array(100, 300, 400))))
+    tsg.initialize()
+    tsg.next()
+    tsg.next()
+    tsg.isGap(1) should be (true)
+
+    val tsgA = new TimeSeriesGroup(tsg, Array(0))
+    val tsgB = new TimeSeriesGroup(tsg, Array(1))
+    val values = Iterator.continually(tsgA).takeWhile(_.hasNext).map(tsg => { tsg.next(); tsg.getValue(0) }).toList
+    values should equal (List(30.0F, 40.0F, 50.0F))
+
+    tsgB.next()
+    tsgB.getTimestamp should equal (300)
+    tsgB.getValue(0) should equal (30.0F)
+    tsgB.next()
+    tsgB.getValue(0) should equal (40.0F)
+    tsgB.hasNext should be (false)
+  }
+}
@@ -0,0 +1,108 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.timeseries.{AsyncTimeSeriesSocket, TimeSeries}
+import dk.aau.modelardb.core.utility.Static
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.{IOException, PrintWriter}
+import java.net.ServerSocket
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.{CountDownLatch, Executors, TimeUnit}
+import scala.collection.mutable
+
+class VirtualThreadIngestionTest extends AnyFlatSpec with Matchers {
+
+  behavior of "WorkingSet with virtual threads"
+
+  it should "ingest each unbounded group without waiting for a group that does not send data points" in {
+    assume(Static.supportsVirtualThreads(), "virtual threads require JDK 21 or newer")
+    val dataPoints = 500
+    val received = mutable.Map[Int, Long]().withDefaultValue(0L)
+    val sent = new CountDownLatch(3)
+
+    //The silent group only sends its data points when the other groups have been ingested or the test times out
+    val servers = (1 to 3).map(gid => serve(() => (), gid, dataPoints)) :+
+      serve(() => sent.await(10, TimeUnit.SECONDS), 4, 1)
+    var receivedBeforeSilent = 0L
+    val groups = servers.zipWithIndex.map { case (server, index) =>
+      val timeSeries: Array[TimeSeries] = Array(new AsyncTimeSeriesSocket("localhost:" + server.getLocalPort,
+        index + 1, 100, ",", 0, "java", "UTC", 1, "en"))
+      new TimeSeriesGroup(index + 1, timeSeries)
+    }.toArray
+
+    val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType")
+    val workingSet = new WorkingSet(groups, 0.0F, Array.fill(groups.length)(mtn), Array.fill(groups.length)(Array(2)),
+      0.0F, Array.fill(groups.length)(0.0F), new SelectionPolicies.CompressionRatio(), 50, 0, 0, 0, 0, true)
+    workingSet.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+      (gid: Int, startTime: Long, endTime: Long, _: Int, _: Array[Byte], _: Array[Byte]) => {
+        received(gid) += (endTime - startTime) / 100 + 1
+        if (gid != 4 && received(gid) == dataPoints) {
+          sent.countDown()
+        }
+        if (gid == 4) {
+          receivedBeforeSilent = (1 to 3).map(received).sum
+        }
+      }, () => false)
+    servers.foreach(_.close())
+
+    received should equal(Map(1 -> dataPoints, 2 -> dataPoints, 3 -> dataPoints, 4 -> 1))
+    receivedBeforeSilent should equal(3 * dataPoints)
+  }
+
+  it should "report a group that fails while the other groups are still ingested" in {
+    //The groups are ingested by a platform thread per group so the test also runs on JDKs without virtual threads, as
+    // the threads are checked and stopped the same way, and the silent group only sends its data point after the test
+    val released = new CountDownLatch(1)
+    val silentSent = new AtomicBoolean()
+    val servers = Array(serveLines(() => (), 100, row => if (row == 50) s"${row * 100},invalid" else s"${row * 100},1.0"),
+      serve(() => silentSent.set(!released.await(10, TimeUnit.SECONDS)), 2, 1))
+    val groups = servers.zipWithIndex.map { case (server, index) =>
+      val timeSeries: Array[TimeSeries] = Array(new AsyncTimeSeriesSocket("localhost:" + server.getLocalPort,
+        index + 1, 100, ",", 0, "java", "UTC", 1, "en"))
+      new TimeSeriesGroup(index + 1, timeSeries)
+    }
+
+    val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType")
+    val workingSet = new WorkingSet(groups, 0.0F, Array.fill(groups.length)(mtn), Array.fill(groups.length)(Array(2)),
+      0.0F, Array.fill(groups.length)(0.0F), new SelectionPolicies.CompressionRatio(), 50, 0, 0, 0, 0, false)
+    an[IOException] should be thrownBy workingSet.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+      (_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (), () => false, () => Executors.newCachedThreadPool())
+    silentSent.get should be(false)
+    released.countDown()
+    servers.foreach(_.close())
+  }
+
+  /** Private Methods * */
+  private def serve(before: () => Unit, gid: Int, dataPoints: Int): ServerSocket = {
+    serveLines(before, dataPoints, row => s"${row * 100},${gid * 10 + row % 7}")
+  }
+
+  private def serveLines(before: () => Unit, dataPoints: Int, line: Int => String): ServerSocket = {
+    val server = new ServerSocket(0)
+    val thread = new Thread(() => {
+      val socket = server.accept()
+      before()
+      val writer = new PrintWriter(socket.getOutputStream)
+      (0 until dataPoints).foreach(row => writer.println(line(row)))
+      writer.close()
+    })
+    thread.setDaemon(true)
+    thread.start()
+    server
+  }
+}
@@ -0,0 +1,118 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core
+
+import dk.aau.modelardb.core.timeseries.{AsyncTimeSeriesSocket, TimeSeries, TimeSeriesCSV}
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.{File, PrintWriter}
+import java.net.ServerSocket
+import scala.collection.mutable
+
+class WorkStealingSchedulerTest extends AnyFlatSpec with Matchers {
+
+  behavior of "WorkStealingScheduler"
+
+  it should "let a working set without groups left ingest the groups of other working sets" in {
+    val (first, second) = (newWorkingSet(1 to 3), newWorkingSet(4 to 4))
+    WorkingSet.shareBoundedTimeSeriesGroups(Array(first, second))
+
+    //The second working set is ingested first so it takes all of the groups from the first working set
+    ingest(second) should equal(Set(4, 3, 2, 1))
+    ingest(first) should equal(Set())
+  }
+
+  it should "not let a working set with unbounded groups delay them by ingesting the groups of other working sets" in {
+    val server = new ServerSocket(0)
+    val thread = new Thread(() => {
+      val writer = new PrintWriter(server.accept().getOutputStream)
+      (0 until 100).foreach(row => writer.println(s"${row * 100},${50 + row % 7}"))
+      writer.close()
+    })
+    thread.setDaemon(true)
+    thread.start()
+    val (first, second) = (newWorkingSet(1 to 3), newWorkingSet(4 to 4, unbounded = Some((5, server))))
+    WorkingSet.shareBoundedTimeSeriesGroups(Array(first, second))
+
+    //The second working set is ingested first but only takes its own bounded group before its unbounded group
+    val gids = mutable.ArrayBuffer[Int]()
+    second.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+      (gid: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => gids += gid, () => false)
+    server.close()
+    gids.distinct should equal(Seq(4, 5))
+    ingest(first) should equal(Set(1, 2, 3))
+  }
+
+  it should "only ingest the groups of a working set when they are not shared" in {
+    val (first, second) = (newWorkingSet(1 to 3), newWorkingSet(4 to 4))
+    ingest(second) should equal(Set(4))
+    ingest(first) should equal(Set(1, 2, 3))
+  }
+
+  it should "ingest each data point once when the groups are read ahead by the working sets" in {
+    val (first, second) = (newWorkingSet(1 to 6, 2), newWorkingSet(7 to 8, 2))
+    WorkingSet.shareBoundedTimeSeriesGroups(Array(first, second))
+
+    //The second working set steals the groups at the back of the first working set, which reads its front ahead
+    val dataPoints = Seq(first, second).map(ws => {
+      val dataPoints = mutable.Map[Int, Long]().withDefaultValue(0L)
+      val thread = new Thread(() => ws.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+        (gid: Int, startTime: Long, endTime: Long, _: Int, _: Array[Byte], _: Array[Byte]) =>
+          dataPoints(gid) += (endTime - startTime) / 100 + 1, () => false))
+      thread.start()
+      (thread, dataPoints)
+    }).map { case (thread, dataPoints) => thread.join(); dataPoints }
+    dataPoints.flatMap(_.toSeq).sorted should equal((1 to 8).map(gid => (gid, 100L)))
+    first.getPrefetcher.getPrefetchedDataPoints should be > 0L
+  }
+
+  it should "not parse the groups read ahead by the prefetcher again in the ingestion pipeline" in {
+    val workingSet = newWorkingSet(1 to 4, 2, 16)
+    ingest(workingSet) should equal(Set(1, 2, 3, 4))
+    workingSet.getPrefetcher.getPrefetchedDataPoints should equal(400L)
+    workingSet.getIngestionPipeline.getParsedDataPoints should equal(0L)
+  }
+
+  /** Private Methods * */
+  private def newWorkingSet(gids: Seq[Int], prefetchDepth: Int = 0, pipelineCapacity: Int = 0,
+                            unbounded: Option[(Int, ServerSocket)] = None): WorkingSet = {
+    val bounded = gids.map(gid => {
+      val file = File.createTempFile("modelardb-scheduler", ".csv")
+      file.deleteOnExit()
+      val writer = new PrintWriter(file)
+      (0 until 100).foreach(row => writer.println(s"${row * 100},${gid * 10 + row % 7}"))
+      writer.close()
+      val timeSeries: Array[TimeSeries] = Array(new TimeSeriesCSV(file.getAbsolutePath, gid, 100, ",", false, 0,
+        "java", "UTC", 1, "en", 0))
+      new TimeSeriesGroup(gid, timeSeries)
+    })
+    val groups = (bounded ++ unbounded.map { case (gid, server) =>
+      val timeSeries: Array[TimeSeries] = Array(new AsyncTimeSeriesSocket("localhost:" + server.getLocalPort,
+        gid, 100, ",", 0, "java", "UTC", 1, "en"))
+      new TimeSeriesGroup(gid, timeSeries)
+    }).toArray
+    val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType")
+    new WorkingSet(groups, 0.0F, Array.fill(groups.length)(mtn), Array.fill(groups.length)(Array(2)), 0.0F,
+      Array.fill(groups.length)(0.0F), new SelectionPolicies.CompressionRatio(), 50, 0, 0, pipelineCapacity, prefetchDepth, false)
+  }
+
+  private def ingest(workingSet: WorkingSet): Set[Int] = {
+    val gids = mutable.Set[Int]()
+    workingSet.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
+      (gid: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => gids.add(gid), () => false)
+    gids.toSet
+  }
+}
@@ -14,16 +14,14 @@
  */
 package dk.aau.modelardb.core.models
 
-import dk.aau.modelardb.core.DataPoint
+import dk.aau.modelardb.core.utility.DataPointBuffer
 import org.scalatest.wordspec.AnyWordSpec
 
-import java.util
-
 abstract class AbstractModelTypeTest extends AnyWordSpec {
 
   "when empty" should {
     val model = getModelType(1, 10, 50)
-    val noDataPoints = new util.ArrayList[Array[DataPoint]]()
+    val noDataPoints = new DataPointBuffer(Array(1), 50)
     model.initialize(noDataPoints)
 
     "have length zero" in {
@@ -37,12 +35,12 @@ abstract class AbstractModelTypeTest extends AnyWordSpec {
 
   "when initialized with N data points" should {
     val model = getModelType(1, 10, 50)
-    val dataPoints = new util.ArrayList[Array[DataPoint]]()
-    dataPoints.add(Array(new DataPoint(1, 100, 25)))
-    dataPoints.add(Array(new DataPoint(1, 200, 25)))
-    dataPoints.add(Array(new DataPoint(1, 300, 25)))
-    dataPoints.add(Array(new DataPoint(1, 400, 25)))
-    dataPoints.add(Array(new DataPoint(1, 500, 25)))
+    val dataPoints = new DataPointBuffer(Array(1), 50)
+    dataPoints.append(100, Array(25.0F))
+    dataPoints.append(200, Array(25.0F))
+    dataPoints.append(300, Array(25.0F))
+    dataPoints.append(400, Array(25.0F))
+    dataPoints.append(500, Array(25.0F))
     model.initialize(dataPoints)
 
     "have length N" in {
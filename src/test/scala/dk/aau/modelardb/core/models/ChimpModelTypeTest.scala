@@ -0,0 +1,62 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models
+
+import dk.aau.modelardb.core.utility.{DataPointBuffer, Static}
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class ChimpModelTypeTest extends AbstractModelTypeTest {
+  override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
+    new ChimpModelType(mtid, errorBound, lengthBound)
+  }
+
+  "when decompressed" should {
+    //The values repeat, share trailing bits with earlier values, and are random, so all of the flags are used
+    val random = new Random(0)
+    val lengthBound = 500
+    val model = getModelType(1, 0, lengthBound)
+    val dataPoints = new DataPointBuffer(Array(1, 2), lengthBound)
+    for (row <- 1 to lengthBound) {
+      val value = row % 4 match {
+        case 0 => (row % 100).toFloat
+        case 1 => java.lang.Float.intBitsToFloat(java.lang.Float.floatToIntBits(100.0F) ^ (random.nextInt(256) << 12))
+        case 2 => random.nextFloat()
+        case 3 => -random.nextInt(10).toFloat
+      }
+      dataPoints.append(row * 100, Array(random.nextGaussian().toFloat, value))
+    }
+    model.initialize(dataPoints)
+    val bytes = model.getModel(100, lengthBound * 100, 100, dataPoints)
+    val expected = (0 until lengthBound).map(row => dataPoints.getValue(row, 1))
+
+    "return the values of the time series exactly" in {
+      val segment = model.get(2, 100, lengthBound * 100, 100, bytes, Static.intToBytes(Array(2, 2, 0)))
+      assert(segment.grid().iterator().asScala.map(_.value).toSeq == expected)
+      assert(segment.max() == expected.max)
+      assert(segment.min() == expected.min)
+      assert(segment.sum() == expected.map(_.toDouble).sum)
+    }
+
+    "return the values after the start time of the segment" in {
+      val offsets = Array(2, 2, 0)
+      val startTime = Segment.start(25100, 100, lengthBound * 100, 100, offsets)
+      val segment = model.get(2, startTime, lengthBound * 100, 100, bytes, Static.intToBytes(offsets))
+      assert(segment.grid().iterator().asScala.map(_.value).toSeq == expected.drop(250))
+      assert(segment.min() == expected.drop(250).min)
+    }
+  }
+}
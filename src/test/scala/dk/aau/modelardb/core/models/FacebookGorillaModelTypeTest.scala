@@ -14,8 +14,39 @@
  */
 package dk.aau.modelardb.core.models
 
+import dk.aau.modelardb.core.utility.{DataPointBuffer, Static}
+
+import scala.collection.JavaConverters._
+
 class FacebookGorillaModelTypeTest extends AbstractModelTypeTest {
   override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
     new FacebookGorillaModelType(mtid, errorBound, lengthBound)
   }
+
+  "when decompressed" should {
+    val model = getModelType(1, 0, 50)
+    val dataPoints = new DataPointBuffer(Array(1, 2), 50)
+    for (row <- 1 to 50) {
+      dataPoints.append(row * 100, Array(row.toFloat, (row * row).toFloat / 3))
+    }
+    model.initialize(dataPoints)
+    val bytes = model.getModel(100, 5000, 100, dataPoints)
+    val expected = (1 to 50).map(row => (row * row).toFloat / 3)
+
+    "return the values of the time series regardless of the order they are used in" in {
+      val segment = model.get(2, 100, 5000, 100, bytes, Static.intToBytes(Array(2, 2, 0)))
+      assert(segment.max() == expected.max)
+      assert(segment.min() == expected.min)
+      assert(segment.grid().iterator().asScala.map(_.value).toSeq == expected)
+      assert(segment.sum() == expected.map(_.toDouble).sum)
+    }
+
+    "return the values after the start time of the segment" in {
+      val offsets = Array(2, 2, 0)
+      val startTime = Segment.start(2600, 100, 5000, 100, offsets)
+      val segment = model.get(2, startTime, 5000, 100, bytes, Static.intToBytes(offsets))
+      assert(segment.grid().iterator().asScala.map(_.value).toSeq == expected.drop(25))
+      assert(segment.min() == expected(25))
+    }
+  }
 }
@@ -0,0 +1,104 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models
+
+import dk.aau.modelardb.core.utility.{DataPointBuffer, Static}
+
+import scala.io.Source
+import scala.util.Random
+
+//Compares the compression ratio and the encode and decode throughput of the lossless model types on the values in
+// testdata_unix.csv, which are repeated to get enough data points for the measurements, and on a noisy random walk
+// with two decimals like the data points produced by many sensors. The benchmark is executed with the command:
+// sbt "Test/runMain dk.aau.modelardb.core.models.LosslessModelTypeBenchmark [lengthBound] [dataPoints]"
+object LosslessModelTypeBenchmark {
+
+  /** Public Methods **/
+  def main(args: Array[String]): Unit = {
+    val lengthBound = if (args.length > 0) args(0).toInt else 50
+    val dataPoints = if (args.length > 1) args(1).toInt else 1000000
+    val datasets = Array(("testdata_unix.csv", readTestData("testdata_unix.csv", dataPoints)),
+      ("Noisy Random Walk", generate(dataPoints)))
+    val modelTypeNames = Array("FacebookGorillaModelType", "ChimpModelType")
+
+    for ((dataset, values) <- datasets) {
+      val segments = values.grouped(lengthBound).map(segment => {
+        val buffer = new DataPointBuffer(Array(1), lengthBound)
+        segment.zipWithIndex.foreach { case (value, row) => buffer.append(row * 100L, Array(value)) }
+        buffer
+      }).toArray
+      val expectedSum = values.grouped(lengthBound).map(_.foldLeft(0.0)(_ + _)).sum
+      val rawBytes = 4.0 * values.length
+
+      //The fastest of the iterations is reported so the JVM has time to compile the methods
+      println(dataset)
+      for (name <- modelTypeNames) {
+        val modelType = ModelTypeFactory.getModel("dk.aau.modelardb.core.models." + name, 1, 0.0F, lengthBound)
+        var bestEncodeTime = Long.MaxValue
+        var bestDecodeTime = Long.MaxValue
+        var compressedBytes = 0L
+        for (_ <- 1 to 10) {
+          val (models, encodeTime) = encode(modelType, segments)
+          val (sum, decodeTime) = decode(modelType, models, segments)
+          if (sum != expectedSum) {
+            throw new IllegalStateException(s"$name did not reconstruct the values in $dataset")
+          }
+          bestEncodeTime = Math.min(bestEncodeTime, encodeTime)
+          bestDecodeTime = Math.min(bestDecodeTime, decodeTime)
+          compressedBytes = models.map(_.length.toLong).sum
+        }
+        println(f"-- $name%-24s | ratio: ${rawBytes / compressedBytes}%6.2f" +
+          f" | encode: ${rawBytes / bestEncodeTime * 1000}%7.1f MB/s" +
+          f" | decode: ${rawBytes / bestDecodeTime * 1000}%7.1f MB/s")
+      }
+    }
+  }
+
+  /** Private Methods **/
+  private def readTestData(path: String, dataPoints: Int): Array[Float] = {
+    val source = Source.fromFile(path)
+    val values = try source.getLines().map(_.split(',')(1).toFloat).toArray finally source.close()
+    Array.tabulate(dataPoints)(index => values(index % values.length))
+  }
+
+  private def generate(dataPoints: Int): Array[Float] = {
+    val random = new Random(0)
+    var level = 100.0
+    Array.fill(dataPoints) {
+      level = Math.max(1.0, level + random.nextGaussian())
+      Math.round((level + random.nextGaussian()) * 100).toFloat / 100
+    }
+  }
+
+  private def encode(modelType: ModelType, segments: Array[DataPointBuffer]): (Array[Array[Byte]], Long) = {
+    val startTime = System.nanoTime()
+    val models = segments.map(buffer => {
+      modelType.initialize(buffer)
+      modelType.getModel(0, (buffer.size() - 1) * 100L, 100, buffer)
+    })
+    (models, System.nanoTime() - startTime)
+  }
+
+  private def decode(modelType: ModelType, models: Array[Array[Byte]], segments: Array[DataPointBuffer]): (Double, Long) = {
+    val offsets = Static.intToBytes(Array(1, 1, 0))
+    var sum = 0.0
+    val startTime = System.nanoTime()
+    for (index <- models.indices) {
+      val endTime = (segments(index).size() - 1) * 100L
+      sum += modelType.get(1, 0, endTime, 100, models(index), offsets).sum()
+    }
+    (sum, System.nanoTime() - startTime)
+  }
+}
@@ -0,0 +1,44 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class ModelTypeFactoryTest extends AnyFlatSpec with Matchers {
+
+  behavior of "ModelTypeFactory"
+
+  it should "discover the providers of the included model types" in {
+    val provider = ModelTypeFactory.getProvider("dk.aau.modelardb.core.models.FacebookGorillaModelType")
+    provider shouldBe a[ModelTypeProviders.FacebookGorilla]
+    provider.isLossless should be(true)
+    ModelTypeFactory.getProvider("dk.aau.modelardb.core.models.PMC_MeanModelType").supportsAggregatePushdown should be(true)
+  }
+
+  it should "name each model type by the class it creates" in {
+    for (name <- Array("PMC_MeanModelType", "SwingFilterModelType", "PolynomialModelType", "FacebookGorillaModelType",
+      "RunLengthModelType", "ChimpModelType", "UncompressedModelType")) {
+      val modelTypeName = "dk.aau.modelardb.core.models." + name
+      ModelTypeFactory.getModel(modelTypeName, 1, 0.0F, 50).getClass.getName should equal(modelTypeName)
+    }
+  }
+
+  it should "construct model types without a provider using reflection" in {
+    val modelTypeName = "dk.aau.modelardb.core.models.NoSuchModelType"
+    ModelTypeFactory.getProvider(modelTypeName).getName should equal(modelTypeName)
+    an[UnsupportedOperationException] should be thrownBy ModelTypeFactory.getModel(modelTypeName, 1, 0.0F, 50)
+  }
+}
@@ -0,0 +1,171 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models
+
+import dk.aau.modelardb.core.utility.DataPointBuffer
+
+import scala.util.Random
+
+//Compares the strategies for fitting and selecting model types in SegmentGenerator. The previous strategy replays the
+// buffer when switching model type and computes the compression ratio of a model type for each comparison, the lockstep
+// strategy appends each data point to all model types when it is ingested, and the current strategy replays the buffer
+// but only computes the compression ratio of each model type once. The benchmark is executed with the command:
+// sbt "Test/runMain dk.aau.modelardb.core.models.ModelTypeFittingBenchmark [errorBound] [lengthBound] [dataPoints]"
+object ModelTypeFittingBenchmark {
+
+  /** Public Methods **/
+  def main(args: Array[String]): Unit = {
+    val errorBound = if (args.length > 0) args(0).toFloat else 5.0F
+    val lengthBound = if (args.length > 1) args(1).toInt else 50
+    val dataPoints = if (args.length > 2) args(2).toInt else 1000000
+    val values = generate(3, dataPoints)
+
+    //The first iterations are not reported so the JVM has time to compile the methods
+    for (iteration <- 1 to 10) {
+      val strategies = Array(
+        ("Previous", fit(values, errorBound, lengthBound, lockstep = false, onlyComputeCompressionRatioOnce = false)),
+        ("Lockstep", fit(values, errorBound, lengthBound, lockstep = true, onlyComputeCompressionRatioOnce = true)),
+        ("Current", fit(values, errorBound, lengthBound, lockstep = false, onlyComputeCompressionRatioOnce = true)))
+      if (iteration > 5) {
+        println(s"Iteration $iteration")
+        val previousTime = strategies(0)._2._2
+        for ((strategy, (modelTypes, time)) <- strategies) {
+          println(f"$strategy%-8s | ${time / 1000000}%5d ms | speedup ${previousTime.toDouble / time}%.2fx")
+          for (mt <- modelTypes) {
+            println(f"-- ${mt.name}%-24s | appends: ${mt.appends}%10d | size: ${mt.sizes}%8d")
+          }
+        }
+      }
+    }
+  }
+
+  /** Private Methods **/
+  private def generate(groupSize: Int, dataPoints: Int): Array[Array[Float]] = {
+    //The time series are correlated random walks with noise so all of the model types are used
+    val random = new Random(0)
+    var level = 100.0
+    Array.fill(dataPoints) {
+      level = Math.max(1.0, level + (if (random.nextInt(100) < 5) random.nextGaussian() * 10 else random.nextGaussian()))
+      Array.fill(groupSize)((level + random.nextGaussian()).toFloat)
+    }
+  }
+
+  private def fit(values: Array[Array[Float]], errorBound: Float, lengthBound: Int, lockstep: Boolean,
+                  onlyComputeCompressionRatioOnce: Boolean): (Array[CountingModelType], Long) = {
+    val modelTypes = Array("PMC_MeanModelType", "SwingFilterModelType", "FacebookGorillaModelType").zipWithIndex.map {
+      case (name, index) => new CountingModelType(name,
+        ModelTypeFactory.getModel("dk.aau.modelardb.core.models." + name, index + 2, errorBound, lengthBound))
+    }
+    val fallbackModelType = ModelTypeFactory.getFallbackModelType(errorBound, lengthBound)
+    val buffer = new DataPointBuffer(values(0).indices.map(_ + 1).toArray, lengthBound)
+    var modelTypeIndex = 0
+    modelTypes.foreach(_.initialize(buffer))
+
+    val startTime = System.nanoTime()
+    for (index <- values.indices) {
+      buffer.append(index * 100L, values(index))
+      val row = buffer.size() - 1
+
+      //Determines if the current model type can represent the data points using the strategy being benchmarked
+      val currentModelTypeFailed = if (lockstep) {
+        var i = modelTypeIndex
+        while (i < modelTypes.length) {
+          if (modelTypes(i).length() == row) modelTypes(i).append(buffer, row)
+          i += 1
+        }
+        modelTypes(modelTypeIndex).length() < buffer.size()
+      } else {
+        !modelTypes(modelTypeIndex).append(buffer, row)
+      }
+
+      if (currentModelTypeFailed) {
+        modelTypeIndex += 1
+        if (modelTypeIndex == modelTypes.length) {
+          buffer.removeFirst(mostEfficientModelTypeLength(modelTypes, fallbackModelType, buffer, onlyComputeCompressionRatioOnce))
+          modelTypeIndex = 0
+          if (lockstep) modelTypes.foreach(_.initialize(buffer)) else modelTypes(0).initialize(buffer)
+        } else if (!lockstep) {
+          modelTypes(modelTypeIndex).initialize(buffer)
+        }
+      }
+    }
+    (modelTypes, System.nanoTime() - startTime)
+  }
+
+  private def mostEfficientModelTypeLength(modelTypes: Array[CountingModelType], fallbackModelType: ModelType,
+                                           buffer: DataPointBuffer, onlyComputeCompressionRatioOnce: Boolean): Int = {
+    //The same model type is selected as SegmentGenerator.emitFinalSegment() would select
+    def compressionRatio(modelType: ModelType): Float = {
+      if (modelType.length() == 0) Float.NaN else modelType.compressionRatio(
+        buffer.getTimestamp(0), buffer.getTimestamp(modelType.length() - 1), 100, buffer, 0)
+    }
+    var mostEfficientModelType: ModelType = modelTypes(0)
+    var highestCompressionRatio = compressionRatio(mostEfficientModelType)
+    for (modelType <- modelTypes) {
+      val compressionRatioOfModelType = compressionRatio(modelType)
+      if (!onlyComputeCompressionRatioOnce) {
+        highestCompressionRatio = compressionRatio(mostEfficientModelType)
+      }
+      if (!(compressionRatioOfModelType < highestCompressionRatio)) {
+        mostEfficientModelType = modelType
+        highestCompressionRatio = compressionRatioOfModelType
+      }
+    }
+    if (!onlyComputeCompressionRatioOnce) {
+      highestCompressionRatio = compressionRatio(mostEfficientModelType)
+    }
+    if (highestCompressionRatio.isNaN) {
+      fallbackModelType.initialize(buffer)
+      fallbackModelType.length()
+    } else {
+      mostEfficientModelType.length()
+    }
+  }
+
+  /** Inner Classes **/
+  private class CountingModelType(val name: String, modelType: ModelType)
+    extends ModelType(modelType.mtid, modelType.errorBound, modelType.lengthBound) {
+    private val noDataPoints = new DataPointBuffer(Array[Int](), 1)
+    var appends = 0L
+    var sizes = 0L
+
+    override def append(currentSegment: DataPointBuffer, row: Int): Boolean = {
+      this.appends += 1
+      modelType.append(currentSegment, row)
+    }
+
+    override def initialize(currentSegment: DataPointBuffer): Unit = {
+      //The buffer is replayed through this.append so the data points appended during initialization are counted
+      modelType.initialize(this.noDataPoints)
+      var row = 0
+      while (row < currentSegment.size() && append(currentSegment, row)) {
+        row += 1
+      }
+    }
+
+    override def getModel(startTime: Long, endTime: Long, samplingInterval: Int, dps: DataPointBuffer): Array[Byte] =
+      modelType.getModel(startTime, endTime, samplingInterval, dps)
+
+    override def get(tid: Int, startTime: Long, endTime: Long, samplingInterval: Int, model: Array[Byte],
+                     offsets: Array[Byte]): Segment = modelType.get(tid, startTime, endTime, samplingInterval, model, offsets)
+
+    override def length(): Int = modelType.length()
+
+    override def size(startTime: Long, endTime: Long, samplingInterval: Int, dps: DataPointBuffer): Float = {
+      this.sizes += 1
+      modelType.size(startTime, endTime, samplingInterval, dps)
+    }
+  }
+}
@@ -16,6 +16,6 @@ package dk.aau.modelardb.core.models
 
 class PMC_MeanModelTypeTest extends AbstractModelTypeTest {
   override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
-    new PMC_MeanModelType(mtid, errorBound, lengthBound)
+    new PMC_MeanModelType(mtid, errorBound, 0.0F, lengthBound)
   }
 }
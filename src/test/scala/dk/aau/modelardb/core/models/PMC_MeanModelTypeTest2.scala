@@ -14,23 +14,30 @@
  */
 package dk.aau.modelardb.core.models
 
-import dk.aau.modelardb.core.DataPoint
+import dk.aau.modelardb.core.utility.DataPointBuffer
 import org.scalatest.funsuite.AnyFunSuite
 import org.scalatest.matchers.should.Matchers
 
-import java.util
-
 
 class PMC_MeanModelTypeTest2 extends AnyFunSuite with Matchers {
 
   test("Initialize") {
-    val d1 = new DataPoint(1, 123L, 13.0f)
-    val d2 = new DataPoint(2, 124L, 12.0f)
-    val d3 = new DataPoint(3, 125L, 14.0f)
-    val array = Array(d1, d2, d3)
-    val list = util.Arrays.asList(array)
-    val model = new PMC_MeanModelType(12, 10, 10)
-    model.initialize(list)
+    val buffer = new DataPointBuffer(Array(1, 2, 3), 10)
+    buffer.append(123L, Array(13.0f, 12.0f, 14.0f))
+    val model = new PMC_MeanModelType(12, 10, 0.0F, 10)
+    model.initialize(buffer)
     model.length() should equal(1)
   }
+
+  test("Initialize with values close to zero") {
+    val buffer = new DataPointBuffer(Array(1, 2), 10)
+    buffer.append(100L, Array(0.02f, -0.01f))
+    buffer.append(200L, Array(-0.03f, 0.0f))
+    val withoutAbsoluteErrorBound = new PMC_MeanModelType(12, 10, 0.0F, 10)
+    withoutAbsoluteErrorBound.initialize(buffer)
+    withoutAbsoluteErrorBound.length() should equal(0)
+    val model = new PMC_MeanModelType(12, 10, 0.05F, 10)
+    model.initialize(buffer)
+    model.length() should equal(2)
+  }
 }
@@ -0,0 +1,64 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models
+
+import dk.aau.modelardb.core.utility.{DataPointBuffer, Static}
+
+import scala.collection.JavaConverters._
+
+class PolynomialModelTypeTest extends AbstractModelTypeTest {
+  override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
+    new PolynomialModelType(mtid, errorBound, 0.0F, lengthBound)
+  }
+
+  "when fitted to a curve" should {
+    val model = getModelType(1, 1, 50)
+    val dataPoints = new DataPointBuffer(Array(1, 2), 50)
+    for (row <- 0 until 40) {
+      val value = 100.0F + 2.0F * row - 0.05F * row * row
+      dataPoints.append(row * 100, Array(value, value * 1.001F))
+    }
+    model.initialize(dataPoints)
+
+    "represent all of the data points with one segment" in {
+      assert(model.length() == dataPoints.size())
+    }
+
+    "compute the same aggregates as from the values" in {
+      val offsets = Array(1, 2, 0)
+      val startTime = Segment.start(1000, 0, 3900, 100, offsets)
+      val segment = model.get(1, startTime, 3900, 100, model.getModel(0, 3900, 100, dataPoints), Static.intToBytes(offsets))
+      val values = segment.grid().iterator().asScala.map(_.value).toSeq
+      assert(values.length == 30)
+      assert(segment.min() == values.min)
+      assert(segment.max() == values.max)
+      assert(Math.abs(segment.sum() - values.map(_.toDouble).sum) < 0.01)
+    }
+  }
+
+  "when fitted to a line longer than the length bound" should {
+    val model = getModelType(1, 1, 50)
+    val dataPoints = new DataPointBuffer(Array(1), 100)
+    for (row <- 0 until 100) {
+      dataPoints.append(row * 100, Array(10.0F + row))
+    }
+    model.initialize(dataPoints)
+
+    "represent only as many data points as the length bound" in {
+      assert(model.length() == 50)
+      assert(!model.append(dataPoints, 50))
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.models
+
+import dk.aau.modelardb.core.utility.{DataPointBuffer, Static}
+
+import scala.collection.JavaConverters._
+
+class RunLengthModelTypeTest extends AbstractModelTypeTest {
+  override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
+    new RunLengthModelType(mtid, errorBound, 0.0F, lengthBound)
+  }
+
+  "when fitted to step signals" should {
+    //The first time series switches between three set points and the second is a breaker that is either open or closed
+    val model = getModelType(1, 0, 50)
+    val dataPoints = new DataPointBuffer(Array(1, 2), 50)
+    for (row <- 0 until 50) {
+      dataPoints.append(row * 100, Array(Array(20.0F, 22.5F, 18.0F)((row / 7) % 3), if (row % 20 < 12) 1.0F else 0.0F))
+    }
+    model.initialize(dataPoints)
+    val bytes = model.getModel(0, 4900, 100, dataPoints)
+
+    "represent all of the data points with one segment" in {
+      assert(model.length() == dataPoints.size())
+      assert(bytes.length == model.unsafeSize())
+    }
+
+    "return the values of each time series exactly" in {
+      for (column <- 0 until 2) {
+        val segment = model.get(column + 1, 0, 4900, 100, bytes, Static.intToBytes(Array(column + 1, 2, 0)))
+        val expected = (0 until 50).map(row => dataPoints.getValue(row, column))
+        assert(segment.grid().iterator().asScala.map(_.value).toSeq == expected)
+      }
+    }
+
+    "compute the same aggregates as from the values" in {
+      for (column <- 0 until 2; newStartTime <- Array(0, 1000, 2050, 4900)) {
+        val offsets = Array(column + 1, 2, 0)
+        val startTime = Segment.start(newStartTime, 0, 4900, 100, offsets)
+        val segment = model.get(column + 1, startTime, 4900, 100, bytes, Static.intToBytes(offsets))
+        val values = segment.grid().iterator().asScala.map(_.value).toSeq
+        assert(segment.min() == values.min)
+        assert(segment.max() == values.max)
+        assert(segment.sum() == values.map(_.toDouble).sum)
+      }
+    }
+  }
+
+  "when the values are within the error bound of a level" should {
+    "represent them using that level" in {
+      val model = getModelType(1, 10, 50)
+      val dataPoints = new DataPointBuffer(Array(1), 50)
+      for (value <- Array(100.0F, 105.0F, 95.0F, 50.0F, 52.0F, 109.0F)) {
+        dataPoints.append(dataPoints.size() * 100, Array(value))
+      }
+      model.initialize(dataPoints)
+      val segment = model.get(1, 0, 500, 100, model.getModel(0, 500, 100, dataPoints), Static.intToBytes(Array(1, 1, 0)))
+      assert(segment.grid().iterator().asScala.map(_.value).toSeq == Seq(100.0F, 100.0F, 100.0F, 50.0F, 50.0F, 100.0F))
+    }
+  }
+
+  "when the dictionary is full" should {
+    "reject the data point with a new level" in {
+      val model = getModelType(1, 0, 1000)
+      val dataPoints = new DataPointBuffer(Array(1), 1000)
+      for (row <- 0 to RunLengthModelType.MAX_DICTIONARY_SIZE) {
+        dataPoints.append(row * 100, Array(row.toFloat))
+      }
+      model.initialize(dataPoints)
+      assert(model.length() == RunLengthModelType.MAX_DICTIONARY_SIZE)
+    }
+  }
+
+  "when a time series has more runs than fit in the initial run arrays" should {
+    "grow the runs of that time series and represent all of the data points" in {
+      //The model type is initialized twice so the second segment reuses the runs that have grown
+      val model = getModelType(1, 0, 1000)
+      for (period <- Array(1, 3)) {
+        val dataPoints = new DataPointBuffer(Array(1, 2), 1000)
+        for (row <- 0 until 1000) {
+          dataPoints.append(row * 100, Array(((row / period) % 2).toFloat, 10.0F))
+        }
+        model.initialize(dataPoints)
+        assert(model.length() == dataPoints.size())
+
+        val bytes = model.getModel(0, 99900, 100, dataPoints)
+        assert(bytes.length == model.unsafeSize())
+        for (column <- 0 until 2) {
+          val segment = model.get(column + 1, 0, 99900, 100, bytes, Static.intToBytes(Array(column + 1, 2, 0)))
+          val expected = (0 until 1000).map(row => dataPoints.getValue(row, column))
+          assert(segment.grid().iterator().asScala.map(_.value).toSeq == expected)
+        }
+      }
+    }
+  }
+}
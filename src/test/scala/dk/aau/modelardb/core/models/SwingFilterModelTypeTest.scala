@@ -14,8 +14,40 @@
  */
 package dk.aau.modelardb.core.models
 
+import dk.aau.modelardb.core.utility.{DataPointBuffer, Static}
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
 class SwingFilterModelTypeTest extends AbstractModelTypeTest {
   override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
-    new SwingFilterModelType(mtid, errorBound, lengthBound)
+    new SwingFilterModelType(mtid, errorBound, 0.0F, lengthBound)
+  }
+
+  "when fitted to a time series crossing zero" should {
+    //The percentage error explodes close to zero, so only the absolute error bound allows the line to be used
+    val random = new Random(0)
+    val dataPoints = new DataPointBuffer(Array(1), 50)
+    for (row <- 0 until 50) {
+      dataPoints.append(row * 100, Array(-0.5F + 0.02F * row + 0.01F * random.nextFloat()))
+    }
+
+    "represent the data points within the absolute error bound" in {
+      val model = new SwingFilterModelType(1, 1, 0.05F, 50)
+      model.initialize(dataPoints)
+      assert(model.length() == dataPoints.size())
+      assert(!model.unsafeSize().isNaN)
+      val bytes = model.getModel(0, 4900, 100, dataPoints)
+      val segment = model.get(1, 0, 4900, 100, bytes, Static.intToBytes(Array(1, 1, 0)))
+      for ((dataPoint, row) <- segment.grid().iterator().asScala.zipWithIndex) {
+        assert(Math.abs(dataPoint.value - dataPoints.getValue(row, 0)) <= 0.05F)
+      }
+    }
+
+    "not represent the data points without the absolute error bound" in {
+      val model = new SwingFilterModelType(1, 1, 0.0F, 50)
+      model.initialize(dataPoints)
+      assert(model.length() < dataPoints.size())
+    }
   }
 }
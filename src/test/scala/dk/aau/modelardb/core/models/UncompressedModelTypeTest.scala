@@ -16,6 +16,6 @@ package dk.aau.modelardb.core.models
 
 class UncompressedModelTypeTest extends AbstractModelTypeTest {
   override protected def getModelType(mtid: Int, errorBound: Float, lengthBound: Int): ModelType = {
-    new UncompressedModelType(mtid, errorBound, lengthBound)
+    new UncompressedModelType(mtid, errorBound, 0.0F, lengthBound)
   }
 }
@@ -0,0 +1,188 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.{File, FileOutputStream, OutputStream}
+import java.nio.charset.StandardCharsets
+import java.text.NumberFormat
+import java.util.Locale
+import java.util.zip.GZIPOutputStream
+import scala.collection.mutable
+import scala.util.Random
+
+class TimeSeriesCSVTest extends AnyFlatSpec with Matchers {
+
+  behavior of "TimeSeriesCSV"
+
+  it should "resume from the position after the last data point it has read" in {
+    val file = write(".csv", "timestamp,value\n" + lines(0 until 2000))
+    val (first, position) = read(file, 0, 1200)
+    val (rest, end) = read(file, position, Int.MaxValue)
+    first should equal((0 until 1200).map(row => (row * 100L, row % 7)))
+    rest should equal((1200 until 2000).map(row => (row * 100L, row % 7)))
+    end should equal(file.length())
+  }
+
+  it should "resume a compressed file from the position in the uncompressed data" in {
+    val file = write(".gz", "timestamp,value\n" + lines(0 until 2000))
+    val (_, position) = read(file, 0, 500)
+    val (rest, _) = read(file, position, Int.MaxValue)
+    rest should equal((500 until 2000).map(row => (row * 100L, row % 7)))
+  }
+
+  it should "only read the data points appended after the position of the previous ingestion" in {
+    val file = write(".csv", "timestamp,value\n" + lines(0 until 100) + "10000,")
+    val (first, position) = read(file, 0, Int.MaxValue)
+    first.length should equal(100)
+
+    //The last line was not complete when the file was read so it is read when the file is ingested again
+    val stream = new FileOutputStream(file, true)
+    stream.write(("2\n" + lines(101 until 150)).getBytes(StandardCharsets.UTF_8))
+    stream.close()
+    val (rest, _) = read(file, position, Int.MaxValue)
+    rest should equal((100 until 150).map(row => (row * 100L, row % 7)))
+  }
+
+  it should "count the bytes of characters that are encoded as multiple bytes" in {
+    val file = write(".csv", "tidsstempel,værdi\n" + lines(0 until 10))
+    val (_, position) = read(file, 0, 5)
+    position should equal(("tidsstempel,værdi\n" + lines(0 until 5)).getBytes(StandardCharsets.UTF_8).length)
+  }
+
+  it should "reject a position after the end of the file" in {
+    val file = write(".csv", lines(0 until 10))
+    an[IllegalArgumentException] should be thrownBy read(file, file.length() + 1, 1)
+  }
+
+  it should "parse the values to the same floats as NumberFormat" in {
+    val random = new Random(42)
+    val generated = (0 until 20000).map(_ => {
+      val value = random.nextDouble() * math.pow(10, random.nextInt(12) - 4) * (if (random.nextBoolean()) 1 else -1)
+      BigDecimal(value).setScale(random.nextInt(10), BigDecimal.RoundingMode.HALF_UP).toString
+    })
+    val special = Seq("0", "-0", "-0.0", "007", ".5", "1.", "1234567890123456789", "0.1234567890123456789",
+      "1.5E3", "1.5\r", "NaN", "12abc", "3.4028236E38")
+    val values = generated ++ special
+    val file = write(".csv", values.zipWithIndex.map { case (value, row) => s"${row * 100},$value\n" }.mkString)
+
+    val numberFormat = NumberFormat.getInstance(new Locale("en"))
+    val expected = values.map(value => java.lang.Float.floatToIntBits(numberFormat.parse(value).floatValue()))
+    readValues(file, ",", false, "java", 1, "en").map(java.lang.Float.floatToIntBits) should equal(expected)
+  }
+
+  it should "split the lines using a separator that is a regular expression" in {
+    val file = write(".csv", "0;1,5\n100,,2\n200;;3.5\n")
+    readValues(file, "[;,]", false, "java", 2, "en") should equal(Seq(5.0F, 2.0F, 3.5F))
+  }
+
+  it should "parse the values using the decimal separator of the locale" in {
+    val file = write(".csv", "0;1,5\n100;-2,25\n200;1.000,5\n")
+    readValues(file, ";", false, "java", 1, "da") should equal(Seq(1.5F, -2.25F, 1000.5F))
+  }
+
+  it should "parse unix timestamps and human readable timestamps" in {
+    val unix = write(".csv", "value,timestamp\n1.5,1\n2.5,2\n")
+    readDataPoints(unix, ",", true, "unix", 1, 0).map(_._1) should equal(Seq(1000L, 2000L))
+    val readable = write(".csv", "2021-01-01 00:00:01.000\t1.5\n2021-01-01 00:00:02.500\t2.5\n")
+    readDataPoints(readable, "\\t", false, "yyyy-MM-dd HH:mm:ss.SSS", 0, 1).map(_._1) should equal(
+      Seq(1609459201000L, 1609459202500L))
+  }
+
+  it should "read a line that is longer than the buffer" in {
+    val padding = "x" * (200 * 1024)
+    val file = write(".csv", s"0,1.5,$padding\n100,2.5,$padding\n200,3.5\n")
+    readValues(file, ",", false, "java", 1, "en") should equal(Seq(1.5F, 2.5F, 3.5F))
+  }
+
+  it should "read an uncompressed file through mapped windows that are smaller than its lines" in {
+    val padding = "x" * 300
+    val file = write(".csv", "timestamp,value\n" + (0 until 2000).map(row =>
+      if (row % 100 == 0) s"${row * 100},${row % 7},$padding\n" else s"${row * 100},${row % 7}\n").mkString)
+    val (first, position) = read(file, 0, 1200, 128)
+    val (rest, end) = read(file, position, Int.MaxValue, 128)
+    first should equal((0 until 1200).map(row => (row * 100L, row % 7)))
+    rest should equal((1200 until 2000).map(row => (row * 100L, row % 7)))
+    position should equal(read(file, 0, 1200)._2)
+    end should equal(file.length())
+  }
+
+  it should "not read a line without a line break through a mapped window" in {
+    val file = write(".csv", "timestamp,value\n" + lines(0 until 100) + "10000,")
+    val (dataPoints, position) = read(file, 0, Int.MaxValue, 64)
+    dataPoints.length should equal(100)
+    position should equal(file.length() - "10000,".length)
+  }
+
+  /** Private Methods * */
+  private def lines(rows: Range): String = {
+    rows.map(row => s"${row * 100},${row % 7}\n").mkString
+  }
+
+  private def write(suffix: String, content: String): File = {
+    val file = File.createTempFile("modelardb-csv", suffix)
+    file.deleteOnExit()
+    val stream: OutputStream = if (suffix == ".gz") {
+      new GZIPOutputStream(new FileOutputStream(file))
+    } else {
+      new FileOutputStream(file)
+    }
+    stream.write(content.getBytes(StandardCharsets.UTF_8))
+    stream.close()
+    file
+  }
+
+  private def readValues(file: File, separator: String, header: Boolean, dateFormat: String,
+                         valueColumn: Int, locale: String): Seq[Float] = {
+    val ts = new TimeSeriesCSV(file.getAbsolutePath, 1, 100, separator, header, 0, dateFormat, "UTC", valueColumn, locale, 0)
+    ts.open()
+    val values = mutable.ArrayBuffer[Float]()
+    while (ts.hasNext) {
+      values.append(ts.next().value)
+    }
+    ts.close()
+    values
+  }
+
+  private def readDataPoints(file: File, separator: String, header: Boolean, dateFormat: String,
+                             timestampColumn: Int, valueColumn: Int): Seq[(Long, Float)] = {
+    val ts = new TimeSeriesCSV(file.getAbsolutePath, 1, 100, separator, header, timestampColumn, dateFormat, "UTC",
+      valueColumn, "en", 0)
+    ts.open()
+    val dataPoints = mutable.ArrayBuffer[(Long, Float)]()
+    while (ts.hasNext) {
+      val dataPoint = ts.next()
+      dataPoints.append((dataPoint.timestamp, dataPoint.value))
+    }
+    ts.close()
+    dataPoints
+  }
+
+  private def read(file: File, position: Long, limit: Int, mappedWindowSize: Int = 0): (Seq[(Long, Int)], Long) = {
+    val ts = new TimeSeriesCSV(file.getAbsolutePath, 1, 100, ",", true, 0, "java", "UTC", 1, "en", mappedWindowSize)
+    ts.resumeAt(position)
+    ts.open()
+    val dataPoints = mutable.ArrayBuffer[(Long, Int)]()
+    while (dataPoints.length < limit && ts.hasNext) {
+      val dataPoint = ts.next()
+      dataPoints.append((dataPoint.timestamp, dataPoint.value.toInt))
+    }
+    val end = ts.getPosition
+    ts.close()
+    (dataPoints, end)
+  }
+}
@@ -0,0 +1,106 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.fs.Path
+import org.apache.hadoop.hive.ql.exec.vector.{DoubleColumnVector, TimestampColumnVector}
+import org.apache.orc.{OrcFile, TypeDescription}
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.File
+import java.sql.Timestamp
+import scala.collection.mutable
+
+class TimeSeriesORCTest extends AnyFlatSpec with Matchers {
+
+  behavior of "TimeSeriesORC"
+
+  it should "resume from the row after the last data point it has read" in {
+    val path = write(5000)
+    for (position <- Seq(0, 1, 1023, 1024, 4999, 5000)) {
+      val ts = new TimeSeriesORC(path, 1, 100, 0, 1)
+      ts.resumeAt(position)
+      ts.open()
+      val timestamps = mutable.ArrayBuffer[Long]()
+      while (ts.hasNext) {
+        timestamps.append(ts.next().timestamp)
+      }
+      ts.getPosition should equal(5000)
+      ts.close()
+      timestamps should equal((position until 5000).map(_ * 100L))
+    }
+  }
+
+  it should "read the same data points in batches as one at a time" in {
+    val path = write(5000)
+    val expected = {
+      val ts = new TimeSeriesORC(path, 1, 100, 0, 1)
+      ts.resumeAt(1000)
+      ts.open()
+      val dataPoints = Iterator.continually(ts).takeWhile(_.hasNext).map(ts => {
+        val dataPoint = ts.next()
+        (dataPoint.timestamp, dataPoint.value)
+      }).toList
+      ts.close()
+      dataPoints
+    }
+
+    val ts = new TimeSeriesORC(path, 1, 100, 0, 1)
+    ts.resumeAt(1000)
+    ts.open()
+    val timestamps = new Array[Long](700)
+    val values = new Array[Float](700)
+    val dataPoints = mutable.ArrayBuffer[(Long, Float)]()
+    var count = ts.nextBatch(timestamps, values)
+    while (count > 0) {
+      dataPoints.appendAll(timestamps.zip(values).take(count))
+      count = ts.nextBatch(timestamps, values)
+    }
+    ts.getPosition should equal(5000)
+    ts.close()
+    dataPoints should equal(expected)
+  }
+
+  it should "reject a position after the end of the file" in {
+    val ts = new TimeSeriesORC(write(10), 1, 100, 0, 1)
+    ts.resumeAt(11)
+    an[IllegalArgumentException] should be thrownBy ts.open()
+  }
+
+  /** Private Methods * */
+  private def write(rows: Int): String = {
+    val file = File.createTempFile("modelardb-orc", ".orc")
+    file.delete()
+    file.deleteOnExit()
+    val schema = TypeDescription.fromString("struct<timestamp:timestamp,value:float>")
+    val writer = OrcFile.createWriter(new Path(file.getAbsolutePath),
+      OrcFile.writerOptions(new Configuration()).setSchema(schema))
+    val batch = schema.createRowBatch()
+    for (row <- 0 until rows) {
+      batch.cols(0).asInstanceOf[TimestampColumnVector].set(batch.size, new Timestamp(row * 100L))
+      batch.cols(1).asInstanceOf[DoubleColumnVector].vector(batch.size) = row % 7
+      batch.size += 1
+      if (batch.size == batch.getMaxSize) {
+        writer.addRowBatch(batch)
+        batch.reset()
+      }
+    }
+    writer.addRowBatch(batch)
+    writer.close()
+    file.getAbsolutePath
+  }
+}
@@ -0,0 +1,111 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.fs.Path
+import org.apache.parquet.example.data.simple.SimpleGroup
+import org.apache.parquet.hadoop.ParquetFileReader
+import org.apache.parquet.hadoop.example.ExampleParquetWriter
+import org.apache.parquet.hadoop.util.HadoopInputFile
+import org.apache.parquet.schema.MessageTypeParser
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.File
+import scala.collection.mutable
+
+class TimeSeriesParquetTest extends AnyFlatSpec with Matchers {
+
+  behavior of "TimeSeriesParquet"
+
+  it should "resume from the row after the last data point it has read" in {
+    val path = write(5000)
+    val reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(path), new Configuration()))
+    val firstRowGroup = reader.getRowGroups.get(0).getRowCount.toInt
+    reader.getRowGroups.size() should be > 1
+    reader.close()
+
+    for (position <- Seq(0, 1, firstRowGroup - 1, firstRowGroup, firstRowGroup + 1, 4999, 5000)) {
+      val ts = new TimeSeriesParquet(path, 1, 100, 0, 1)
+      ts.resumeAt(position)
+      ts.open()
+      val timestamps = mutable.ArrayBuffer[Long]()
+      while (ts.hasNext) {
+        timestamps.append(ts.next().timestamp)
+      }
+      ts.getPosition should equal(5000)
+      ts.close()
+      timestamps should equal((position until 5000).map(_ * 100L))
+    }
+  }
+
+  it should "read the same data points in batches as one at a time" in {
+    val path = write(5000)
+    val expected = {
+      val ts = new TimeSeriesParquet(path, 1, 100, 0, 1)
+      ts.resumeAt(1000)
+      ts.open()
+      val dataPoints = Iterator.continually(ts).takeWhile(_.hasNext).map(ts => {
+        val dataPoint = ts.next()
+        (dataPoint.timestamp, dataPoint.value)
+      }).toList
+      ts.close()
+      dataPoints
+    }
+
+    val ts = new TimeSeriesParquet(path, 1, 100, 0, 1)
+    ts.resumeAt(1000)
+    ts.open()
+    val timestamps = new Array[Long](700)
+    val values = new Array[Float](700)
+    val dataPoints = mutable.ArrayBuffer[(Long, Float)]()
+    var count = ts.nextBatch(timestamps, values)
+    while (count > 0) {
+      dataPoints.appendAll(timestamps.zip(values).take(count))
+      count = ts.nextBatch(timestamps, values)
+    }
+    ts.getPosition should equal(5000)
+    ts.close()
+    dataPoints should equal(expected)
+  }
+
+  it should "reject a position after the end of the file" in {
+    val ts = new TimeSeriesParquet(write(10), 1, 100, 0, 1)
+    ts.resumeAt(11)
+    an[IllegalArgumentException] should be thrownBy ts.open()
+  }
+
+  /** Private Methods * */
+  private def write(rows: Int): String = {
+    val file = File.createTempFile("modelardb-parquet", ".parquet")
+    file.delete()
+    file.deleteOnExit()
+    val schema = MessageTypeParser.parseMessageType(
+      "message time_series { required int64 timestamp (TIMESTAMP_MICROS); required float value; }")
+
+    //A small row group size is used so the file contains multiple row groups
+    val writer = ExampleParquetWriter.builder(new Path(file.getAbsolutePath))
+      .withType(schema).withRowGroupSize(8 * 1024).withPageSize(1024).build()
+    for (row <- 0 until rows) {
+      val group = new SimpleGroup(schema)
+      group.add(0, row * 100L * 1000L)
+      group.add(1, (row % 7).toFloat)
+      writer.write(group)
+    }
+    writer.close()
+    file.getAbsolutePath
+  }
+}
@@ -0,0 +1,138 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.timeseries
+
+import dk.aau.modelardb.Main
+import dk.aau.modelardb.core.{Partitioner, TimeSeriesGroup}
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.{File, PrintWriter}
+import scala.collection.mutable
+
+class WideCSVReaderTest extends AnyFlatSpec with Matchers {
+
+  behavior of "WideCSVReader"
+
+  it should "read each value column as a time series with gaps for the empty cells" in {
+    val file = write("timestamp,a,b,c\n0,1.5,2.5,3.5\n100,,2.75,\n200,1.25,,3.25\n")
+    val group = new TimeSeriesGroup(1, newColumns(file, 1 to 3))
+    group.initialize()
+    val rows = mutable.ArrayBuffer[(Long, Seq[Option[Float]])]()
+    while (group.hasNext) {
+      group.next()
+      rows.append((group.getTimestamp, (0 until 3).map(i => if (group.isGap(i)) None else Some(group.getValue(i)))))
+    }
+    group.close()
+
+    rows should equal(Seq(
+      (0L, Seq(Some(1.5F), Some(2.5F), Some(3.5F))),
+      (100L, Seq(None, Some(2.75F), None)),
+      (200L, Seq(Some(1.25F), None, Some(3.25F)))))
+  }
+
+  it should "keep the rows until all of the time series have read them" in {
+    val file = write("timestamp,a,b\n" + (0 until 5000).map(row => s"${row * 100},$row,${-row}\n").mkString)
+    val columns = newColumns(file, 1 to 2)
+    columns.foreach(_.open())
+    val first = Iterator.continually(columns(0)).takeWhile(_.hasNext).map(_.next().value).toList
+    val second = Iterator.continually(columns(1)).takeWhile(_.hasNext).map(_.next().value).toList
+    columns.foreach(_.close())
+
+    first should equal((0 until 5000).map(_.toFloat))
+    second should equal((0 until 5000).map(-_.toFloat))
+  }
+
+  it should "only keep the rows that have not been read when a column ends before the others" in {
+    val rows = 200000
+    val file = write("timestamp,a,b\n" + (0 until rows).map(row =>
+      if (row < 100) s"${row * 100},$row,${-row}\n" else s"${row * 100},$row,\n").mkString)
+    val columns = newColumns(file, 1 to 2)
+    val reader = columns(0).asInstanceOf[TimeSeriesCSVColumn].reader
+    val group = new TimeSeriesGroup(1, columns)
+    group.initialize()
+    var read = 0
+    var gaps = 0
+    var maximumCapacity = 0
+    while (group.hasNext) {
+      group.next()
+      group.getValue(0) should equal(read.toFloat)
+      gaps += (if (group.isGap(1)) 1 else 0)
+      maximumCapacity = Math.max(maximumCapacity, reader.getCapacity)
+      read += 1
+    }
+    group.close()
+
+    read should equal(rows)
+    gaps should equal(rows - 100)
+    maximumCapacity should be <= 4096
+  }
+
+  it should "resume all of the columns from the position of the file" in {
+    val file = write("timestamp,a,b\n" + (0 until 100).map(row => s"${row * 100},$row,${-row}\n").mkString)
+    val columns = newColumns(file, 1 to 2)
+    columns.foreach(_.open())
+    columns.foreach(column => (0 until 40).foreach(_ => column.next()))
+    val position = columns(0).getPosition
+    columns.foreach(_.close())
+
+    val resumed = newColumns(file, 1 to 2)
+    resumed.foreach(_.resumeAt(position))
+    resumed.foreach(_.open())
+    resumed(1).next().timestamp should equal(4000L)
+    resumed(0).next().value should equal(40.0F)
+    resumed.foreach(_.close())
+  }
+
+  it should "place the columns of a file in the same group" in {
+    val file = write("timestamp,a,b,c\n0,1,2,3\n")
+    val other = write("timestamp,a\n0,1\n")
+    val config = File.createTempFile("modelardb", ".conf")
+    config.deleteOnExit()
+    val writer = new PrintWriter(config)
+    writer.println("modelardb.model_type dk.aau.modelardb.core.models.PMC_MeanModelType")
+    writer.println(s"modelardb.source.wide ${file.getAbsolutePath} 1-2")
+    writer.println(s"modelardb.source ${other.getAbsolutePath}")
+    writer.println(s"modelardb.source.wide ${file.getAbsolutePath} 3")
+    Seq("modelardb.error_bound 0", "modelardb.sampling_interval 100", "modelardb.timestamp_column 0",
+      "modelardb.value_column 1", "modelardb.time_zone UTC", "modelardb.csv.separator ,",
+      "modelardb.csv.header True", "modelardb.csv.date_format java", "modelardb.csv.locale en",
+      "modelardb.spark.streaming 5").foreach(writer.println)
+    writer.close()
+
+    val configuration = Main.readConfigurationFile(config.getAbsolutePath)
+    val timeSeries = Partitioner.initializeTimeSeries(configuration, 0)
+    timeSeries.map(_.source) should equal(Array(file.getName + "#1", file.getName + "#2", other.getName,
+      file.getName + "#3"))
+    val groups = Partitioner.groupTimeSeries(configuration, timeSeries, 0)
+    groups.map(_.getTids) should equal(Array("{1,2,4}", "{3}"))
+  }
+
+  /** Private Methods * */
+  private def write(content: String): File = {
+    val file = File.createTempFile("modelardb-wide", ".csv")
+    file.deleteOnExit()
+    val writer = new PrintWriter(file)
+    writer.write(content)
+    writer.close()
+    file
+  }
+
+  private def newColumns(file: File, columns: Range): Array[TimeSeries] = {
+    val reader = new WideCSVReader(file.getAbsolutePath, ",", true, 0, "java", "UTC", "en", 0)
+    columns.map(column => new TimeSeriesCSVColumn(file.getAbsolutePath + "#" + column, column, 100, reader, column))
+      .toArray
+  }
+}
@@ -0,0 +1,51 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.util.Random
+
+class BitBufferTest extends AnyFlatSpec with Matchers {
+
+  behavior of "BitBuffer"
+
+  it should "write the bits starting from the most significant bit of each byte" in {
+    val bitBuffer = new BitBuffer(1)
+    bitBuffer.writeBit(true)
+    bitBuffer.writeBits(0, 3)
+    bitBuffer.writeBits(-1, 5)
+    bitBuffer.size() should equal(2)
+    bitBuffer.array() should equal(Array(0x8F.toByte, 0x80.toByte))
+  }
+
+  it should "read the bits that were written across words and expansions" in {
+    val random = new Random(0)
+    val widths = Array.fill(10000)(random.nextInt(65))
+    val values = widths.map(width => if (width == 0) 0L else random.nextLong() >>> (64 - width))
+    val bitBuffer = new BitBuffer(4)
+    for ((value, width) <- values.zip(widths)) {
+      if (width == 1) bitBuffer.writeBit(value == 1L) else bitBuffer.writeBits(value, width)
+    }
+    val bytes = bitBuffer.array()
+    bytes.length should equal((widths.sum + 7) / 8)
+
+    val readBuffer = new BitBuffer(bytes)
+    for ((value, width) <- values.zip(widths)) {
+      if (width == 1) readBuffer.readBit() should equal(value == 1L) else readBuffer.readBits(width) should equal(value)
+    }
+  }
+}
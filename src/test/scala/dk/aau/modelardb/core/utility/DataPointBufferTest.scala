@@ -0,0 +1,88 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class DataPointBufferTest extends AnyFlatSpec with Matchers {
+
+  behavior of "DataPointBuffer"
+
+  it should "store the values of each time series in a group" in {
+    val buffer = new DataPointBuffer(Array(1, 2, 3), 4)
+    buffer.append(100L, Array(1.0F, 2.0F, 3.0F))
+    buffer.append(200L, Array(4.0F, 5.0F, 6.0F))
+    buffer.size() should equal(2)
+    buffer.width() should equal(3)
+    buffer.getTimestamp(1) should equal(200L)
+    buffer.getValue(1, 2) should equal(6.0F)
+    buffer.getTid(2) should equal(3)
+  }
+
+  it should "ignore the values of time series in a gap" in {
+    val buffer = new DataPointBuffer(Array(1, 2, 3), 4)
+    buffer.setGap(1, true)
+    buffer.append(100L, Array(1.0F, Float.NaN, 3.0F))
+    buffer.width() should equal(2)
+    buffer.getTid(1) should equal(3)
+    buffer.getValue(0, 1) should equal(3.0F)
+  }
+
+  it should "only allow gaps to change when empty" in {
+    val buffer = new DataPointBuffer(Array(1, 2), 4)
+    buffer.append(100L, Array(1.0F, 2.0F))
+    an[UnsupportedOperationException] should be thrownBy buffer.setGap(0, true)
+    buffer.clear()
+    buffer.setGap(0, true)
+    buffer.isGap(0) should be(true)
+  }
+
+  it should "keep the order of data points when removed from the front and expanded" in {
+    val buffer = new DataPointBuffer(Array(1), 4)
+    for (i <- 0 until 3) {
+      buffer.append(i, Array(i.toFloat))
+    }
+    buffer.removeFirst(2)
+    for (i <- 3 until 10) {
+      buffer.append(i, Array(i.toFloat))
+    }
+    buffer.removeLast(1)
+    buffer.size() should equal(7)
+    for (row <- 0 until buffer.size()) {
+      buffer.getTimestamp(row) should equal(row + 2)
+      buffer.getValue(row, 0) should equal((row + 2).toFloat)
+    }
+  }
+
+  it should "store the values of each row contiguously after wrapping and expanding" in {
+    val buffer = new DataPointBuffer(Array(1, 2, 3), 2)
+    buffer.setGap(1, true)
+    buffer.append(0, Array(0.0F, Float.NaN, 10.0F))
+    buffer.append(1, Array(1.0F, Float.NaN, 11.0F))
+    buffer.removeFirst(1)
+    for (i <- 2 until 5) {
+      buffer.append(i, Array(i.toFloat, Float.NaN, (i + 10).toFloat))
+    }
+    buffer.size() should equal(4)
+    for (row <- 0 until buffer.size()) {
+      val offset = buffer.getOffset(row)
+      buffer.getValues.slice(offset, offset + buffer.width()) should equal(Array((row + 1).toFloat, (row + 11).toFloat))
+    }
+    Static.min(buffer, 3) should equal(4.0F)
+    Static.max(buffer, 3) should equal(14.0F)
+    Static.avg(buffer, 3) should equal(9.0F)
+  }
+}
@@ -64,4 +64,13 @@ class PercentageErrorTest extends AnyWordSpec {
   "outside error must handle 0, - as true " in {
     assert(Static.outsidePercentageErrorBound(10, 0, -1))
   }
+
+  "outside error must handle values close to 0 within the absolute error bound as false" in {
+    assert(!Static.outsideErrorBound(10, 0.1F, 0.05, -0.04))
+  }
+
+  "outside error must handle values within either error bound as false" in {
+    assert(!Static.outsideErrorBound(10, 0.1F, 95, 100))
+    assert(Static.outsideErrorBound(10, 0.1F, 85, 100))
+  }
 }
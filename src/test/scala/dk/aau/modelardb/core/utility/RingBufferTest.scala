@@ -0,0 +1,78 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class RingBufferTest extends AnyFlatSpec with Matchers {
+
+  behavior of "RingBuffer"
+
+  it should "return the elements in the order they were offered" in {
+    val buffer = new RingBuffer[Integer](4)
+    for (element <- 1 to 3) {
+      buffer.offer(element) should be(true)
+    }
+    buffer.size() should equal(3)
+    buffer.poll() should equal(1)
+    buffer.poll() should equal(2)
+    buffer.poll() should equal(3)
+    Option(buffer.poll()) should be(None)
+    buffer.isEmpty should be(true)
+  }
+
+  it should "reject elements when full" in {
+    val buffer = new RingBuffer[Integer](3)
+    buffer.capacity() should equal(4)
+    for (element <- 1 to 4) {
+      buffer.offer(element) should be(true)
+    }
+    buffer.offer(5) should be(false)
+    buffer.poll() should equal(1)
+    buffer.offer(5) should be(true)
+  }
+
+  it should "transfer elements from one thread to another in order" in {
+    val buffer = new RingBuffer[Integer](16)
+    val elements = 1000000
+    val producer = new Thread(() => {
+      var attempt = 0
+      for (element <- 1 to elements) {
+        while (!buffer.offer(element)) {
+          RingBuffer.idle(attempt)
+          attempt += 1
+        }
+      }
+      buffer.close()
+    })
+    producer.start()
+
+    var expected = 1
+    var attempt = 0
+    while (!buffer.isClosed || !buffer.isEmpty) {
+      val element = buffer.poll()
+      if (element == null) {
+        RingBuffer.idle(attempt)
+        attempt += 1
+      } else {
+        element.intValue() should equal(expected)
+        expected += 1
+      }
+    }
+    producer.join()
+    expected should equal(elements + 1)
+  }
+}
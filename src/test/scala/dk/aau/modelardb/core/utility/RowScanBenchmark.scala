@@ -0,0 +1,121 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility
+
+import scala.util.Random
+
+//Compares computing the min, max, and sum of each row in a DataPointBuffer through getValue() and Math.min/max() as
+// PMC_MeanModelType.append() did with scanning the contiguous values of each row as PMC_MeanModelType.append() does
+// now, using Math.min/max() for rows narrower than Static.BRANCHING_SCAN_WIDTH. The benchmark is executed with:
+// sbt "Test/runMain dk.aau.modelardb.core.utility.RowScanBenchmark [dataPoints]"
+object RowScanBenchmark {
+
+  /** Public Methods **/
+  def main(args: Array[String]): Unit = {
+    val dataPoints = if (args.length > 0) args(0).toInt else 10000000
+    for (width <- Array(1, 8, 16, 32, 64, 512)) {
+      val buffer = generate(width, Math.max(1, dataPoints / width))
+
+      //The first iterations are not reported so the JVM has time to compile the methods
+      var (scalarTime, rowTime, checksum) = (0L, 0L, 0.0)
+      for (iteration <- 1 to 10) {
+        val (scalarResult, scalar) = time(perValue(buffer))
+        val (rowResult, row) = time(perRow(buffer))
+        if (scalarResult != rowResult) {
+          throw new IllegalStateException("CORE: the scans computed different results")
+        }
+        if (iteration > 5) {
+          scalarTime += scalar
+          rowTime += row
+          checksum += rowResult
+        }
+      }
+      println(f"Width $width%3d | getValue ${scalarTime / 5000000}%5d ms | rows ${rowTime / 5000000}%5d ms | " +
+        f"speedup ${scalarTime.toDouble / rowTime}%.2fx | checksum $checksum%.1f")
+    }
+  }
+
+  /** Private Methods **/
+  private def generate(width: Int, rows: Int): DataPointBuffer = {
+    val random = new Random(0)
+    val buffer = new DataPointBuffer((1 to width).toArray, rows)
+    val values = new Array[Float](width)
+    for (row <- 0 until rows) {
+      for (column <- 0 until width) {
+        values(column) = (100.0 + random.nextGaussian()).toFloat
+      }
+      buffer.append(row * 100L, values)
+    }
+    buffer
+  }
+
+  private def time(f: => Double): (Double, Long) = {
+    val startTime = System.nanoTime()
+    val result = f
+    (result, System.nanoTime() - startTime)
+  }
+
+  private def perValue(buffer: DataPointBuffer): Double = {
+    var result = 0.0
+    val width = buffer.width()
+    for (row <- 0 until buffer.size()) {
+      var min = Float.MaxValue
+      var max = -Float.MaxValue
+      var sum = 0.0
+      var column = 0
+      while (column < width) {
+        val value = buffer.getValue(row, column)
+        sum += value
+        min = Math.min(min, value)
+        max = Math.max(max, value)
+        column += 1
+      }
+      result += min + max + sum
+    }
+    result
+  }
+
+  private def perRow(buffer: DataPointBuffer): Double = {
+    var result = 0.0
+    val values = buffer.getValues
+    val width = buffer.width()
+    for (row <- 0 until buffer.size()) {
+      var min = Float.MaxValue
+      var max = -Float.MaxValue
+      var sum = 0.0
+      val from = buffer.getOffset(row)
+      var index = from
+      if (width < Static.BRANCHING_SCAN_WIDTH) {
+        while (index < from + width) {
+          val value = values(index)
+          sum += value
+          min = Math.min(min, value)
+          max = Math.max(max, value)
+          index += 1
+        }
+      } else {
+        while (index < from + width) {
+          val value = values(index)
+          sum += value
+          if (value < min) min = value
+          if (max < value) max = value
+          index += 1
+        }
+      }
+      result += min + max + sum
+    }
+    result
+  }
+}
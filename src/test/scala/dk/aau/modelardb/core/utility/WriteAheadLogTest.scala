@@ -0,0 +1,124 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.core.utility
+
+import dk.aau.modelardb.core.timeseries.TimeSeries
+import dk.aau.modelardb.core.{DataPoint, SegmentGroup, TimeSeriesGroup}
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import java.io.RandomAccessFile
+import java.nio.file.{Files, Path}
+import scala.collection.JavaConverters._
+
+class WriteAheadLogTest extends AnyFlatSpec with Matchers {
+
+  behavior of "WriteAheadLog"
+
+  it should "recover the segments that have not been stored and resume after the stored data points" in {
+    val directory = Files.createTempDirectory("modelardb-wal")
+    val wal = new WriteAheadLog(directory.toString, 4096)
+    wal.isEmpty should be(true)
+    wal.start(newGroups())
+    val stored = newSegment(1, 0, 900, Array())
+    wal.append(stored)
+    wal.append(newSegment(1, 1000, 1900, Array(2)))
+    wal.append(newSegment(2, 0, 500, Array()))
+    wal.stored(Array(stored), 1)
+    wal.close(false)
+
+    val recovered = new WriteAheadLog(directory.toString, 4096)
+    recovered.isEmpty should be(false)
+    recovered.getMinimumTid should equal(1)
+    recovered.getMinimumGid should equal(1)
+    recovered.getRecoveredSegments.map(segment => (segment.gid, segment.startTime, segment.endTime)) should equal(
+      Array((1, 1000, 1900), (2, 0, 500)))
+    recovered.getRecoveredSegments()(0).offsets should equal(Static.intToBytes(Array(2)))
+
+    //The second time series is in a gap in the recovered segment of the first group so it resumes after 900
+    val groups = newGroups()
+    recovered.start(groups)
+    groups.flatMap(_.getTimeSeries).map(_.getResumeTimestamp) should equal(Array(1900, 900, 500))
+    recovered.close(true)
+    files(directory) should be(empty)
+  }
+
+  it should "delete a file when all of its segments have been stored" in {
+    val directory = Files.createTempDirectory("modelardb-wal")
+    val wal = new WriteAheadLog(directory.toString, 256)
+    wal.start(newGroups())
+    val segments = (0 until 10).map(i => newSegment(1 + i % 2, i * 1000, i * 1000 + 900, Array())).toArray
+    segments.foreach(wal.append)
+    files(directory).length should be > 1
+
+    wal.stored(segments, segments.length)
+    files(directory).length should equal(1)
+    wal.close(false)
+    new WriteAheadLog(directory.toString, 256).getRecoveredSegments should be(empty)
+  }
+
+  it should "ignore a record that was only partially written" in {
+    val directory = Files.createTempDirectory("modelardb-wal")
+    val wal = new WriteAheadLog(directory.toString, 4096)
+    wal.start(newGroups())
+    wal.append(newSegment(1, 0, 900, Array()))
+    wal.append(newSegment(2, 0, 900, Array()))
+    wal.close(false)
+
+    //The last byte of the second segment is changed so its checksum no longer matches
+    val file = new RandomAccessFile(files(directory).head.toFile, "rw")
+    val end = Iterator.iterate(file.length() - 1)(_ - 1).find(position => { file.seek(position); file.read() != 0 }).get
+    file.seek(end)
+    file.write(0xFF)
+    file.close()
+    new WriteAheadLog(directory.toString, 4096).getRecoveredSegments.map(_.gid) should equal(Array(1))
+  }
+
+  it should "reject sources that do not match the sources in the log" in {
+    val directory = Files.createTempDirectory("modelardb-wal")
+    val wal = new WriteAheadLog(directory.toString, 4096)
+    wal.start(newGroups())
+    wal.close(false)
+
+    val groups = Array(new TimeSeriesGroup(1, Array(newTimeSeries("other", 1))))
+    an[IllegalArgumentException] should be thrownBy new WriteAheadLog(directory.toString, 4096).start(groups)
+  }
+
+  /** Private Methods * */
+  private def newGroups(): Array[TimeSeriesGroup] = {
+    Array(new TimeSeriesGroup(1, Array(newTimeSeries("a", 1), newTimeSeries("b", 2))),
+      new TimeSeriesGroup(2, Array(newTimeSeries("c", 3))))
+  }
+
+  private def newTimeSeries(source: String, tid: Int): TimeSeries = {
+    new TimeSeries(source, tid, 100) {
+      override def open(): Unit = ()
+
+      override def close(): Unit = ()
+
+      override def hasNext: Boolean = false
+
+      override def next(): DataPoint = null
+    }
+  }
+
+  private def newSegment(gid: Int, startTime: Long, endTime: Long, gaps: Array[Int]): SegmentGroup = {
+    new SegmentGroup(gid, startTime, endTime, 2, Array[Byte](1, 2, 3, 4), Static.intToBytes(gaps))
+  }
+
+  private def files(directory: Path): List[Path] = {
+    Files.list(directory).iterator().asScala.toList.sorted
+  }
+}
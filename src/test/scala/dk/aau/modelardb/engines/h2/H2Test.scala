@@ -17,7 +17,7 @@ package dk.aau.modelardb.engines.h2
 import dk.aau.modelardb.core.models.ModelTypeFactory
 import dk.aau.modelardb.core.{Configuration, Dimensions, SegmentGroup}
 import dk.aau.modelardb.engines.EngineUtilities
-import dk.aau.modelardb.storage.JDBCStorage
+import dk.aau.modelardb.storage.{JDBCStorage, ORCStorage}
 import org.h2.expression.condition.{Comparison, ConditionAndOr}
 import org.h2.jdbc.JdbcSQLDataException
 import org.h2.table.TableFilter
@@ -25,9 +25,14 @@ import org.scalamock.scalatest.MockFactory
 import org.scalatest.flatspec.AnyFlatSpec
 import org.scalatest.matchers.should.Matchers
 
+import java.nio.file.Files
 import java.sql.{DriverManager, Statement}
 import java.time.Instant
+import java.util.concurrent.{CountDownLatch, TimeUnit}
 import scala.collection.mutable
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.DurationInt
+import scala.concurrent.{Await, Future}
 
 class H2Test extends AnyFlatSpec with Matchers with MockFactory {
 
@@ -71,6 +76,7 @@ class H2Test extends AnyFlatSpec with Matchers with MockFactory {
       (storage.getSegmentGroups(_: TableFilter))
         .expects(*)
         .returns(Iterator(sg))
+      (() => storage.supportsConcurrentQueries).expects().returns(false).anyNumberOfTimes()
 
       storage.timeSeriesGroupCache = Array(0, 1)
       storage.groupMetadataCache = Array(Array(), Array(samplingInterval, 1, 1), Array(samplingInterval, 1, 1))
@@ -106,6 +112,94 @@ class H2Test extends AnyFlatSpec with Matchers with MockFactory {
     }
   }
 
+  behavior of "H2 Segment Cache"
+
+  it should "return each segment exactly once while a batch is being stored" in {
+    val storage = new SlowJDBCStorage()
+    storage.groupMetadataCache = Array(Array(), Array(100, 1))
+    val configuration = new Configuration()
+    configuration.add("modelardb.batch_size", 2)
+    val h2 = new H2(configuration, storage)
+    val batch = h2.newSegmentBatch()
+    val (_, consumeFinalized) = h2.newSegmentFunctions(batch)
+
+    //The first batch is full after two segments and the flusher blocks while storing it
+    def emit(startTime: Long): Unit = consumeFinalized.emit(1, startTime, startTime + 100, 1, Array(0x42.toByte), Array())
+    emit(0)
+    emit(200)
+    storage.storing.await(10, TimeUnit.SECONDS) should be(true)
+
+    //Neither appending to the next batch nor querying the segments waits for the batch being stored
+    emit(400)
+    def query(): Seq[Long] = Await.result(Future(h2.getSegmentGroups(null).map(_.startTime).toList.sorted), 10.seconds)
+    query() should equal(Seq(0, 200, 400))
+
+    //The segments are only read from the storage when the store has completed
+    storage.release.countDown()
+    batch.awaitFlushed()
+    batch.release()
+    batch.getSnapshot.finalizedSegments.map(_.startTime).toList should equal(Seq(400))
+    query() should equal(Seq(0, 200, 400))
+  }
+
+  it should "return each segment exactly once while the file storage merges the stored batches" in {
+    val folder = Files.createTempDirectory("modelardb-h2-orc").toFile
+    folder.deleteOnExit()
+    val storage = new ORCStorage(folder.getAbsolutePath + "/")
+    storage.open(new Dimensions(Array()))
+    storage.groupMetadataCache = Array(Array(), Array(100, 1))
+    val configuration = new Configuration()
+    configuration.add("modelardb.batch_size", 5)
+    val h2 = new H2(configuration, storage)
+    val batch = h2.newSegmentBatch()
+    val (_, consumeFinalized) = h2.newSegmentFunctions(batch)
+
+    //The segments are queried while they are emitted, stored, and merged every tenth batch, so each query must return
+    // all of the segments emitted before it started as they are either cached or stored
+    val segments = 500
+    @volatile var emitted = 0
+    @volatile var ingesting = true
+    val queries = Future {
+      var queried = 0
+      while (ingesting) {
+        val before = emitted
+        val startTimes = h2.getSegmentGroups(null).map(_.startTime).toList.sorted
+        startTimes should equal(startTimes.distinct)
+        startTimes.take(before) should equal((0 until before).map(_ * 200L))
+        queried += 1
+      }
+      queried
+    }
+    for (segment <- 0 until segments) {
+      consumeFinalized.emit(1, segment * 200L, segment * 200L + 100, 1, Array(0x42.toByte), Array())
+      emitted += 1
+    }
+    h2.flush(batch)
+    batch.awaitFlushed()
+    batch.release()
+    ingesting = false
+
+    Await.result(queries, 60.seconds) should be > 0
+    h2.getSegmentGroups(null).map(_.startTime).toList.sorted should equal((0 until segments).map(_ * 200L))
+  }
+
   /* HACK: needed because JDBCStorage class init fails when constructor arg is null */
   private class JDBCStorageNoArgs extends JDBCStorage("jdbc:h2:mem")
+
+  //Makes the stored segments visible to queries before the store blocks until it is released
+  private class SlowJDBCStorage extends JDBCStorage("jdbc:h2:mem") {
+    val storing = new CountDownLatch(1)
+    val release = new CountDownLatch(1)
+    @volatile private var stored = Array[SegmentGroup]()
+
+    override def storeSegmentGroups(segmentGroups: Array[SegmentGroup], size: Int): Unit = {
+      this.stored = this.stored ++ segmentGroups.take(size)
+      this.storing.countDown()
+      this.release.await()
+    }
+
+    override def getSegmentGroups(filter: TableFilter): Iterator[SegmentGroup] = this.stored.iterator
+
+    override def supportsConcurrentQueries: Boolean = true
+  }
 }
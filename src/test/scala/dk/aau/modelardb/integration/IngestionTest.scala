@@ -16,7 +16,7 @@ package dk.aau.modelardb.integration
 
 import dk.aau.modelardb.core.models.{ModelTypeFactory, Segment}
 import dk.aau.modelardb.core.utility.Static
-import dk.aau.modelardb.core.{DataPoint, TimeSeriesGroup, WorkingSet}
+import dk.aau.modelardb.core.{DataPoint, SelectionPolicies, TimeSeriesGroup, WorkingSet}
 import org.scalatest.flatspec.AnyFlatSpec
 import org.scalatest.matchers.should.Matchers
 
@@ -48,9 +48,27 @@ class IngestionTest extends AnyFlatSpec with Matchers {
     }
   }
 
+  it should "be able to ingest time series through the ingestion pipeline" in new TimeSeriesGroupProvider {
+    //A small capacity ensures that the parse and fit stages are stalled by back-pressure during the test
+    val (ats, rts) = ingest(() => newTimeSeriesGroups, () => samplingInterval, 0.0F, 4)
+    while (ats.hasNext && rts.hasNext) {
+      ats.next().value should equal(rts.next().value)
+    }
+    ats.hasNext should equal(rts.hasNext)
+  }
+
+  it should "be able to ingest time series through the prefetcher" in new TimeSeriesGroupProvider {
+    //The prefetcher is combined with the pipeline so the prefetched time series are read by the parse stage
+    val (ats, rts) = ingest(() => newTimeSeriesGroups, () => samplingInterval, 0.0F, 4, 2)
+    while (ats.hasNext && rts.hasNext) {
+      ats.next().value should equal(rts.next().value)
+    }
+    ats.hasNext should equal(rts.hasNext)
+  }
+
   /** Private Methods * */
-  def ingest(newTimeSeriesGroups: () => Array[TimeSeriesGroup], samplingInterval: () => Int, errorBound: Float):
-  (Iterator[DataPoint], Iterator[DataPoint]) = {
+  def ingest(newTimeSeriesGroups: () => Array[TimeSeriesGroup], samplingInterval: () => Int, errorBound: Float,
+             pipelineCapacity: Int = 0, prefetchDepth: Int = 0): (Iterator[DataPoint], Iterator[DataPoint]) = {
     //Initialize
     val mtn = Array("dk.aau.modelardb.core.models.PMC_MeanModelType",
       "dk.aau.modelardb.core.models.SwingFilterModelType", "dk.aau.modelardb.core.models.FacebookGorillaModelType")
@@ -60,8 +78,11 @@ class IngestionTest extends AnyFlatSpec with Matchers {
 
     //Ingest
     val offset = ByteBuffer.allocate(12).putInt(1).putInt(1).putInt(0).array()
-    val workingSet = new WorkingSet(newTimeSeriesGroups(), 1 / 10, mtn,
-      Range(1, mtn.length + 1).toArray, errorBound, 50, 0)
+    val timeSeriesGroups = newTimeSeriesGroups()
+    val workingSet = new WorkingSet(timeSeriesGroups, 1 / 10, Array.fill(timeSeriesGroups.length)(mtn),
+      Array.fill(timeSeriesGroups.length)(Range(1, mtn.length + 1).toArray), errorBound,
+      Array.fill(timeSeriesGroups.length)(0.0F), new SelectionPolicies.CompressionRatio(), 50, 0, 0, pipelineCapacity, prefetchDepth,
+      false)
     workingSet.process((_: Int, _: Long, _: Long, _: Int, _: Array[Byte], _: Array[Byte]) => (),
       (gid: Int, startTime: Long, endTime: Long, mtid: Int, model: Array[Byte], gaps: Array[Byte]) => {
         segments.append(modelTypes(mtid - 1).get(gid, startTime, endTime, samplingInterval(), model, offset)) //HACK: gid == tid
@@ -0,0 +1,53 @@
+/* Copyright 2021 The ModelarDB Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dk.aau.modelardb.storage
+
+import dk.aau.modelardb.core.Dimensions
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.collection.mutable
+
+class JDBCStorageTest extends AnyFlatSpec with Matchers {
+
+  behavior of "JDBCStorage"
+
+  it should "replace the position of a source when it is stored again" in {
+    val storage = newStorage("positions")
+    storage.storeSourcePositions(mutable.HashMap[Integer, (String, Long)](
+      Int.box(1) -> (("/a.csv", 10L)), Int.box(2) -> (("/b.csv", 20L))))
+    storage.storeSourcePositions(mutable.HashMap[Integer, (String, Long)](Int.box(2) -> (("/b.csv", 40L))))
+    storage.getSourcePositions should equal(Map(1 -> (("/a.csv", 10L)), 2 -> (("/b.csv", 40L))))
+  }
+
+  it should "find the most recent ingestion of the same sources in the same order" in {
+    val storage = newStorage("ingested")
+    storage.getIngestedSources(Array("/a.csv", "/b.csv")) should equal(None)
+    storage.storeSourcePositions(mutable.HashMap[Integer, (String, Long)](
+      Int.box(1) -> (("/a.csv", 10L)), Int.box(2) -> (("/b.csv", 20L)), Int.box(3) -> (("/c.csv", 30L)),
+      Int.box(4) -> (("/a.csv", 40L)), Int.box(5) -> (("/b.csv", 50L))))
+    storage.getIngestedSources(Array("/a.csv", "/b.csv")) should equal(Some(3))
+    storage.getIngestedSources(Array("/b.csv", "/c.csv")) should equal(Some(1))
+    storage.getIngestedSources(Array("/b.csv", "/a.csv")) should equal(None)
+    storage.getIngestedSources(Array("/a.csv", "/b.csv", "/d.csv")) should equal(None)
+  }
+
+  /** Private Methods * */
+  private def newStorage(name: String): JDBCStorage = {
+    val storage = new JDBCStorage(s"jdbc:h2:mem:$name")
+    storage.open(new Dimensions(Array()))
+    storage
+  }
+}